@@ -0,0 +1,42 @@
+package ast;
+
+import lexer.Token;
+
+/**
+ * Asignación simple o compuesta (:=, +=, -=, ...) a una variable.
+ */
+public class Assign extends Stmt {
+    private final Token operator;
+    private final Expr value;
+
+    /**
+     * @param token Variable asignada
+     * @param operator Operador de asignación
+     * @param value Valor asignado
+     */
+    public Assign(Token token, Token operator, Expr value) {
+        super(token);
+        this.operator = operator;
+        this.value = value;
+    }
+
+    public Token getOperator() {
+        return operator;
+    }
+
+    public Expr getValue() {
+        return value;
+    }
+
+    /**
+     * Obtiene el nombre de la variable asignada.
+     */
+    public String getName() {
+        return getToken().getLexeme();
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitAssign(this);
+    }
+}
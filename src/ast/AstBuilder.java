@@ -0,0 +1,144 @@
+package ast;
+
+import lexer.Token;
+import parser.Grammar;
+import parser.ParserException;
+import parser.SLR1Parser;
+import parser.SemanticActions;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Construye el AST durante el análisis sintáctico mediante una acción por
+ * producción. Los tokens desplazados se conservan como valor; los
+ * separadores y las producciones unitarias no generan nodos.
+ */
+public class AstBuilder implements SemanticActions {
+
+    /**
+     * Acción asociada a una producción.
+     */
+    @FunctionalInterface
+    private interface ReductionAction {
+        Object apply(Object[] values);
+    }
+
+    private final ReductionAction[] actions = new ReductionAction[Grammar.getProductions().size()];
+
+    public AstBuilder() {
+        // Programa y listas de sentencias
+        on(1, v -> new Program(null, list(v[0])));
+        on(2, v -> newList(v[0]));
+        on(3, v -> append(v[0], v[1]));
+
+        // Sentencias simples
+        on(6, v -> new ExprStmt(((Expr) v[0]).getToken(), (Expr) v[0]));
+        on(7, v -> new Assign(token(v[0]), token(v[1]), (Expr) v[2]));
+        on(14, v -> new VarDecl(token(v[1]), token(v[0]), null));
+        on(15, v -> new VarDecl(token(v[1]), token(v[0]), (Expr) v[3]));
+        on(46, v -> new Break(token(v[0])));
+        on(48, v -> new Return(token(v[0]), (Expr) v[1]));
+
+        // Funciones
+        on(27, v -> new FunctionDecl(token(v[1]), token(v[0]), list(v[3]), (Block) v[5]));
+        on(29, v -> new ArrayList<Param>());
+        on(30, v -> newList(v[0]));
+        on(31, v -> append(v[0], v[2]));
+        on(32, v -> new Param(token(v[1]), token(v[0])));
+
+        // Control de flujo
+        on(34, v -> new If(token(v[0]), (Expr) v[2], (Block) v[4], null));
+        on(35, v -> new If(token(v[0]), (Expr) v[2], (Block) v[4], (Block) v[6]));
+        on(37, v -> new Switch(token(v[0]), (Expr) v[2], list(v[5])));
+        on(38, v -> newList(v[0]));
+        on(39, v -> append(v[0], v[1]));
+        on(40, v -> append(v[0], v[1]));
+        on(41, v -> new Case(token(v[0]), (Literal) v[1], list(v[3])));
+        on(42, v -> new Case(token(v[0]), null, list(v[2])));
+        on(44, v -> append(v[0], v[1]));
+        on(50, v -> new While(token(v[0]), (Expr) v[2], (Block) v[4]));
+        on(52, v -> new DoWhile(token(v[0]), (Block) v[1], (Expr) v[4]));
+        on(54, v -> new For(token(v[0]), (Stmt) v[2], (Expr) v[4], (Expr) v[6], (Block) v[8]));
+        on(57, v -> null);
+        on(59, v -> null);
+        on(61, v -> null);
+        on(62, v -> new Block(token(v[0]), list(v[1])));
+        on(63, v -> new Block(((Stmt) v[0]).getToken(), List.of((Stmt) v[0])));
+
+        // Expresiones binarias: el operador está siempre en el centro
+        for (int id : new int[]{64, 66, 68, 69, 71, 72, 73, 74, 76, 77, 79, 80, 81}) {
+            on(id, v -> new BinaryExpr(token(v[1]), (Expr) v[0], (Expr) v[2]));
+        }
+
+        // Unarios, postfijos y factores
+        on(83, v -> new UnaryExpr(token(v[0]), (Expr) v[1], false));
+        on(84, v -> new UnaryExpr(token(v[0]), (Expr) v[1], false));
+        on(86, v -> new UnaryExpr(token(v[1]), (Expr) v[0], true));
+        on(87, v -> new UnaryExpr(token(v[1]), (Expr) v[0], true));
+        on(89, v -> new UnaryExpr(token(v[0]), (Expr) v[1], false));
+        for (int id : new int[]{90, 91, 94, 95, 96, 97, 106, 107, 108, 109, 110, 111}) {
+            on(id, v -> new Literal(token(v[0])));
+        }
+        on(92, v -> new Identifier(token(v[0])));
+        on(93, v -> v[1]);
+        on(98, v -> new Call(token(v[0]), list(v[2])));
+        on(100, v -> new ArrayList<Expr>());
+        on(101, v -> newList(v[0]));
+        on(102, v -> append(v[0], v[2]));
+
+        // Cabecera del for
+        on(103, v -> new VarDecl(token(v[1]), token(v[0]), (Expr) v[3]));
+        on(104, v -> new VarDecl(token(v[1]), token(v[0]), null));
+        on(105, v -> new ExprStmt(((Expr) v[0]).getToken(), (Expr) v[0]));
+    }
+
+    /**
+     * Analiza los tokens y construye el AST sin generar el árbol concreto.
+     */
+    public static Program build(SLR1Parser parser, List<Token> tokens) throws ParserException {
+        return (Program) parser.parse(tokens, new AstBuilder());
+    }
+
+    private void on(int productionId, ReductionAction action) {
+        actions[productionId] = action;
+    }
+
+    @Override
+    public Object shift(Token token) {
+        return token;
+    }
+
+    @Override
+    public Object reduce(Grammar.Production production, Object[] values) {
+        ReductionAction action = actions[production.getId()];
+        if (action != null) {
+            return action.apply(values);
+        }
+        if (values.length == 1) {
+            // Producción unitaria o de un solo token: el valor pasa sin cambios
+            return values[0];
+        }
+        throw new IllegalStateException("Producción sin acción semántica: " + production);
+    }
+
+    private static Token token(Object value) {
+        return (Token) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> list(Object value) {
+        return (List<T>) value;
+    }
+
+    private static <T> List<T> newList(Object first) {
+        List<T> list = new ArrayList<>();
+        return append(list, first);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> append(Object list, Object element) {
+        List<T> elements = (List<T>) list;
+        elements.add((T) element);
+        return elements;
+    }
+}
@@ -0,0 +1,48 @@
+package ast;
+
+/**
+ * Visitante del AST: una operación por cada clase de nodo.
+ *
+ * @param <R> Tipo del resultado de la visita
+ */
+public interface AstVisitor<R> {
+    R visitProgram(Program node);
+
+    R visitBlock(Block node);
+
+    R visitVarDecl(VarDecl node);
+
+    R visitFunctionDecl(FunctionDecl node);
+
+    R visitParam(Param node);
+
+    R visitExprStmt(ExprStmt node);
+
+    R visitAssign(Assign node);
+
+    R visitIf(If node);
+
+    R visitWhile(While node);
+
+    R visitDoWhile(DoWhile node);
+
+    R visitFor(For node);
+
+    R visitReturn(Return node);
+
+    R visitBreak(Break node);
+
+    R visitSwitch(Switch node);
+
+    R visitCase(Case node);
+
+    R visitBinaryExpr(BinaryExpr node);
+
+    R visitUnaryExpr(UnaryExpr node);
+
+    R visitLiteral(Literal node);
+
+    R visitIdentifier(Identifier node);
+
+    R visitCall(Call node);
+}
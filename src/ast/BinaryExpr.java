@@ -0,0 +1,40 @@
+package ast;
+
+import lexer.Token;
+import lexer.TokenType;
+
+/**
+ * Expresión binaria (aritmética, relacional o lógica).
+ */
+public class BinaryExpr extends Expr {
+    private final Expr left;
+    private final Expr right;
+
+    /**
+     * @param token Operador
+     * @param left Operando izquierdo
+     * @param right Operando derecho
+     */
+    public BinaryExpr(Token token, Expr left, Expr right) {
+        super(token);
+        this.left = left;
+        this.right = right;
+    }
+
+    public Expr getLeft() {
+        return left;
+    }
+
+    public Expr getRight() {
+        return right;
+    }
+
+    public TokenType getOperator() {
+        return getToken().getType();
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitBinaryExpr(this);
+    }
+}
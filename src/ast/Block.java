@@ -0,0 +1,29 @@
+package ast;
+
+import lexer.Token;
+import java.util.List;
+
+/**
+ * Bloque de sentencias con su propio ámbito.
+ */
+public class Block extends Stmt {
+    private final List<Stmt> statements;
+
+    /**
+     * @param token Llave de apertura o primera sentencia
+     * @param statements Sentencias del bloque
+     */
+    public Block(Token token, List<Stmt> statements) {
+        super(token);
+        this.statements = List.copyOf(statements);
+    }
+
+    public List<Stmt> getStatements() {
+        return statements;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitBlock(this);
+    }
+}
@@ -0,0 +1,21 @@
+package ast;
+
+import lexer.Token;
+
+/**
+ * Sentencia break.
+ */
+public class Break extends Stmt {
+
+    /**
+     * @param token Palabra reservada break
+     */
+    public Break(Token token) {
+        super(token);
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitBreak(this);
+    }
+}
@@ -0,0 +1,36 @@
+package ast;
+
+import lexer.Token;
+import java.util.List;
+
+/**
+ * Llamada a función.
+ */
+public class Call extends Expr {
+    private final List<Expr> arguments;
+
+    /**
+     * @param token Nombre de la función
+     * @param arguments Argumentos
+     */
+    public Call(Token token, List<Expr> arguments) {
+        super(token);
+        this.arguments = List.copyOf(arguments);
+    }
+
+    public List<Expr> getArguments() {
+        return arguments;
+    }
+
+    /**
+     * Obtiene el nombre de la función.
+     */
+    public String getName() {
+        return getToken().getLexeme();
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitCall(this);
+    }
+}
@@ -0,0 +1,36 @@
+package ast;
+
+import lexer.Token;
+import java.util.List;
+
+/**
+ * Caso de un switch; el caso default no tiene valor.
+ */
+public class Case extends Node {
+    private final Literal value;
+    private final List<Stmt> body;
+
+    /**
+     * @param token Palabra reservada case o default
+     * @param value Valor del caso (null en default)
+     * @param body Sentencias del caso, incluido el break final
+     */
+    public Case(Token token, Literal value, List<Stmt> body) {
+        super(token);
+        this.value = value;
+        this.body = List.copyOf(body);
+    }
+
+    public Literal getValue() {
+        return value;
+    }
+
+    public List<Stmt> getBody() {
+        return body;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitCase(this);
+    }
+}
@@ -0,0 +1,35 @@
+package ast;
+
+import lexer.Token;
+
+/**
+ * Bucle do-while.
+ */
+public class DoWhile extends Stmt {
+    private final Block body;
+    private final Expr condition;
+
+    /**
+     * @param token Palabra reservada do
+     * @param body Cuerpo
+     * @param condition Condición
+     */
+    public DoWhile(Token token, Block body, Expr condition) {
+        super(token);
+        this.body = body;
+        this.condition = condition;
+    }
+
+    public Block getBody() {
+        return body;
+    }
+
+    public Expr getCondition() {
+        return condition;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitDoWhile(this);
+    }
+}
@@ -0,0 +1,13 @@
+package ast;
+
+import lexer.Token;
+
+/**
+ * Expresión del AST.
+ */
+public abstract class Expr extends Node {
+
+    protected Expr(Token token) {
+        super(token);
+    }
+}
@@ -0,0 +1,28 @@
+package ast;
+
+import lexer.Token;
+
+/**
+ * Expresión usada como sentencia.
+ */
+public class ExprStmt extends Stmt {
+    private final Expr expression;
+
+    /**
+     * @param token Primer token de la construcción
+     * @param expression Expresión evaluada
+     */
+    public ExprStmt(Token token, Expr expression) {
+        super(token);
+        this.expression = expression;
+    }
+
+    public Expr getExpression() {
+        return expression;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitExprStmt(this);
+    }
+}
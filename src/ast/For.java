@@ -0,0 +1,49 @@
+package ast;
+
+import lexer.Token;
+
+/**
+ * Bucle for; las tres partes de la cabecera son opcionales.
+ */
+public class For extends Stmt {
+    private final Stmt initializer;
+    private final Expr condition;
+    private final Expr update;
+    private final Block body;
+
+    /**
+     * @param token Palabra reservada for
+     * @param initializer Declaración o expresión inicial (null si no hay)
+     * @param condition Condición (null si no hay)
+     * @param update Actualización (null si no hay)
+     * @param body Cuerpo
+     */
+    public For(Token token, Stmt initializer, Expr condition, Expr update, Block body) {
+        super(token);
+        this.initializer = initializer;
+        this.condition = condition;
+        this.update = update;
+        this.body = body;
+    }
+
+    public Stmt getInitializer() {
+        return initializer;
+    }
+
+    public Expr getCondition() {
+        return condition;
+    }
+
+    public Expr getUpdate() {
+        return update;
+    }
+
+    public Block getBody() {
+        return body;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitFor(this);
+    }
+}
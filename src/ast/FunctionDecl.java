@@ -0,0 +1,55 @@
+package ast;
+
+import lexer.Token;
+import lexer.TokenType;
+import java.util.List;
+
+/**
+ * Declaración de función.
+ */
+public class FunctionDecl extends Stmt {
+    private final Token returnTypeToken;
+    private final List<Param> params;
+    private final Block body;
+
+    /**
+     * @param token Nombre de la función
+     * @param returnTypeToken Palabra reservada del tipo de retorno
+     * @param params Parámetros
+     * @param body Cuerpo
+     */
+    public FunctionDecl(Token token, Token returnTypeToken, List<Param> params, Block body) {
+        super(token);
+        this.returnTypeToken = returnTypeToken;
+        this.params = List.copyOf(params);
+        this.body = body;
+    }
+
+    public Token getReturnTypeToken() {
+        return returnTypeToken;
+    }
+
+    public List<Param> getParams() {
+        return params;
+    }
+
+    public Block getBody() {
+        return body;
+    }
+
+    /**
+     * Obtiene el nombre de la función.
+     */
+    public String getName() {
+        return getToken().getLexeme();
+    }
+
+    public TokenType getReturnType() {
+        return returnTypeToken.getType();
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitFunctionDecl(this);
+    }
+}
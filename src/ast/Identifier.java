@@ -0,0 +1,28 @@
+package ast;
+
+import lexer.Token;
+
+/**
+ * Uso de una variable.
+ */
+public class Identifier extends Expr {
+
+    /**
+     * @param token Nombre de la variable
+     */
+    public Identifier(Token token) {
+        super(token);
+    }
+
+    /**
+     * Obtiene el nombre de la variable.
+     */
+    public String getName() {
+        return getToken().getLexeme();
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitIdentifier(this);
+    }
+}
@@ -0,0 +1,42 @@
+package ast;
+
+import lexer.Token;
+
+/**
+ * Sentencia if con rama else opcional.
+ */
+public class If extends Stmt {
+    private final Expr condition;
+    private final Block thenBranch;
+    private final Block elseBranch;
+
+    /**
+     * @param token Palabra reservada if
+     * @param condition Condición
+     * @param thenBranch Rama verdadera
+     * @param elseBranch Rama falsa (null si no hay)
+     */
+    public If(Token token, Expr condition, Block thenBranch, Block elseBranch) {
+        super(token);
+        this.condition = condition;
+        this.thenBranch = thenBranch;
+        this.elseBranch = elseBranch;
+    }
+
+    public Expr getCondition() {
+        return condition;
+    }
+
+    public Block getThenBranch() {
+        return thenBranch;
+    }
+
+    public Block getElseBranch() {
+        return elseBranch;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitIf(this);
+    }
+}
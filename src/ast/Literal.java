@@ -0,0 +1,35 @@
+package ast;
+
+import lexer.Token;
+import lexer.TokenType;
+
+/**
+ * Literal numérico, de cadena, de carácter o booleano.
+ */
+public class Literal extends Expr {
+
+    /**
+     * @param token Token del literal
+     */
+    public Literal(Token token) {
+        super(token);
+    }
+
+    /**
+     * Obtiene el tipo del valor del literal (INT, FLOAT, BOOLEAN, STRING o CHAR).
+     */
+    public TokenType getValueType() {
+        return switch (getToken().getType()) {
+            case INTEGER -> TokenType.INT;
+            case FLOAT_NUMBER -> TokenType.FLOAT;
+            case TRUE, FALSE -> TokenType.BOOLEAN;
+            case STRING_LITERAL, STRING -> TokenType.STRING;
+            default -> TokenType.CHAR;
+        };
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitLiteral(this);
+    }
+}
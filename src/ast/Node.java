@@ -0,0 +1,28 @@
+package ast;
+
+import lexer.Token;
+
+/**
+ * Nodo del árbol de sintaxis abstracta (AST). A diferencia del árbol
+ * sintáctico concreto no guarda separadores ni cadenas de producciones
+ * unitarias: solo la estructura que necesitan las fases posteriores.
+ */
+public abstract class Node {
+    private final Token token;
+
+    /**
+     * @param token Token que ubica al nodo en el código fuente (puede ser null)
+     */
+    protected Node(Token token) {
+        this.token = token;
+    }
+
+    /**
+     * Obtiene el token que ubica al nodo en el código fuente.
+     */
+    public Token getToken() {
+        return token;
+    }
+
+    public abstract <R> R accept(AstVisitor<R> visitor);
+}
@@ -0,0 +1,40 @@
+package ast;
+
+import lexer.Token;
+import lexer.TokenType;
+
+/**
+ * Parámetro de una función.
+ */
+public class Param extends Node {
+    private final Token typeToken;
+
+    /**
+     * @param token Nombre del parámetro
+     * @param typeToken Palabra reservada del tipo
+     */
+    public Param(Token token, Token typeToken) {
+        super(token);
+        this.typeToken = typeToken;
+    }
+
+    public Token getTypeToken() {
+        return typeToken;
+    }
+
+    /**
+     * Obtiene el nombre del parámetro.
+     */
+    public String getName() {
+        return getToken().getLexeme();
+    }
+
+    public TokenType getType() {
+        return typeToken.getType();
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitParam(this);
+    }
+}
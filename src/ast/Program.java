@@ -0,0 +1,29 @@
+package ast;
+
+import lexer.Token;
+import java.util.List;
+
+/**
+ * Programa completo: la lista de sentencias de nivel superior.
+ */
+public class Program extends Node {
+    private final List<Stmt> statements;
+
+    /**
+     * @param token Primer token de la construcción
+     * @param statements Sentencias del programa
+     */
+    public Program(Token token, List<Stmt> statements) {
+        super(token);
+        this.statements = List.copyOf(statements);
+    }
+
+    public List<Stmt> getStatements() {
+        return statements;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitProgram(this);
+    }
+}
@@ -0,0 +1,28 @@
+package ast;
+
+import lexer.Token;
+
+/**
+ * Sentencia return.
+ */
+public class Return extends Stmt {
+    private final Expr value;
+
+    /**
+     * @param token Palabra reservada return
+     * @param value Valor retornado
+     */
+    public Return(Token token, Expr value) {
+        super(token);
+        this.value = value;
+    }
+
+    public Expr getValue() {
+        return value;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitReturn(this);
+    }
+}
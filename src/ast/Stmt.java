@@ -0,0 +1,13 @@
+package ast;
+
+import lexer.Token;
+
+/**
+ * Sentencia del AST.
+ */
+public abstract class Stmt extends Node {
+
+    protected Stmt(Token token) {
+        super(token);
+    }
+}
@@ -0,0 +1,36 @@
+package ast;
+
+import lexer.Token;
+import java.util.List;
+
+/**
+ * Sentencia switch.
+ */
+public class Switch extends Stmt {
+    private final Expr selector;
+    private final List<Case> cases;
+
+    /**
+     * @param token Palabra reservada switch
+     * @param selector Expresión evaluada
+     * @param cases Casos, incluido el default
+     */
+    public Switch(Token token, Expr selector, List<Case> cases) {
+        super(token);
+        this.selector = selector;
+        this.cases = List.copyOf(cases);
+    }
+
+    public Expr getSelector() {
+        return selector;
+    }
+
+    public List<Case> getCases() {
+        return cases;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitSwitch(this);
+    }
+}
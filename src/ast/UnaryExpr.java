@@ -0,0 +1,40 @@
+package ast;
+
+import lexer.Token;
+import lexer.TokenType;
+
+/**
+ * Expresión unaria: !, ++ y -- prefijos o postfijos.
+ */
+public class UnaryExpr extends Expr {
+    private final Expr operand;
+    private final boolean postfix;
+
+    /**
+     * @param token Operador
+     * @param operand Operando
+     * @param postfix Si el operador va después del operando
+     */
+    public UnaryExpr(Token token, Expr operand, boolean postfix) {
+        super(token);
+        this.operand = operand;
+        this.postfix = postfix;
+    }
+
+    public Expr getOperand() {
+        return operand;
+    }
+
+    public boolean isPostfix() {
+        return postfix;
+    }
+
+    public TokenType getOperator() {
+        return getToken().getType();
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitUnaryExpr(this);
+    }
+}
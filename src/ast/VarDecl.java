@@ -0,0 +1,47 @@
+package ast;
+
+import lexer.Token;
+import lexer.TokenType;
+
+/**
+ * Declaración de variable, con inicialización opcional.
+ */
+public class VarDecl extends Stmt {
+    private final Token typeToken;
+    private final Expr initializer;
+
+    /**
+     * @param token Identificador declarado
+     * @param typeToken Palabra reservada del tipo
+     * @param initializer Expresión inicial (null si no hay)
+     */
+    public VarDecl(Token token, Token typeToken, Expr initializer) {
+        super(token);
+        this.typeToken = typeToken;
+        this.initializer = initializer;
+    }
+
+    public Token getTypeToken() {
+        return typeToken;
+    }
+
+    public Expr getInitializer() {
+        return initializer;
+    }
+
+    /**
+     * Obtiene el nombre de la variable.
+     */
+    public String getName() {
+        return getToken().getLexeme();
+    }
+
+    public TokenType getType() {
+        return typeToken.getType();
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitVarDecl(this);
+    }
+}
@@ -0,0 +1,35 @@
+package ast;
+
+import lexer.Token;
+
+/**
+ * Bucle while.
+ */
+public class While extends Stmt {
+    private final Expr condition;
+    private final Block body;
+
+    /**
+     * @param token Palabra reservada while
+     * @param condition Condición
+     * @param body Cuerpo
+     */
+    public While(Token token, Expr condition, Block body) {
+        super(token);
+        this.condition = condition;
+        this.body = body;
+    }
+
+    public Expr getCondition() {
+        return condition;
+    }
+
+    public Block getBody() {
+        return body;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitWhile(this);
+    }
+}
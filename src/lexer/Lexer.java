@@ -83,6 +83,13 @@ public class Lexer {
         return tokens;
     }
     
+    /**
+     * Indica si queda código fuente por analizar.
+     */
+    public boolean hasMoreInput() {
+        return !isAtEnd();
+    }
+    
     /**
      * Obtiene el siguiente token del código fuente.
      * 
@@ -126,6 +133,7 @@ public class Lexer {
                 if (match('=')) {
                     return new Token(TokenType.MULTIPLY_ASSIGN, "*=", tokenLine, tokenColumn);
                 }
+                return new Token(TokenType.MULTIPLY, "*", tokenLine, tokenColumn);
             case '/':
                 // Primero verificar si es un comentario
                 if (peek() == '/' || peek() == '*') {
@@ -271,7 +279,7 @@ public class Lexer {
             throw new LexerException("Carácter no terminado", tokenLine, tokenColumn);
         }
 
-        return new Token(TokenType.CHAR, String.valueOf(c), tokenLine, tokenColumn);
+        return new Token(TokenType.CHAR_LITERAL, String.valueOf(c), tokenLine, tokenColumn);
     }
     
     /**
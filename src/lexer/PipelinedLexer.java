@@ -0,0 +1,136 @@
+package lexer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Ejecuta el analizador léxico en un hilo propio y entrega los tokens por
+ * lotes a través de una cola acotada, de modo que el análisis sintáctico
+ * puede empezar antes de que termine el léxico. Si el consumidor se atrasa,
+ * el hilo del lexer se bloquea al llenarse la cola, así que la memoria usada
+ * por los tokens pendientes está limitada a capacity * batchSize tokens.
+ */
+public class PipelinedLexer implements AutoCloseable {
+    public static final int DEFAULT_BATCH_SIZE = 512;
+    public static final int DEFAULT_CAPACITY = 16;
+
+    // Marca de fin de la entrada (se compara por identidad)
+    private static final List<Token> END_OF_INPUT = new ArrayList<>();
+
+    private final Lexer lexer;
+    private final int batchSize;
+    private final BlockingQueue<List<Token>> batches;
+    private final Thread worker;
+    private volatile LexerException error;
+    private boolean finished;
+
+    public PipelinedLexer(String source) {
+        this(source, DEFAULT_BATCH_SIZE, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param source Código fuente a analizar
+     * @param batchSize Tokens por lote
+     * @param capacity Lotes que pueden esperar en la cola
+     */
+    public PipelinedLexer(String source, int batchSize, int capacity) {
+        if (batchSize <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote y la capacidad deben ser positivos");
+        }
+        this.lexer = new Lexer(source);
+        this.batchSize = batchSize;
+        this.batches = new ArrayBlockingQueue<>(capacity);
+        this.worker = new Thread(this::produce, "lexer-pipeline");
+        this.worker.setDaemon(true);
+    }
+
+    /**
+     * Inicia el hilo del lexer. Se llama una sola vez.
+     */
+    public PipelinedLexer start() {
+        worker.start();
+        return this;
+    }
+
+    /**
+     * Bucle del hilo productor: analiza el código y publica los lotes.
+     */
+    private void produce() {
+        List<Token> batch = new ArrayList<>(batchSize);
+        try {
+            Token token;
+            while ((token = nextNonNullToken()) != null) {
+                batch.add(token);
+                if (batch.size() == batchSize) {
+                    batches.put(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                batches.put(batch);
+            }
+        } catch (LexerException e) {
+            // Los tokens ya publicados siguen siendo válidos; el error se informa al llegar al final
+            error = e;
+        } catch (InterruptedException e) {
+            // close(): el consumidor ya no espera más tokens
+            return;
+        }
+
+        try {
+            batches.put(END_OF_INPUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Obtiene el siguiente token, saltando los espacios en blanco.
+     *
+     * @return El siguiente token o null al final del código
+     */
+    private Token nextNonNullToken() throws LexerException, InterruptedException {
+        while (lexer.hasMoreInput()) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            Token token = lexer.nextToken();
+            if (token != null) {
+                return token;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Obtiene el siguiente lote de tokens, esperando a que el lexer lo produzca.
+     *
+     * @return Lote de tokens, o null cuando ya no quedan
+     * @throws LexerException Si el lexer encontró un error tras los tokens ya entregados
+     * @throws InterruptedException Si el hilo consumidor es interrumpido mientras espera
+     */
+    public List<Token> nextBatch() throws LexerException, InterruptedException {
+        if (finished) {
+            return null;
+        }
+        List<Token> batch = batches.take();
+        if (batch == END_OF_INPUT) {
+            finished = true;
+            if (error != null) {
+                throw error;
+            }
+            return null;
+        }
+        return batch;
+    }
+
+    /**
+     * Detiene el hilo del lexer si sigue produciendo tokens.
+     */
+    @Override
+    public void close() {
+        worker.interrupt();
+    }
+}
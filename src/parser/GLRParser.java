@@ -0,0 +1,574 @@
+package parser;
+
+import lexer.Token;
+import lexer.TokenType;
+import java.util.*;
+
+/**
+ * Parser GLR que usa las mismas tablas ACTION y GOTO que el parser SLR(1),
+ * pero conserva las acciones de las celdas con conflicto y las explora todas
+ * a la vez sobre una pila con estructura de grafo (GSS). Los árboles
+ * posibles se comparten en un bosque empaquetado (SPPF): cada nodo del
+ * bosque es un símbolo sobre un tramo de la entrada y guarda una
+ * alternativa por cada forma distinta de derivarlo.
+ *
+ * Mientras la pila es una sola y la celda no tiene conflicto, el análisis
+ * avanza como un LR determinista, sin listas de trabajo; solo se bifurca en
+ * los conflictos reales y vuelve al modo rápido cuando las ramas se unen.
+ */
+public class GLRParser {
+
+    /**
+     * Nodo del bosque: un símbolo que cubre los tokens [start, end).
+     */
+    public static class ForestNode {
+        private final String symbol;
+        private final int start;
+        private final int end;
+        private final Token token; // Para nodos terminales
+        private final List<PackedNode> alternatives;
+
+        // Constructor para nodos terminales
+        ForestNode(Token token, String symbol, int start) {
+            this.symbol = symbol;
+            this.start = start;
+            this.end = start + 1;
+            this.token = token;
+            this.alternatives = List.of();
+        }
+
+        // Constructor para nodos no terminales
+        ForestNode(String symbol, int start, int end) {
+            this.symbol = symbol;
+            this.start = start;
+            this.end = end;
+            this.token = null;
+            this.alternatives = new ArrayList<>(1);
+        }
+
+        public String getSymbol() { return symbol; }
+        public int getStart() { return start; }
+        public int getEnd() { return end; }
+        public Token getToken() { return token; }
+        public boolean isTerminal() { return token != null; }
+
+        /**
+         * Indica si el símbolo tiene más de una derivación sobre su tramo.
+         */
+        public boolean isAmbiguous() { return alternatives.size() > 1; }
+
+        public List<PackedNode> getAlternatives() {
+            return Collections.unmodifiableList(alternatives);
+        }
+
+        /**
+         * Añade una derivación si no estaba ya registrada.
+         */
+        private void addAlternative(Grammar.Production production, ForestNode[] children) {
+            for (PackedNode alternative : alternatives) {
+                if (alternative.production == production && Arrays.equals(alternative.children, children)) {
+                    return;
+                }
+            }
+            alternatives.add(new PackedNode(production, children));
+        }
+
+        @Override
+        public String toString() {
+            return (token != null ? symbol + "(" + token.getLexeme() + ")" : symbol) + "[" + start + ", " + end + ")";
+        }
+    }
+
+    /**
+     * Una derivación de un nodo del bosque: la producción usada y sus hijos.
+     */
+    public static class PackedNode {
+        private final Grammar.Production production;
+        private final ForestNode[] children;
+
+        PackedNode(Grammar.Production production, ForestNode[] children) {
+            this.production = production;
+            this.children = children;
+        }
+
+        public Grammar.Production getProduction() { return production; }
+        public int getChildCount() { return children.length; }
+        public ForestNode getChild(int index) { return children[index]; }
+    }
+
+    /**
+     * Nodo de la pila con estructura de grafo: un estado alcanzado en una
+     * posición de la entrada, con aristas hacia los nodos anteriores.
+     */
+    private static class StackNode {
+        private static final StackEdge[] NO_EDGES = new StackEdge[0];
+
+        final int state;
+        final int level;
+        StackEdge[] edges = NO_EDGES;
+        int edgeCount;
+        // Aristas únicas consecutivas por debajo del nodo: las reducciones de
+        // hasta esa longitud tienen un solo camino
+        int deterministicDepth;
+        boolean processed;
+
+        StackNode(int state, int level) {
+            this.state = state;
+            this.level = level;
+        }
+
+        StackEdge findEdge(StackNode target) {
+            for (int i = 0; i < edgeCount; i++) {
+                if (edges[i].target == target) {
+                    return edges[i];
+                }
+            }
+            return null;
+        }
+
+        StackEdge addEdge(StackNode target, ForestNode label) {
+            if (edgeCount == edges.length) {
+                edges = Arrays.copyOf(edges, Math.max(2, edgeCount * 2));
+            }
+            StackEdge edge = new StackEdge(target, label);
+            edges[edgeCount++] = edge;
+            deterministicDepth = edgeCount == 1 ? target.deterministicDepth + 1 : 0;
+            return edge;
+        }
+    }
+
+    private static class StackEdge {
+        final StackNode target;
+        final ForestNode label;
+
+        StackEdge(StackNode target, ForestNode label) {
+            this.target = target;
+            this.label = label;
+        }
+    }
+
+    /**
+     * Reducción pendiente. Si via no es null, solo se recorren los caminos
+     * que empiezan por esa arista (añadida después de procesar el nodo).
+     */
+    private static class Reduction {
+        final StackNode node;
+        final Grammar.Production production;
+        final StackEdge via;
+
+        Reduction(StackNode node, Grammar.Production production, StackEdge via) {
+            this.node = node;
+            this.production = production;
+            this.via = via;
+        }
+    }
+
+    private final SLR1Table table;
+
+    // Estado del análisis en curso
+    private Token[] input;
+    private int[] terminalIds;
+    private int level;
+    private StackNode accepted;
+    // Nodos de la posición actual, también indexados por estado
+    private final List<StackNode> levelNodes = new ArrayList<>();
+    private StackNode[] nodesByState;
+    private final Map<Long, ForestNode> levelSymbols = new HashMap<>();
+    private final ArrayDeque<StackNode> actorQueue = new ArrayDeque<>();
+    private final ArrayDeque<Reduction> reductions = new ArrayDeque<>();
+    private final List<StackNode> shiftSources = new ArrayList<>();
+    private final List<Integer> shiftStates = new ArrayList<>();
+    private ForestNode levelTerminal;
+
+    // Estadísticas del último análisis
+    private int forks;
+    private int maxStacks;
+
+    public GLRParser() {
+        this(new SLR1Table(new LR0Automaton(), new FirstFollowSets()));
+    }
+
+    public GLRParser(SLR1Table table) {
+        this.table = table;
+    }
+
+    /**
+     * Analiza una lista de tokens y construye el bosque de todas sus
+     * derivaciones.
+     *
+     * @return Nodo del bosque para program sobre toda la entrada
+     * @throws ParserException Si ninguna rama puede continuar
+     */
+    public ForestNode parse(List<Token> tokens) throws ParserException {
+        prepareInput(tokens);
+        forks = 0;
+        maxStacks = 1;
+        accepted = null;
+        nodesByState = new StackNode[table.getStateCount()];
+
+        // Pila única del modo determinista; frontier solo se usa con varias pilas
+        StackNode current = new StackNode(0, 0);
+        List<StackNode> frontier = null;
+        try {
+            nextLevel:
+            for (level = 0; level < input.length; level++) {
+                levelTerminal = null;
+                levelSymbols.clear();
+                int terminalId = terminalIds[level];
+
+                // Modo determinista: una sola pila y celdas sin conflicto
+                while (frontier == null) {
+                    if (table.getConflictActionCodes(current.state, terminalId) != null) {
+                        frontier = List.of(current);
+                        break;
+                    }
+                    int code = table.getActionCode(current.state, terminalId);
+                    switch (SLR1Table.actionType(code)) {
+                        case SLR1Table.ACTION_SHIFT:
+                            StackNode next = new StackNode(SLR1Table.actionValue(code), level + 1);
+                            next.addEdge(current, terminal());
+                            current = next;
+                            continue nextLevel;
+                        case SLR1Table.ACTION_ACCEPT:
+                            return current.edges[0].label;
+                        case SLR1Table.ACTION_REDUCE:
+                            Grammar.Production production = Grammar.getProduction(SLR1Table.actionValue(code));
+                            if (production.getLength() > current.deterministicDepth) {
+                                // El camino se bifurca por debajo: la reducción necesita el GSS
+                                frontier = List.of(current);
+                            } else {
+                                current = reduceDeterministic(current, production);
+                            }
+                            break;
+                        default:
+                            throw createSyntaxError(List.of(current));
+                    }
+                }
+
+                // Modo GLR: todas las pilas de la posición a la vez
+                List<StackNode> next = processLevel(frontier);
+                if (accepted != null) {
+                    return accepted.edges[0].label;
+                }
+                if (next.size() == 1) {
+                    current = next.get(0);
+                    frontier = null;
+                } else {
+                    frontier = next;
+                }
+            }
+            throw createSyntaxError(List.of());
+        } finally {
+            releaseLevel();
+            actorQueue.clear();
+            reductions.clear();
+            shiftSources.clear();
+            shiftStates.clear();
+            levelSymbols.clear();
+            input = null;
+            terminalIds = null;
+        }
+    }
+
+    /**
+     * Procesa todas las acciones de la posición actual sobre los nodos dados
+     * y aplica los desplazamientos.
+     *
+     * @return Nodos de la siguiente posición
+     */
+    private List<StackNode> processLevel(List<StackNode> frontier) throws ParserException {
+        releaseLevel();
+        for (StackNode node : frontier) {
+            register(node);
+            actorQueue.add(node);
+        }
+        int terminalId = terminalIds[level];
+
+        while (!actorQueue.isEmpty() || !reductions.isEmpty()) {
+            if (!reductions.isEmpty()) {
+                reduce(reductions.poll(), terminalId);
+            } else {
+                actor(actorQueue.poll(), terminalId);
+            }
+        }
+        maxStacks = Math.max(maxStacks, levelNodes.size());
+        // Las aristas añadidas a nodos ya enlazados invalidan la profundidad calculada al crearlos
+        for (StackNode node : levelNodes) {
+            node.deterministicDepth = node.edgeCount == 1 ? node.edges[0].target.deterministicDepth + 1 : 0;
+        }
+        if (accepted != null) {
+            return List.of();
+        }
+        if (shiftSources.isEmpty()) {
+            throw createSyntaxError(new ArrayList<>(levelNodes));
+        }
+
+        // Desplazar: un nodo por estado en la siguiente posición
+        List<StackNode> next = new ArrayList<>();
+        Map<Integer, StackNode> nextByState = new HashMap<>();
+        ForestNode terminal = terminal();
+        for (int i = 0; i < shiftSources.size(); i++) {
+            StackNode source = shiftSources.get(i);
+            StackNode target = nextByState.get(shiftStates.get(i));
+            if (target == null) {
+                target = new StackNode(shiftStates.get(i), level + 1);
+                nextByState.put(target.state, target);
+                next.add(target);
+            }
+            if (target.findEdge(source) == null) {
+                target.addEdge(source, terminal);
+            }
+        }
+        shiftSources.clear();
+        shiftStates.clear();
+        return next;
+    }
+
+    /**
+     * Registra las acciones de un nodo con el token actual.
+     */
+    private void actor(StackNode node, int terminalId) {
+        node.processed = true;
+        int[] codes = table.getConflictActionCodes(node.state, terminalId);
+        if (codes == null) {
+            codes = new int[]{table.getActionCode(node.state, terminalId)};
+        } else {
+            forks++;
+        }
+        for (int code : codes) {
+            switch (SLR1Table.actionType(code)) {
+                case SLR1Table.ACTION_SHIFT:
+                    shiftSources.add(node);
+                    shiftStates.add(SLR1Table.actionValue(code));
+                    break;
+                case SLR1Table.ACTION_REDUCE:
+                    reductions.add(new Reduction(node, Grammar.getProduction(SLR1Table.actionValue(code)), null));
+                    break;
+                case SLR1Table.ACTION_ACCEPT:
+                    accepted = node;
+                    break;
+                default:
+                    // Esta rama muere
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Aplica una reducción por todos sus caminos en el GSS.
+     */
+    private void reduce(Reduction reduction, int terminalId) {
+        Grammar.Production production = reduction.production;
+        int length = production.getLength();
+        ForestNode[] children = new ForestNode[length];
+        if (length == 0) {
+            reducePath(reduction.node, production, children, terminalId);
+        } else if (reduction.via != null) {
+            children[length - 1] = reduction.via.label;
+            reducePaths(reduction.via.target, production, children, length - 1, terminalId);
+        } else {
+            reducePaths(reduction.node, production, children, length, terminalId);
+        }
+    }
+
+    /**
+     * Recorre los caminos que faltan por debajo de un nodo.
+     *
+     * @param remaining Aristas que quedan por recorrer; los hijos se rellenan de derecha a izquierda
+     */
+    private void reducePaths(StackNode node, Grammar.Production production, ForestNode[] children,
+                             int remaining, int terminalId) {
+        if (remaining == 0) {
+            reducePath(node, production, children.clone(), terminalId);
+            return;
+        }
+        for (int i = 0; i < node.edgeCount; i++) {
+            StackEdge edge = node.edges[i];
+            children[remaining - 1] = edge.label;
+            reducePaths(edge.target, production, children, remaining - 1, terminalId);
+        }
+    }
+
+    /**
+     * Completa la reducción por un camino que termina en el nodo dado.
+     */
+    private void reducePath(StackNode origin, Grammar.Production production, ForestNode[] children, int terminalId) {
+        int gotoState = table.getGotoState(origin.state, production.getLeftId());
+        if (gotoState < 0) {
+            return;
+        }
+        ForestNode symbol = symbol(production.getLeft(), production.getLeftId(), origin.level);
+        symbol.addAlternative(production, children);
+
+        StackNode target = nodesByState[gotoState];
+        if (target == null) {
+            target = new StackNode(gotoState, level);
+            target.addEdge(origin, symbol);
+            register(target);
+            actorQueue.add(target);
+            return;
+        }
+        if (target.findEdge(origin) != null) {
+            // Misma arista: la derivación nueva ya quedó empaquetada en su nodo
+            return;
+        }
+        StackEdge edge = target.addEdge(origin, symbol);
+        if (target.processed) {
+            // Repetir las reducciones del nodo por la arista nueva
+            int[] codes = table.getConflictActionCodes(target.state, terminalId);
+            if (codes == null) {
+                codes = new int[]{table.getActionCode(target.state, terminalId)};
+            }
+            for (int code : codes) {
+                if (SLR1Table.actionType(code) == SLR1Table.ACTION_REDUCE) {
+                    Grammar.Production other = Grammar.getProduction(SLR1Table.actionValue(code));
+                    if (other.getLength() > 0) {
+                        reductions.add(new Reduction(target, other, edge));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reduce sobre la única pila sin listas de trabajo.
+     */
+    private StackNode reduceDeterministic(StackNode node, Grammar.Production production) throws ParserException {
+        int length = production.getLength();
+        ForestNode[] children = new ForestNode[length];
+        StackNode origin = node;
+        for (int i = length - 1; i >= 0; i--) {
+            children[i] = origin.edges[0].label;
+            origin = origin.edges[0].target;
+        }
+        int gotoState = table.getGotoState(origin.state, production.getLeftId());
+        if (gotoState < 0) {
+            throw createSyntaxError(List.of(node));
+        }
+        ForestNode symbol = new ForestNode(production.getLeft(), origin.level, level);
+        symbol.alternatives.add(new PackedNode(production, children));
+        StackNode target = new StackNode(gotoState, level);
+        target.addEdge(origin, symbol);
+        return target;
+    }
+
+    /**
+     * Obtiene (o crea) el nodo del bosque de un no terminal que termina en la posición actual.
+     */
+    private ForestNode symbol(String name, int nonTerminalId, int start) {
+        long key = (long) nonTerminalId << 32 | start;
+        ForestNode node = levelSymbols.get(key);
+        if (node == null) {
+            node = new ForestNode(name, start, level);
+            levelSymbols.put(key, node);
+        }
+        return node;
+    }
+
+    /**
+     * Obtiene el nodo del bosque del token actual (uno por posición).
+     */
+    private ForestNode terminal() {
+        if (levelTerminal == null) {
+            Token token = input[level];
+            levelTerminal = new ForestNode(token, token.getType().name(), level);
+        }
+        return levelTerminal;
+    }
+
+    private void register(StackNode node) {
+        nodesByState[node.state] = node;
+        levelNodes.add(node);
+    }
+
+    private void releaseLevel() {
+        for (StackNode node : levelNodes) {
+            nodesByState[node.state] = null;
+        }
+        levelNodes.clear();
+    }
+
+    private void prepareInput(List<Token> tokens) {
+        List<Token> withEof = new ArrayList<>(tokens);
+        if (withEof.isEmpty() || withEof.get(withEof.size() - 1).getType() != TokenType.EOF) {
+            Token last = withEof.isEmpty() ? null : withEof.get(withEof.size() - 1);
+            withEof.add(new Token(TokenType.EOF, "$", last == null ? 1 : last.getLine(),
+                    last == null ? 1 : last.getColumn() + 1));
+        }
+        input = withEof.toArray(new Token[0]);
+        terminalIds = new int[input.length];
+        for (int i = 0; i < input.length; i++) {
+            terminalIds[i] = Grammar.getTerminalId(input[i].getType());
+        }
+    }
+
+    /**
+     * Crea el error de la posición actual con los terminales que esperaba alguna de las pilas.
+     */
+    private ParserException createSyntaxError(List<StackNode> stacks) {
+        Token errorToken = input[Math.min(level, input.length - 1)];
+        BitSet expected = new BitSet();
+        int state = -1;
+        for (StackNode node : stacks) {
+            expected.or(table.getExpectedTerminals(node.state));
+            state = node.state;
+        }
+        StringBuilder expectedSymbols = new StringBuilder();
+        for (int id = expected.nextSetBit(0); id >= 0; id = expected.nextSetBit(id + 1)) {
+            if (expectedSymbols.length() > 0) {
+                expectedSymbols.append(", ");
+            }
+            expectedSymbols.append(Grammar.getTerminalName(id));
+        }
+        String message = String.format("Syntax error at line %d, column %d: unexpected token '%s'",
+                errorToken.getLine(), errorToken.getColumn(), errorToken.getLexeme());
+        return new ParserException(message, errorToken, expectedSymbols.toString(), state);
+    }
+
+    /**
+     * Obtiene cuántas veces se exploró más de una acción en el último análisis.
+     */
+    public int getForkCount() { return forks; }
+
+    /**
+     * Obtiene el mayor número de pilas activas a la vez en el último análisis.
+     */
+    public int getMaxStacks() { return maxStacks; }
+
+    /**
+     * Extrae un árbol sintáctico del bosque tomando la primera alternativa
+     * de cada nodo ambiguo. El recorrido es iterativo.
+     */
+    public static SLR1Parser.ParseTreeNode toParseTree(ForestNode root) {
+        Map<ForestNode, SLR1Parser.ParseTreeNode> built = new IdentityHashMap<>();
+        Deque<ForestNode> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            ForestNode node = pending.peek();
+            if (built.containsKey(node)) {
+                pending.pop();
+                continue;
+            }
+            if (node.isTerminal()) {
+                built.put(pending.pop(), new SLR1Parser.ParseTreeNode(node.token));
+                continue;
+            }
+            PackedNode alternative = node.alternatives.get(0);
+            boolean ready = true;
+            for (ForestNode child : alternative.children) {
+                if (!built.containsKey(child)) {
+                    pending.push(child);
+                    ready = false;
+                }
+            }
+            if (ready) {
+                SLR1Parser.ParseTreeNode[] children = new SLR1Parser.ParseTreeNode[alternative.children.length];
+                for (int i = 0; i < children.length; i++) {
+                    children[i] = built.get(alternative.children[i]);
+                }
+                built.put(pending.pop(), new SLR1Parser.ParseTreeNode(node.symbol, children));
+            }
+        }
+        return built.get(root);
+    }
+}
@@ -1,5 +1,6 @@
 package parser;
 
+import lexer.TokenType;
 import java.util.*;
 
 /**
@@ -16,11 +17,15 @@ public class Grammar {
         private final int id;
         private final String left;
         private final List<String> right;
+        // ID del no terminal izquierdo; se asigna al cargar la gramática
+        private int leftId = -1;
 
         public Production(int id, String left, String... right) {
             this.id = id;
             this.left = left;
-            this.right = Arrays.asList(right);
+            // A -> ε no consume ningún símbolo: su lado derecho es vacío
+            this.right = right.length == 1 && right[0].equals("ε")
+                    ? Collections.emptyList() : Arrays.asList(right);
         }
 
         public int getId() {
@@ -31,6 +36,13 @@ public class Grammar {
             return left;
         }
 
+        /**
+         * Obtiene el ID del no terminal izquierdo (ver {@link Grammar#getNonTerminalId}).
+         */
+        public int getLeftId() {
+            return leftId;
+        }
+
         public List<String> getRight() {
             return right;
         }
@@ -39,9 +51,16 @@ public class Grammar {
             return right.size();
         }
 
+        /**
+         * Indica si es una producción unitaria (A -> B, con B no terminal).
+         */
+        public boolean isUnit() {
+            return right.size() == 1 && isNonTerminal(right.get(0));
+        }
+
         @Override
         public String toString() {
-            return id + ". " + left + " -> " + String.join(" ", right);
+            return id + ". " + left + " -> " + (right.isEmpty() ? "ε" : String.join(" ", right));
         }
     }
 
@@ -256,8 +275,17 @@ public class Grammar {
             new Production(111, "literal", "FALSE")
     );
 
-    // Terminales reducidos
-    private static final Set<String> TERMINALS = Set.of(
+    // Índice directo por ID de producción
+    private static final Production[] PRODUCTIONS_BY_ID = new Production[PRODUCTIONS.size()];
+
+    static {
+        for (Production production : PRODUCTIONS) {
+            PRODUCTIONS_BY_ID[production.getId()] = production;
+        }
+    }
+
+    // Terminales reducidos; la posición de cada uno es su ID
+    private static final String[] TERMINAL_NAMES = {
             "AND", "ASSIGN", "BOOLEAN", "BYTE", "CHAR", "CHAR_LITERAL", "COMMA",
             "DIVIDE", "DOUBLE", "ELSE", "EQUAL_EQUAL", "FALSE", "FLOAT", "GREATER",
             "GREATER_EQUAL", "IDENTIFIER", "IF", "INT", "INTEGER", "LESS",
@@ -267,10 +295,19 @@ public class Grammar {
             "STRING_LITERAL", "TRUE", "VOID", "WHILE", "FOR", "FLOAT_NUMBER",
             "MODULO", "PLUS_ASSIGN", "MINUS_ASSIGN", "MULTIPLY_ASSIGN", "DIVIDE_ASSIGN",
             "MODULO_ASSIGN", "LEFT_BRACE", "LEFT_PAREN", "INCREMENT", "DECREMENT", "DO", "$", "ε"
-    );
+    };
+
+    private static final Set<String> TERMINALS = Set.of(TERMINAL_NAMES);
+    private static final Map<String, Integer> TERMINAL_IDS = new HashMap<>();
+
+    static {
+        for (int i = 0; i < TERMINAL_NAMES.length; i++) {
+            TERMINAL_IDS.put(TERMINAL_NAMES[i], i);
+        }
+    }
 
     // No terminales reducidos
-    private static final Set<String> NON_TERMINALS = Set.of(
+    private static final String[] NON_TERMINAL_NAMES = {
             "S'", "program", "stmt_list", "stmt", "expr_stmt",
             "decl_stmt", "type", "expr", "and_expr", "eq_expr",
             "rel_expr", "add_expr", "term", "factor",
@@ -280,7 +317,51 @@ public class Grammar {
             "for_update", "decl_stmt_inline", "expr_stmt_inline", "postfix_expr",
             "unary_expr", "do_while_stmt", "switch_stmt", "case_list", "case", 
             "default_case", "literal", "case_body", "break_stmt", "compound_assign"
-    );
+    };
+
+    private static final Set<String> NON_TERMINALS = Set.of(NON_TERMINAL_NAMES);
+    private static final Map<String, Integer> NON_TERMINAL_IDS = new HashMap<>();
+
+    // ID del terminal de cada TokenType, indexado por ordinal (-1 si la gramática no lo usa)
+    private static final int[] TERMINAL_BY_TOKEN_TYPE = new int[TokenType.values().length];
+
+    static {
+        for (int i = 0; i < NON_TERMINAL_NAMES.length; i++) {
+            NON_TERMINAL_IDS.put(NON_TERMINAL_NAMES[i], i);
+        }
+        for (Production production : PRODUCTIONS) {
+            production.leftId = NON_TERMINAL_IDS.get(production.getLeft());
+        }
+        for (TokenType type : TokenType.values()) {
+            TERMINAL_BY_TOKEN_TYPE[type.ordinal()] = getTerminalId(type == TokenType.EOF ? "$" : type.name());
+        }
+    }
+
+    // Huella de la gramática: cambia si cambia alguna producción o algún terminal
+    private static final long FINGERPRINT = computeFingerprint();
+
+    private static long computeFingerprint() {
+        StringBuilder text = new StringBuilder();
+        for (Production production : PRODUCTIONS) {
+            text.append(production).append(' ').append(production.getLength()).append('\n');
+        }
+        text.append(String.join(",", TERMINAL_NAMES)).append('\n');
+        text.append(String.join(",", NON_TERMINAL_NAMES));
+        // FNV-1a de 64 bits sobre los caracteres
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Obtiene una huella de 64 bits de la gramática, para invalidar los
+     * resultados guardados cuando la gramática cambia.
+     */
+    public static long getFingerprint() {
+        return FINGERPRINT;
+    }
 
     public static boolean isNullable(String symbol) {
         if (isTerminal(symbol)) {
@@ -300,15 +381,58 @@ public class Grammar {
         return TERMINALS;
     }
 
+    /**
+     * Obtiene el número de terminales; los IDs van de 0 a getTerminalCount() - 1.
+     */
+    public static int getTerminalCount() {
+        return TERMINAL_NAMES.length;
+    }
+
+    /**
+     * Obtiene el ID estable de un terminal, o -1 si no es un terminal.
+     */
+    public static int getTerminalId(String terminal) {
+        Integer id = TERMINAL_IDS.get(terminal);
+        return id != null ? id : -1;
+    }
+
+    public static String getTerminalName(int id) {
+        return TERMINAL_NAMES[id];
+    }
+
+    /**
+     * Obtiene el ID del terminal que corresponde a un tipo de token, o -1 si
+     * la gramática no lo reconoce.
+     */
+    public static int getTerminalId(TokenType type) {
+        return TERMINAL_BY_TOKEN_TYPE[type.ordinal()];
+    }
+
+    /**
+     * Obtiene el número de no terminales; los IDs van de 0 a getNonTerminalCount() - 1.
+     */
+    public static int getNonTerminalCount() {
+        return NON_TERMINAL_NAMES.length;
+    }
+
+    /**
+     * Obtiene el ID estable de un no terminal, o -1 si no es un no terminal.
+     */
+    public static int getNonTerminalId(String nonTerminal) {
+        Integer id = NON_TERMINAL_IDS.get(nonTerminal);
+        return id != null ? id : -1;
+    }
+
+    public static String getNonTerminalName(int id) {
+        return NON_TERMINAL_NAMES[id];
+    }
+
     public static Set<String> getNonTerminals() {
         return NON_TERMINALS;
     }
 
     public static Production getProduction(int id) {
-        return PRODUCTIONS.stream()
-                .filter(p -> p.getId() == id)
-                .findFirst()
-                .orElse(null);
+        return id >= 0 && id < PRODUCTIONS_BY_ID.length ? PRODUCTIONS_BY_ID[id] : null;
     }
 
     public static boolean isTerminal(String symbol) {
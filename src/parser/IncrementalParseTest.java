@@ -0,0 +1,67 @@
+package parser;
+
+import lexer.Lexer;
+import lexer.LexerException;
+import lexer.Token;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Clase de prueba para el reanálisis incremental.
+ * Comprueba que reanalizar reutilizando el árbol anterior informa los
+ * mismos errores que analizar el código nuevo desde cero.
+ */
+public class IncrementalParseTest {
+    public static void main(String[] args) throws LexerException {
+        // Código original y código editado
+        String[][] cases = {
+            // Falta un ';' que la recuperación inserta; la edición queda lejos del error
+            {"int x := 1;\nwhile (x < 3) { x := x + 1 }\nint w := 4;",
+             "int x := 1;\nwhile (x < 3) { x := x + 1 }\nint w := 5;"},
+            // La edición corrige el error
+            {"int x := 1;\nwhile (x < 3) { x := x + 1 }\nint w := 4;",
+             "int x := 1;\nwhile (x < 3) { x := x + 1; }\nint w := 4;"},
+            // La edición introduce un error
+            {"int a := 1;\nint b := 2;\nint c := 3;",
+             "int a := 1;\nint b := 2\nint c := 3;"},
+            // Una línea nueva desplaza todos los tokens siguientes
+            {"int a := 1;\nif (a > 0) { a := a + 1 }\nint c := 3;",
+             "int a := 1;\n\nif (a > 0) { a := a + 1 }\nint c := 3;"}
+        };
+
+        int failures = 0;
+        for (String[] edit : cases) {
+            List<Token> oldTokens = new Lexer(edit[0]).tokenize();
+            List<Token> newTokens = new Lexer(edit[1]).tokenize();
+
+            SLR1Parser parser = new SLR1Parser();
+            ParseResult previous = parser.parseWithRecovery(oldTokens);
+            ParseResult incremental = parser.parseWithRecovery(newTokens, previous.getParseTree(),
+                    TokenEdit.between(oldTokens, newTokens));
+            ParseResult fresh = new SLR1Parser().parseWithRecovery(newTokens);
+
+            List<String> expected = messages(fresh);
+            List<String> actual = messages(incremental);
+            boolean same = expected.equals(actual) && fresh.isSuccess() == incremental.isSuccess();
+            System.out.println((same ? "OK         " : "DIFERENCIA ") + edit[1].replace('\n', ' '));
+            if (!same) {
+                System.out.println("  Desde cero:  " + expected);
+                System.out.println("  Incremental: " + actual);
+                failures++;
+            }
+        }
+
+        System.out.println("\n" + failures + " diferencias en " + cases.length + " casos");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static List<String> messages(ParseResult result) {
+        List<String> messages = new ArrayList<>();
+        for (ParserException error : result.getErrors()) {
+            messages.add(error.getMessage());
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,197 @@
+package parser;
+
+import lexer.Token;
+import lexer.TokenType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Analiza en paralelo las sentencias de primer nivel de un programa. El
+ * programa es una lista plana de sentencias y funciones, así que basta
+ * recorrer los tokens contando llaves y paréntesis para encontrar los
+ * puntos donde termina una sentencia de primer nivel. Cada tramo se
+ * analiza como un programa independiente en un ForkJoinPool y los árboles
+ * se unen en una sola lista de sentencias, con la misma forma que produce
+ * el análisis secuencial.
+ *
+ * Si algún tramo tiene un error sintáctico se repite el análisis completo
+ * en secuencial, para informar exactamente el mismo error.
+ */
+public class ParallelParser {
+    /** Tokens mínimos por tramo: por debajo, el reparto cuesta más de lo que ahorra. */
+    public static final int DEFAULT_MIN_SEGMENT_TOKENS = 2048;
+
+    private final SLR1Parser prototype;
+    private final ForkJoinPool pool;
+    private final int minSegmentTokens;
+    // Un parser por hilo: comparten las tablas pero no las pilas
+    private final ThreadLocal<SLR1Parser> workers;
+
+    public ParallelParser(SLR1Parser prototype) {
+        this(prototype, ForkJoinPool.commonPool(), DEFAULT_MIN_SEGMENT_TOKENS);
+    }
+
+    /**
+     * @param prototype Parser del que se toman las tablas y la configuración
+     *                  (modo de árbol y tablas optimizadas)
+     * @param pool Pool en el que se analizan los tramos
+     * @param minSegmentTokens Tokens mínimos por tramo
+     */
+    public ParallelParser(SLR1Parser prototype, ForkJoinPool pool, int minSegmentTokens) {
+        if (minSegmentTokens <= 0) {
+            throw new IllegalArgumentException("El tamaño mínimo de tramo debe ser positivo");
+        }
+        this.prototype = prototype;
+        this.pool = pool;
+        this.minSegmentTokens = minSegmentTokens;
+        this.workers = ThreadLocal.withInitial(() -> {
+            SLR1Parser worker = new SLR1Parser(prototype.getTable());
+            worker.setTreeMode(prototype.getTreeMode());
+            worker.setOptimizedTables(prototype.isOptimizedTables());
+            return worker;
+        });
+    }
+
+    /**
+     * Analiza la lista de tokens repartiendo las sentencias de primer nivel
+     * entre los hilos del pool.
+     *
+     * @return Árbol sintáctico del programa completo
+     */
+    public SLR1Parser.ParseTreeNode parse(List<Token> tokens) throws ParserException {
+        List<Token> input = withoutEof(tokens);
+        int segmentCount = Math.max(1, Math.min(pool.getParallelism() * 4, input.size() / minSegmentTokens));
+        List<Integer> cuts = findSegmentCuts(input, segmentCount);
+        if (cuts.size() <= 2) {
+            return prototype.parse(tokens);
+        }
+
+        List<ForkJoinTask<SLR1Parser.ParseTreeNode>> tasks = new ArrayList<>();
+        for (int i = 0; i + 1 < cuts.size(); i++) {
+            List<Token> segment = input.subList(cuts.get(i), cuts.get(i + 1));
+            tasks.add(pool.submit(() -> workers.get().parse(segment)));
+        }
+
+        List<SLR1Parser.ParseTreeNode> statements = new ArrayList<>();
+        try {
+            for (ForkJoinTask<SLR1Parser.ParseTreeNode> task : tasks) {
+                collectStatements(task.get(), statements);
+            }
+        } catch (ExecutionException e) {
+            // El pool puede envolver la excepción del tramo en varias capas
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof ParserException) {
+                    // El análisis secuencial produce el error con su contexto real
+                    return prototype.parse(tokens);
+                }
+            }
+            throw new IllegalStateException("Error al analizar un tramo: " + e.getCause(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ParserException("Análisis paralelo interrumpido", null);
+        } finally {
+            for (ForkJoinTask<SLR1Parser.ParseTreeNode> task : tasks) {
+                task.cancel(false);
+            }
+        }
+        return buildProgram(statements);
+    }
+
+    /**
+     * Busca los límites de los tramos: posiciones tras un ';' o una '}' de
+     * primer nivel (fuera de llaves y paréntesis), tomando como mucho
+     * segmentCount tramos de tamaño parecido. Un ';' o una '}' seguidos de
+     * else no cierran la sentencia, y tampoco los del cuerpo de un do
+     * (con llaves o sin ellas) que aún espera su while.
+     *
+     * @return Posiciones de corte, empezando en 0 y terminando en tokens.size()
+     */
+    private List<Integer> findSegmentCuts(List<Token> tokens, int segmentCount) {
+        List<Integer> cuts = new ArrayList<>();
+        cuts.add(0);
+        int target = Math.max(minSegmentTokens, tokens.size() / segmentCount);
+        int braces = 0;
+        int parens = 0;
+        // do de primer nivel cuyo while aún no ha aparecido
+        int pendingDo = 0;
+        TokenType previous = null;
+
+        for (int i = 0; i < tokens.size(); i++) {
+            TokenType type = tokens.get(i).getType();
+            if (braces == 0 && parens == 0) {
+                if (type == TokenType.DO) {
+                    pendingDo++;
+                } else if (type == TokenType.WHILE && pendingDo > 0
+                        && (previous == TokenType.SEMICOLON || previous == TokenType.RIGHT_BRACE)) {
+                    // El while que sigue al cuerpo de un do cierra ese do, no empieza un bucle
+                    pendingDo--;
+                }
+            }
+            previous = type;
+            switch (type) {
+                case LEFT_BRACE -> braces++;
+                case RIGHT_BRACE -> braces--;
+                case LEFT_PAREN -> parens++;
+                case RIGHT_PAREN -> parens--;
+                default -> { }
+            }
+            if (pendingDo > 0 || braces != 0 || parens != 0 || (type != TokenType.SEMICOLON && type != TokenType.RIGHT_BRACE)) {
+                continue;
+            }
+            if (i + 1 - cuts.get(cuts.size() - 1) < target || tokens.size() - (i + 1) < minSegmentTokens) {
+                continue;
+            }
+            TokenType next = i + 1 < tokens.size() ? tokens.get(i + 1).getType() : null;
+            if (next == TokenType.ELSE) {
+                continue;
+            }
+            cuts.add(i + 1);
+        }
+        cuts.add(tokens.size());
+        return cuts;
+    }
+
+    /**
+     * Añade en orden las sentencias de primer nivel de un tramo, recorriendo
+     * la cadena recursiva por la izquierda de stmt_list.
+     */
+    private void collectStatements(SLR1Parser.ParseTreeNode segment, List<SLR1Parser.ParseTreeNode> statements) {
+        SLR1Parser.ParseTreeNode node = segment;
+        if (node.getSymbol().equals("program")) {
+            node = node.getChild(0);
+        }
+        int first = statements.size();
+        while (node.getSymbol().equals("stmt_list") && node.getChildCount() == 2) {
+            statements.add(node.getChild(1));
+            node = node.getChild(0);
+        }
+        // Primera sentencia: stmt_list -> stmt, o la sentencia sola si el árbol está colapsado
+        statements.add(node.getSymbol().equals("stmt_list") ? node.getChild(0) : node);
+        Collections.reverse(statements.subList(first, statements.size()));
+    }
+
+    /**
+     * Reconstruye program -> stmt_list con las sentencias de todos los tramos.
+     */
+    private SLR1Parser.ParseTreeNode buildProgram(List<SLR1Parser.ParseTreeNode> statements) {
+        boolean full = prototype.getTreeMode() == SLR1Parser.TreeMode.FULL;
+        SLR1Parser.ParseTreeNode list = full
+                ? new SLR1Parser.ParseTreeNode("stmt_list", new SLR1Parser.ParseTreeNode[]{statements.get(0)})
+                : statements.get(0);
+        for (int i = 1; i < statements.size(); i++) {
+            list = new SLR1Parser.ParseTreeNode("stmt_list", new SLR1Parser.ParseTreeNode[]{list, statements.get(i)});
+        }
+        return full ? new SLR1Parser.ParseTreeNode("program", new SLR1Parser.ParseTreeNode[]{list}) : list;
+    }
+
+    private static List<Token> withoutEof(List<Token> tokens) {
+        if (!tokens.isEmpty() && tokens.get(tokens.size() - 1).getType() == TokenType.EOF) {
+            return tokens.subList(0, tokens.size() - 1);
+        }
+        return tokens;
+    }
+}
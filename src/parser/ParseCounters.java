@@ -0,0 +1,118 @@
+package parser;
+
+import lexer.Token;
+import java.util.List;
+
+/**
+ * Observador que solo cuenta las acciones del parser.
+ */
+public class ParseCounters implements ParseListener {
+    private int shifts;
+    private int reductions;
+    private int errors;
+    private int recoveries;
+    private int reusedNodes;
+    private int reusedTokens;
+    private int maxDepth;
+    private int depth;
+
+    @Override
+    public void onParseStart(List<Token> tokens) {
+        shifts = 0;
+        reductions = 0;
+        errors = 0;
+        recoveries = 0;
+        reusedNodes = 0;
+        reusedTokens = 0;
+        maxDepth = 0;
+        depth = 0;
+    }
+
+    @Override
+    public void onShift(int state, int tokenIndex, int nextState) {
+        shifts++;
+        if (++depth > maxDepth) {
+            maxDepth = depth;
+        }
+    }
+
+    @Override
+    public void onReduce(int state, int tokenIndex, Grammar.Production production, int gotoState) {
+        reductions++;
+        depth = depth - production.getLength() + 1;
+    }
+
+    @Override
+    public void onError(int state, int tokenIndex) {
+        errors++;
+    }
+
+    @Override
+    public void onRecover(int tokenIndex, int poppedStates, int resumeState) {
+        recoveries++;
+        depth = depth - poppedStates + 1;
+        if (depth > maxDepth) {
+            maxDepth = depth;
+        }
+    }
+
+    public int getShifts() {
+        return shifts;
+    }
+
+    public int getReductions() {
+        return reductions;
+    }
+
+    @Override
+    public void onReuse(int state, int tokenIndex, int width, int nextState) {
+        reusedNodes++;
+        reusedTokens += width;
+        if (++depth > maxDepth) {
+            maxDepth = depth;
+        }
+    }
+
+    public int getErrors() {
+        return errors;
+    }
+
+    public int getRecoveries() {
+        return recoveries;
+    }
+
+    /**
+     * Obtiene los subárboles reutilizados en un reanálisis incremental.
+     */
+    public int getReusedNodes() {
+        return reusedNodes;
+    }
+
+    /**
+     * Obtiene los tokens cubiertos por los subárboles reutilizados.
+     */
+    public int getReusedTokens() {
+        return reusedTokens;
+    }
+
+    /**
+     * Obtiene el número total de acciones ejecutadas.
+     */
+    public int getSteps() {
+        return shifts + reductions + errors + recoveries + reusedNodes;
+    }
+
+    /**
+     * Obtiene la profundidad máxima alcanzada por la pila de símbolos.
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Pasos: %d (desplazamientos: %d, reducciones: %d, errores: %d, recuperaciones: %d, "
+                + "reutilizados: %d nodos / %d tokens), profundidad máxima: %d",
+                getSteps(), shifts, reductions, errors, recoveries, reusedNodes, reusedTokens, maxDepth);
+    }
+}
@@ -0,0 +1,78 @@
+package parser;
+
+import lexer.Token;
+import java.util.List;
+
+/**
+ * Observador de las acciones del parser SLR(1).
+ * Permite instrumentar el análisis (trazas, contadores, depuración) sin que
+ * el bucle principal pague ese costo cuando no hay observadores registrados.
+ * Cada método se invoca después de ejecutar la acción correspondiente.
+ */
+public interface ParseListener {
+
+    /**
+     * Se invoca al iniciar un análisis.
+     *
+     * @param tokens Tokens a analizar, incluido el token EOF final
+     */
+    default void onParseStart(List<Token> tokens) {
+    }
+
+    /**
+     * Se invoca tras desplazar un token.
+     *
+     * @param state Estado en la cima de la pila antes del desplazamiento
+     * @param tokenIndex Índice del token desplazado
+     * @param nextState Estado apilado
+     */
+    default void onShift(int state, int tokenIndex, int nextState) {
+    }
+
+    /**
+     * Se invoca tras una reducción. Si las tablas optimizadas encadenaron
+     * reducciones unitarias, gotoState es el estado final de la cadena.
+     *
+     * @param state Estado en la cima de la pila antes de la reducción
+     * @param tokenIndex Índice del token de anticipación
+     * @param production Producción reducida
+     * @param gotoState Estado apilado tras la reducción
+     */
+    default void onReduce(int state, int tokenIndex, Grammar.Production production, int gotoState) {
+    }
+
+    /**
+     * Se invoca cuando la entrada es aceptada.
+     */
+    default void onAccept(int state, int tokenIndex) {
+    }
+
+    /**
+     * Se invoca cuando la tabla ACTION no tiene entrada para el token actual.
+     */
+    default void onError(int state, int tokenIndex) {
+    }
+
+    /**
+     * Se invoca cuando el parser se resincroniza tras un error (solo en
+     * {@link SLR1Parser#parseWithRecovery}).
+     *
+     * @param tokenIndex Índice del token con el que se reanuda el análisis
+     * @param poppedStates Estados desapilados
+     * @param resumeState Estado apilado junto al nodo de error
+     */
+    default void onRecover(int tokenIndex, int poppedStates, int resumeState) {
+    }
+
+    /**
+     * Se invoca cuando un reanálisis incremental apila un subárbol del
+     * análisis anterior en lugar de analizar sus tokens.
+     *
+     * @param state Estado en la cima de la pila antes de apilar el subárbol
+     * @param tokenIndex Índice del primer token del subárbol
+     * @param width Tokens que cubre el subárbol
+     * @param nextState Estado apilado junto al subárbol
+     */
+    default void onReuse(int state, int tokenIndex, int width, int nextState) {
+    }
+}
@@ -46,6 +46,19 @@ public class ParseResult {
         this.parseTime = parseTime;
     }
     
+    /**
+     * Constructor para el resultado de un análisis con recuperación de
+     * errores: el árbol puede ser parcial y contener nodos de error.
+     */
+    public ParseResult(SLR1Parser.ParseTreeNode parseTree, List<ParserException> errors,
+                       List<String> warnings, long parseTime) {
+        this.success = errors.isEmpty() && parseTree != null;
+        this.parseTree = parseTree;
+        this.errors = new ArrayList<>(errors);
+        this.warnings = new ArrayList<>(warnings);
+        this.parseTime = parseTime;
+    }
+    
     public boolean isSuccess() {
         return success;
     }
@@ -0,0 +1,198 @@
+package parser;
+
+import lexer.Token;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Registro compacto de los pasos de un análisis SLR(1).
+ * Cada paso guarda solo enteros (acción codificada, índice del token y la
+ * cima de la pila). La pila se representa con nodos persistentes enlazados
+ * a su padre, de modo que cada paso comparte la pila de los anteriores y la
+ * memoria total es proporcional al número de pasos. Las cadenas de la pila
+ * y de la entrada restante se generan solo cuando se consultan.
+ */
+public class ParseTrace {
+    private static final int SHIFT = 0;
+    private static final int REDUCE = 1;
+    private static final int ACCEPT = 2;
+    private static final int ERROR = 3;
+    private static final int RECOVER = 4;
+    private static final int REUSE = 5;
+    private static final int TYPE_BITS = 3;
+    private static final int TYPE_MASK = (1 << TYPE_BITS) - 1;
+
+    private final List<Token> tokens;
+
+    // Pasos: acción codificada (valor << TYPE_BITS | tipo), token de anticipación y cima de la pila
+    private int[] actions = new int[256];
+    private int[] tokenIndices = new int[256];
+    private int[] stackTops = new int[256];
+    private int size;
+
+    // Nodos persistentes de la pila: estado y nodo inferior (-1 en el fondo)
+    private int[] nodeStates = new int[256];
+    private int[] nodeParents = new int[256];
+    private int nodeCount;
+    private int top;
+
+    ParseTrace(List<Token> tokens) {
+        this.tokens = tokens;
+        this.top = newNode(0, -1);
+    }
+
+    void recordShift(int tokenIndex, int nextState) {
+        record(SHIFT, nextState, tokenIndex);
+        top = newNode(nextState, top);
+    }
+
+    void recordReduce(int tokenIndex, Grammar.Production production, int gotoState) {
+        record(REDUCE, production.getId(), tokenIndex);
+        for (int i = 0; i < production.getLength() && nodeParents[top] >= 0; i++) {
+            top = nodeParents[top];
+        }
+        top = newNode(gotoState, top);
+    }
+
+    void recordAccept(int tokenIndex) {
+        record(ACCEPT, 0, tokenIndex);
+    }
+
+    void recordError(int tokenIndex) {
+        record(ERROR, 0, tokenIndex);
+    }
+
+    void recordRecover(int tokenIndex, int poppedStates, int resumeState) {
+        record(RECOVER, resumeState, tokenIndex);
+        for (int i = 0; i < poppedStates && nodeParents[top] >= 0; i++) {
+            top = nodeParents[top];
+        }
+        top = newNode(resumeState, top);
+    }
+
+    void recordReuse(int tokenIndex, int nextState) {
+        record(REUSE, nextState, tokenIndex);
+        top = newNode(nextState, top);
+    }
+
+    /**
+     * Obtiene el número de pasos registrados.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Obtiene el estado en la cima de la pila antes del paso indicado.
+     */
+    public int getState(int step) {
+        return nodeStates[stackTops[step]];
+    }
+
+    /**
+     * Obtiene el índice del token de anticipación del paso indicado.
+     */
+    public int getTokenIndex(int step) {
+        return tokenIndices[step];
+    }
+
+    /**
+     * Genera la pila de estados del paso indicado, del fondo a la cima.
+     */
+    public String renderStack(int step) {
+        int count = 0;
+        for (int node = stackTops[step]; node >= 0; node = nodeParents[node]) {
+            count++;
+        }
+        int[] states = new int[count];
+        for (int node = stackTops[step]; node >= 0; node = nodeParents[node]) {
+            states[--count] = nodeStates[node];
+        }
+        return Arrays.toString(states);
+    }
+
+    /**
+     * Genera la entrada restante del paso indicado.
+     */
+    public String renderInput(int step) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = tokenIndices[step]; i < tokens.size(); i++) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(SLR1Parser.mapTokenToTerminal(tokens.get(i)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Genera la acción del paso indicado (s5, r12, acc, error, sync7, reuse9).
+     */
+    public String renderAction(int step) {
+        int value = actions[step] >> TYPE_BITS;
+        return switch (actions[step] & TYPE_MASK) {
+            case SHIFT -> "s" + value;
+            case REDUCE -> "r" + value;
+            case ACCEPT -> "acc";
+            case RECOVER -> "sync" + value;
+            case REUSE -> "reuse" + value;
+            default -> "error";
+        };
+    }
+
+    /**
+     * Genera la producción reducida en el paso indicado (vacía si no reduce).
+     */
+    public String renderProduction(int step) {
+        return switch (actions[step] & TYPE_MASK) {
+            case REDUCE -> Grammar.getProduction(actions[step] >> TYPE_BITS).toString();
+            case RECOVER -> SLR1Table.RECOVERY_SYMBOL + " -> " + SLR1Parser.ERROR_SYMBOL;
+            default -> "";
+        };
+    }
+
+    /**
+     * Obtiene una vista de los pasos; cada ParseStep se crea al consultarlo.
+     */
+    public List<SLR1Parser.ParseStep> asSteps() {
+        return new AbstractList<SLR1Parser.ParseStep>() {
+            @Override
+            public SLR1Parser.ParseStep get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException(index);
+                }
+                return new SLR1Parser.ParseStep(ParseTrace.this, index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private void record(int type, int value, int tokenIndex) {
+        if (size == actions.length) {
+            int capacity = size * 2;
+            actions = Arrays.copyOf(actions, capacity);
+            tokenIndices = Arrays.copyOf(tokenIndices, capacity);
+            stackTops = Arrays.copyOf(stackTops, capacity);
+        }
+        actions[size] = value << TYPE_BITS | type;
+        tokenIndices[size] = tokenIndex;
+        stackTops[size] = top;
+        size++;
+    }
+
+    private int newNode(int state, int parent) {
+        if (nodeCount == nodeStates.length) {
+            int capacity = nodeCount * 2;
+            nodeStates = Arrays.copyOf(nodeStates, capacity);
+            nodeParents = Arrays.copyOf(nodeParents, capacity);
+        }
+        nodeStates[nodeCount] = state;
+        nodeParents[nodeCount] = parent;
+        return nodeCount++;
+    }
+}
@@ -0,0 +1,63 @@
+package parser;
+
+import lexer.Token;
+import java.util.List;
+
+/**
+ * Observador que registra cada paso del análisis para mostrarlo en la
+ * interfaz. Los pasos se guardan en un {@link ParseTrace} compacto y sus
+ * cadenas (pila, entrada restante) se generan solo al consultarlas.
+ */
+public class ParseTraceRecorder implements ParseListener {
+    private ParseTrace trace = new ParseTrace(List.of());
+
+    @Override
+    public void onParseStart(List<Token> tokens) {
+        // Una traza nueva por análisis: las anteriores siguen siendo válidas
+        trace = new ParseTrace(tokens);
+    }
+
+    @Override
+    public void onShift(int state, int tokenIndex, int nextState) {
+        trace.recordShift(tokenIndex, nextState);
+    }
+
+    @Override
+    public void onReduce(int state, int tokenIndex, Grammar.Production production, int gotoState) {
+        trace.recordReduce(tokenIndex, production, gotoState);
+    }
+
+    @Override
+    public void onAccept(int state, int tokenIndex) {
+        trace.recordAccept(tokenIndex);
+    }
+
+    @Override
+    public void onError(int state, int tokenIndex) {
+        trace.recordError(tokenIndex);
+    }
+
+    @Override
+    public void onRecover(int tokenIndex, int poppedStates, int resumeState) {
+        trace.recordRecover(tokenIndex, poppedStates, resumeState);
+    }
+
+    @Override
+    public void onReuse(int state, int tokenIndex, int width, int nextState) {
+        trace.recordReuse(tokenIndex, nextState);
+    }
+
+    /**
+     * Obtiene la traza del último análisis.
+     */
+    public ParseTrace getTrace() {
+        return trace;
+    }
+
+    /**
+     * Obtiene los pasos registrados en el último análisis.
+     */
+    public List<SLR1Parser.ParseStep> getSteps() {
+        return trace.asSteps();
+    }
+}
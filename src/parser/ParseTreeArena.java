@@ -0,0 +1,535 @@
+package parser;
+
+import lexer.Token;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Árbol sintáctico concreto almacenado como estructura de arreglos: cada
+ * nodo es un índice y sus datos (tipo, primer hijo, siguiente hermano y
+ * posición del token) viven en arreglos int paralelos. Un nodo ocupa 16
+ * bytes y no hay un objeto por nodo, de modo que un árbol de un millón de
+ * tokens cabe en unas decenas de MB.
+ *
+ * Los nodos se numeran en postorden (cada hijo antes que su padre), así que
+ * la raíz es el último nodo. El tipo de un nodo terminal es su ID de
+ * terminal; el de un no terminal es getTerminalCount() + su ID de no
+ * terminal; los nodos de error de la recuperación tienen el tipo ERROR_KIND.
+ */
+public class ParseTreeArena {
+    /** Índice que indica la ausencia de nodo (sin hijos o sin más hermanos). */
+    public static final int NONE = -1;
+    /** Tipo de los nodos que agrupan la entrada descartada por la recuperación. */
+    public static final int ERROR_KIND = Grammar.getTerminalCount() + Grammar.getNonTerminalCount();
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private int[] kinds;
+    private int[] firstChildren;
+    private int[] nextSiblings;
+    private int[] tokenIndices;
+    private int size;
+    private final List<Token> tokens;
+
+    private ParseTreeArena(List<Token> tokens, int capacity) {
+        this.tokens = tokens;
+        this.kinds = new int[capacity];
+        this.firstChildren = new int[capacity];
+        this.nextSiblings = new int[capacity];
+        this.tokenIndices = new int[capacity];
+    }
+
+    /**
+     * Analiza los tokens construyendo directamente el árbol en arreglos, sin
+     * crear ningún ParseTreeNode. El análisis se detiene en el primer error.
+     */
+    public static ParseTreeArena parse(SLR1Parser parser, List<Token> tokens) throws ParserException {
+        // Unos cuatro nodos por token en la gramática actual (cadenas unitarias incluidas)
+        ParseTreeArena arena = new ParseTreeArena(tokens, Math.max(INITIAL_CAPACITY, tokens.size() * 4));
+        parser.parse(tokens, arena.new Builder());
+        arena.trim();
+        return arena;
+    }
+
+    /**
+     * Copia un árbol de objetos (por ejemplo, el de un análisis con
+     * recuperación de errores) en un árbol en arreglos.
+     */
+    public static ParseTreeArena from(SLR1Parser.ParseTreeNode root) {
+        ParseTreeArena arena = new ParseTreeArena(new ArrayList<>(), INITIAL_CAPACITY);
+
+        // Recorrido en postorden con pila explícita: los hijos se copian antes que el padre
+        SLR1Parser.ParseTreeNode[] pending = new SLR1Parser.ParseTreeNode[64];
+        int[] nextChild = new int[64];
+        int[] lastCopied = new int[64];
+        int[] firstCopied = new int[64];
+        int top = 0;
+        pending[0] = root;
+        lastCopied[0] = NONE;
+        firstCopied[0] = NONE;
+        int copied = NONE;
+
+        while (top >= 0) {
+            SLR1Parser.ParseTreeNode node = pending[top];
+            int childCount = node.getChildCount();
+            if (nextChild[top] < childCount) {
+                if (top + 1 == pending.length) {
+                    pending = Arrays.copyOf(pending, pending.length * 2);
+                    nextChild = Arrays.copyOf(nextChild, pending.length);
+                    lastCopied = Arrays.copyOf(lastCopied, pending.length);
+                    firstCopied = Arrays.copyOf(firstCopied, pending.length);
+                }
+                pending[top + 1] = node.getChild(nextChild[top]++);
+                nextChild[top + 1] = 0;
+                lastCopied[top + 1] = NONE;
+                firstCopied[top + 1] = NONE;
+                top++;
+                continue;
+            }
+
+            if (node.isTerminal()) {
+                arena.tokens.add(node.getToken());
+                copied = arena.addTerminal(node.getToken(), arena.tokens.size() - 1);
+            } else {
+                int kind = node.isError() ? ERROR_KIND
+                        : Grammar.getTerminalCount() + Grammar.getNonTerminalId(node.getSymbol());
+                copied = arena.addNode(kind, NONE, firstCopied[top]);
+            }
+            pending[top--] = null;
+
+            // Enlazar el nodo copiado como último hijo de su padre
+            if (top >= 0) {
+                if (lastCopied[top] == NONE) {
+                    firstCopied[top] = copied;
+                } else {
+                    arena.nextSiblings[lastCopied[top]] = copied;
+                }
+                lastCopied[top] = copied;
+            }
+        }
+        arena.trim();
+        return arena;
+    }
+
+    /**
+     * Lee un árbol escrito con {@link #write(DataOutput)}.
+     *
+     * @param tokens Tokens a los que se refieren las posiciones de los terminales
+     * @throws IOException Si la entrada no contiene un árbol válido para esos tokens
+     */
+    public static ParseTreeArena read(DataInput in, List<Token> tokens) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            throw new IOException("Tamaño de árbol inválido: " + size);
+        }
+        ParseTreeArena arena = new ParseTreeArena(tokens, size);
+        byte[] buffer = new byte[size * Integer.BYTES];
+        for (int[] column : new int[][]{arena.kinds, arena.firstChildren, arena.nextSiblings, arena.tokenIndices}) {
+            in.readFully(buffer);
+            ByteBuffer.wrap(buffer).asIntBuffer().get(column);
+        }
+        for (int node = 0; node < size; node++) {
+            int kind = arena.kinds[node];
+            int firstChild = arena.firstChildren[node];
+            int nextSibling = arena.nextSiblings[node];
+            int tokenIndex = arena.tokenIndices[node];
+            // En postorden los hijos siempre preceden al padre y los hermanos siguientes van detrás
+            if (kind < 0 || kind > ERROR_KIND || firstChild < NONE || firstChild >= node
+                    || (nextSibling != NONE && (nextSibling <= node || nextSibling >= size))
+                    || tokenIndex < NONE || tokenIndex >= tokens.size()) {
+                throw new IOException("Nodo " + node + " inválido en el árbol guardado");
+            }
+        }
+        // Cada nodo tiene a lo sumo un padre, y todos los hijos (no solo el primero) lo
+        // preceden; así ningún recorrido puede volver a un nodo ya visitado
+        int[] parents = new int[size];
+        Arrays.fill(parents, NONE);
+        for (int node = 0; node < size; node++) {
+            int firstChild = arena.firstChildren[node];
+            if (firstChild != NONE) {
+                if (parents[firstChild] != NONE) {
+                    throw new IOException("Nodo " + firstChild + " inválido en el árbol guardado");
+                }
+                parents[firstChild] = node;
+            }
+        }
+        // Los hermanos tienen índices mayores: al llegar a un nodo su padre ya se conoce
+        for (int node = 0; node < size; node++) {
+            int nextSibling = arena.nextSiblings[node];
+            if (nextSibling != NONE) {
+                if (parents[nextSibling] != NONE || parents[node] == NONE || nextSibling >= parents[node]) {
+                    throw new IOException("Nodo " + nextSibling + " inválido en el árbol guardado");
+                }
+                parents[nextSibling] = parents[node];
+            }
+        }
+        arena.size = size;
+        return arena;
+    }
+
+    /**
+     * Escribe la estructura del árbol: el número de nodos y los cuatro
+     * arreglos, uno tras otro. Los tokens no se escriben: quien lee el árbol
+     * debe proporcionar la misma lista.
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(size);
+        ByteBuffer buffer = ByteBuffer.allocate(size * Integer.BYTES);
+        for (int[] column : new int[][]{kinds, firstChildren, nextSiblings, tokenIndices}) {
+            buffer.clear();
+            buffer.asIntBuffer().put(column, 0, size);
+            out.write(buffer.array());
+        }
+    }
+
+    /**
+     * Acciones semánticas que añaden un nodo por cada desplazamiento y
+     * reducción. Los índices de los nodos se guardan en una pila de int
+     * propia, paralela a la del parser, así que no se crea ningún objeto
+     * por nodo: el valor que ve el parser es siempre null.
+     */
+    private class Builder implements SemanticActions {
+        private int shifted;
+        private int[] nodes = new int[64];
+        private int top;
+
+        @Override
+        public Object shift(Token token) {
+            push(addTerminal(token, shifted++));
+            return null;
+        }
+
+        @Override
+        public Object reduce(Grammar.Production production, Object[] values) {
+            // Los hijos son los últimos values.length nodos de la pila, en orden
+            top -= values.length;
+            int first = NONE;
+            for (int i = 0; i < values.length; i++) {
+                int child = nodes[top + i];
+                if (i == 0) {
+                    first = child;
+                } else {
+                    nextSiblings[nodes[top + i - 1]] = child;
+                }
+            }
+            push(addNode(Grammar.getTerminalCount() + production.getLeftId(), NONE, first));
+            return null;
+        }
+
+        private void push(int node) {
+            if (top == nodes.length) {
+                nodes = Arrays.copyOf(nodes, top * 2);
+            }
+            nodes[top++] = node;
+        }
+    }
+
+    private int addTerminal(Token token, int tokenIndex) {
+        return addNode(Grammar.getTerminalId(token.getType()), tokenIndex, NONE);
+    }
+
+    private int addNode(int kind, int tokenIndex, int firstChild) {
+        if (size == kinds.length) {
+            int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+            tokenIndices = Arrays.copyOf(tokenIndices, capacity);
+        }
+        kinds[size] = kind;
+        firstChildren[size] = firstChild;
+        nextSiblings[size] = NONE;
+        tokenIndices[size] = tokenIndex;
+        return size++;
+    }
+
+    private void trim() {
+        if (size < kinds.length) {
+            kinds = Arrays.copyOf(kinds, size);
+            firstChildren = Arrays.copyOf(firstChildren, size);
+            nextSiblings = Arrays.copyOf(nextSiblings, size);
+            tokenIndices = Arrays.copyOf(tokenIndices, size);
+        }
+    }
+
+    public int getNodeCount() { return size; }
+
+    /**
+     * Obtiene los tokens a los que se refieren los nodos terminales.
+     */
+    public List<Token> getTokens() { return Collections.unmodifiableList(tokens); }
+
+    /**
+     * Obtiene la raíz del árbol (NONE si está vacío).
+     */
+    public int getRoot() { return size - 1; }
+
+    public int getKind(int node) { return kinds[node]; }
+
+    /**
+     * Obtiene el tipo de los nodos de un no terminal, para comparar con
+     * getKind sin construir el nombre del símbolo.
+     */
+    public static int getNonTerminalKind(String nonTerminal) {
+        int id = Grammar.getNonTerminalId(nonTerminal);
+        if (id < 0) {
+            throw new IllegalArgumentException("No terminal desconocido: " + nonTerminal);
+        }
+        return Grammar.getTerminalCount() + id;
+    }
+    public int getFirstChild(int node) { return firstChildren[node]; }
+    public int getNextSibling(int node) { return nextSiblings[node]; }
+
+    /**
+     * Obtiene la posición del token de un nodo terminal (NONE en los no terminales).
+     */
+    public int getTokenIndex(int node) { return tokenIndices[node]; }
+
+    public boolean isTerminal(int node) { return tokenIndices[node] != NONE; }
+
+    public boolean isError(int node) { return kinds[node] == ERROR_KIND; }
+
+    /**
+     * Obtiene el token de un nodo terminal (null en los no terminales).
+     */
+    public Token getToken(int node) {
+        int tokenIndex = tokenIndices[node];
+        return tokenIndex == NONE ? null : tokens.get(tokenIndex);
+    }
+
+    /**
+     * Obtiene el símbolo del nodo con los mismos nombres que ParseTreeNode.
+     */
+    public String getSymbol(int node) {
+        int tokenIndex = tokenIndices[node];
+        if (tokenIndex != NONE) {
+            return tokens.get(tokenIndex).getType().name();
+        }
+        if (kinds[node] == ERROR_KIND) {
+            return SLR1Parser.ERROR_SYMBOL;
+        }
+        return Grammar.getNonTerminalName(kinds[node] - Grammar.getTerminalCount());
+    }
+
+    /**
+     * Obtiene el lexema de un nodo terminal (null en los no terminales).
+     */
+    public String getValue(int node) {
+        Token token = getToken(node);
+        return token == null ? null : token.getLexeme();
+    }
+
+    /**
+     * Obtiene el nodo de menor índice del subárbol: su hoja más a la
+     * izquierda. Por el postorden, el subárbol ocupa los índices desde este
+     * nodo hasta la raíz del subárbol.
+     */
+    public int getSubtreeStart(int node) {
+        while (firstChildren[node] != NONE) {
+            node = firstChildren[node];
+        }
+        return node;
+    }
+
+    public int getChildCount(int node) {
+        int count = 0;
+        for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Crea una copia del árbol en la que algunos subárboles se sustituyen
+     * por un único nodo terminal, por ejemplo el literal que resulta de
+     * evaluar una expresión constante. Los nodos conservan su orden, así
+     * que la copia sigue numerada en postorden. Los terminales conservados
+     * mantienen la posición de su token, y los tokens nuevos se añaden al
+     * final de la lista de tokens de la copia.
+     *
+     * @param replacements Token que sustituye al subárbol de cada nodo,
+     *                     indexado por nodo (null para conservarlo); si un
+     *                     subárbol sustituido contiene otro, prevalece el exterior
+     */
+    public ParseTreeArena replaceSubtrees(Token[] replacements) {
+        List<Token> copiedTokens = new ArrayList<>(tokens);
+        ParseTreeArena arena = new ParseTreeArena(copiedTokens, Math.max(1, size));
+
+        // Cada subárbol sustituido ocupa un rango contiguo que termina en su raíz
+        boolean[] removed = new boolean[size];
+        for (int node = size - 1; node >= 0; node--) {
+            if (replacements[node] != null) {
+                int start = getSubtreeStart(node);
+                Arrays.fill(removed, start, node, true);
+                node = start;
+            }
+        }
+
+        int[] copiedIds = new int[size];
+        for (int node = 0; node < size; node++) {
+            if (removed[node]) {
+                copiedIds[node] = NONE;
+            } else if (replacements[node] != null) {
+                copiedTokens.add(replacements[node]);
+                copiedIds[node] = arena.addTerminal(replacements[node], copiedTokens.size() - 1);
+            } else {
+                int firstChild = firstChildren[node];
+                copiedIds[node] = arena.addNode(kinds[node], tokenIndices[node],
+                        firstChild == NONE ? NONE : copiedIds[firstChild]);
+            }
+        }
+        // Los hermanos de un nodo conservado también se conservan
+        for (int node = 0; node < size; node++) {
+            if (!removed[node] && nextSiblings[node] != NONE) {
+                arena.nextSiblings[copiedIds[node]] = copiedIds[nextSiblings[node]];
+            }
+        }
+        arena.trim();
+        return arena;
+    }
+
+    /**
+     * Crea un cursor situado en la raíz.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Recorre el árbol en preorden sin recursión.
+     */
+    public void walk(Visitor visitor) {
+        if (size == 0) {
+            return;
+        }
+        walk(getRoot(), visitor);
+    }
+
+    /**
+     * Recorre en preorden solo el subárbol de un nodo. La profundidad que
+     * recibe el visitante es relativa a ese nodo.
+     */
+    public void walk(int root, Visitor visitor) {
+        Cursor cursor = new Cursor(root);
+        while (true) {
+            if (visitor.enter(this, cursor.getNode(), cursor.getDepth()) && cursor.gotoFirstChild()) {
+                continue;
+            }
+            // Cerrar los nodos terminados hasta encontrar un hermano pendiente
+            while (true) {
+                visitor.exit(this, cursor.getNode(), cursor.getDepth());
+                if (cursor.gotoNextSibling()) {
+                    break;
+                }
+                if (!cursor.gotoParent()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Operación aplicada a cada nodo durante walk().
+     */
+    public interface Visitor {
+        /**
+         * Se llama al entrar en un nodo.
+         *
+         * @return true para visitar sus hijos
+         */
+        boolean enter(ParseTreeArena tree, int node, int depth);
+
+        /**
+         * Se llama al salir de un nodo, después de sus hijos.
+         */
+        default void exit(ParseTreeArena tree, int node, int depth) {
+        }
+    }
+
+    /**
+     * Posición dentro del árbol que se mueve entre padres, hijos y hermanos.
+     * Guarda el camino desde la raíz en un arreglo, así que moverse no crea
+     * objetos.
+     */
+    public class Cursor {
+        private int[] path = new int[64];
+        private int depth;
+
+        private Cursor() {
+            this(getRoot());
+        }
+
+        private Cursor(int root) {
+            path[0] = root;
+        }
+
+        public int getNode() { return path[depth]; }
+        public int getDepth() { return depth; }
+        public int getKind() { return kinds[path[depth]]; }
+        public String getSymbol() { return ParseTreeArena.this.getSymbol(path[depth]); }
+        public Token getToken() { return ParseTreeArena.this.getToken(path[depth]); }
+        public boolean isTerminal() { return ParseTreeArena.this.isTerminal(path[depth]); }
+
+        public boolean gotoFirstChild() {
+            int child = firstChildren[path[depth]];
+            if (child == NONE) {
+                return false;
+            }
+            if (depth + 1 == path.length) {
+                path = Arrays.copyOf(path, path.length * 2);
+            }
+            path[++depth] = child;
+            return true;
+        }
+
+        public boolean gotoNextSibling() {
+            if (depth == 0) {
+                return false;
+            }
+            int sibling = nextSiblings[path[depth]];
+            if (sibling == NONE) {
+                return false;
+            }
+            path[depth] = sibling;
+            return true;
+        }
+
+        public boolean gotoParent() {
+            if (depth == 0) {
+                return false;
+            }
+            depth--;
+            return true;
+        }
+
+        /**
+         * Avanza al siguiente nodo en preorden.
+         *
+         * @return false si ya se recorrió todo el árbol (el cursor queda en la raíz)
+         */
+        public boolean gotoNext() {
+            if (gotoFirstChild()) {
+                return true;
+            }
+            do {
+                if (gotoNextSibling()) {
+                    return true;
+                }
+            } while (gotoParent());
+            return false;
+        }
+        
+        /**
+         * Vuelve a la raíz.
+         */
+        public void reset() {
+            depth = 0;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package parser;
+
+import java.util.Arrays;
+
+/**
+ * Recorre un árbol de ParseTreeNode en preorden usando una pila explícita
+ * en lugar de recursión, de modo que la profundidad del árbol no está
+ * limitada por la pila de llamadas y el recorrido no crea objetos por nodo.
+ */
+public class ParseTreeWalker {
+
+    /**
+     * Operación aplicada a cada nodo durante el recorrido.
+     */
+    public interface Listener {
+        /**
+         * Se llama al entrar en un nodo.
+         *
+         * @return true para visitar sus hijos (y recibir exit al terminar)
+         */
+        boolean enter(SLR1Parser.ParseTreeNode node);
+
+        /**
+         * Se llama al salir de un nodo cuyo enter devolvió true, después de sus hijos.
+         */
+        default void exit(SLR1Parser.ParseTreeNode node) {
+        }
+    }
+
+    private SLR1Parser.ParseTreeNode[] nodes = new SLR1Parser.ParseTreeNode[64];
+    private int[] nextChildren = new int[64];
+
+    /**
+     * Recorre el árbol con una pila nueva.
+     */
+    public static void walk(SLR1Parser.ParseTreeNode root, Listener listener) {
+        new ParseTreeWalker().traverse(root, listener);
+    }
+
+    /**
+     * Recorre el árbol reutilizando la pila de este walker.
+     */
+    public void traverse(SLR1Parser.ParseTreeNode root, Listener listener) {
+        if (root == null || !listener.enter(root)) {
+            return;
+        }
+        int top = 0;
+        nodes[0] = root;
+        nextChildren[0] = 0;
+
+        try {
+            while (top >= 0) {
+                SLR1Parser.ParseTreeNode node = nodes[top];
+                int next = nextChildren[top];
+                if (next == node.getChildCount()) {
+                    // Todos los hijos visitados
+                    nodes[top--] = null;
+                    listener.exit(node);
+                    continue;
+                }
+                nextChildren[top] = next + 1;
+
+                SLR1Parser.ParseTreeNode child = node.getChild(next);
+                if (listener.enter(child)) {
+                    if (++top == nodes.length) {
+                        nodes = Arrays.copyOf(nodes, nodes.length * 2);
+                        nextChildren = Arrays.copyOf(nextChildren, nodes.length);
+                    }
+                    nodes[top] = child;
+                    nextChildren[top] = 0;
+                }
+            }
+        } finally {
+            // No retener el árbol si el listener lanzó una excepción
+            Arrays.fill(nodes, 0, Math.max(0, top + 1), null);
+        }
+    }
+}
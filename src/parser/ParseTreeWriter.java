@@ -0,0 +1,82 @@
+package parser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Escribe la representación en texto de un árbol sintáctico (un nodo por
+ * línea, sangrado con dos espacios por nivel) directamente en un
+ * Appendable. El recorrido es iterativo y la sangría se toma de un único
+ * búfer de espacios, así que cada carácter se escribe una sola vez y la
+ * memoria extra solo depende de la profundidad del árbol.
+ */
+public class ParseTreeWriter {
+    private static final int INDENT_WIDTH = 2;
+
+    private final Appendable out;
+    private String indent = " ".repeat(64 * INDENT_WIDTH);
+
+    private ParseTreeWriter(Appendable out) {
+        this.out = out;
+    }
+
+    /**
+     * Escribe el árbol de objetos.
+     */
+    public static void write(SLR1Parser.ParseTreeNode root, Appendable out) throws IOException {
+        ParseTreeWriter writer = new ParseTreeWriter(out);
+        try {
+            ParseTreeWalker.walk(root, new ParseTreeWalker.Listener() {
+                private int depth;
+
+                @Override
+                public boolean enter(SLR1Parser.ParseTreeNode node) {
+                    writer.writeNode(depth++, node.getSymbol(), node.isTerminal() ? node.getValue() : null);
+                    return true;
+                }
+
+                @Override
+                public void exit(SLR1Parser.ParseTreeNode node) {
+                    depth--;
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Escribe el árbol en arreglos con el mismo formato.
+     */
+    public static void write(ParseTreeArena tree, Appendable out) throws IOException {
+        ParseTreeWriter writer = new ParseTreeWriter(out);
+        try {
+            tree.walk((arena, node, depth) -> {
+                writer.writeNode(depth, arena.getSymbol(node), arena.getValue(node));
+                return true;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Escribe una línea: símbolo, y el lexema entre paréntesis en los terminales.
+     */
+    private void writeNode(int depth, String symbol, String value) {
+        try {
+            int width = depth * INDENT_WIDTH;
+            if (width > indent.length()) {
+                indent = " ".repeat(Math.max(width, indent.length() * 2));
+            }
+            out.append(indent, 0, width).append(symbol);
+            if (value != null) {
+                out.append('(').append(value).append(')');
+            }
+            out.append('\n');
+        } catch (IOException e) {
+            // El walker no admite excepciones comprobadas; se recupera en write()
+            throw new UncheckedIOException(e);
+        }
+    }
+}
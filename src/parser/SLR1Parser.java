@@ -1,7 +1,11 @@
 package parser;
 
+import lexer.LexerException;
+import lexer.PipelinedLexer;
 import lexer.Token;
 import lexer.TokenType;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 
 /**
@@ -11,74 +15,176 @@ import java.util.*;
 public class SLR1Parser {
     
     /**
-     * Representa los pasos del análisis sintáctico.
+     * Representa un paso del análisis sintáctico. Es una vista sobre un
+     * {@link ParseTrace}: la pila y la entrada se generan al consultarlas.
      */
     public static class ParseStep {
-    private final int step;
-    private final String stack;
-    private final String input;
-    private final String action;
-    private final String production;
-    
-    public ParseStep(int step, String stack, String input, String action, String production) {
-        this.step = step;
-        this.stack = stack;
-        this.input = input;
-        this.action = action;
-        this.production = production;
-    }
-    
-    // Getters
-    public int getStep() { return step; }
-    public String getStack() { return stack; }
-    public String getInput() { return input; }
-    public String getAction() { return action; }
-    public String getProduction() { return production; }
-}
+        private final ParseTrace trace;
+        private final int index;
+        
+        public ParseStep(ParseTrace trace, int index) {
+            this.trace = trace;
+            this.index = index;
+        }
+        
+        // Getters
+        public int getStep() { return index + 1; }
+        public String getStack() { return trace.renderStack(index); }
+        public String getInput() { return trace.renderInput(index); }
+        public String getAction() { return trace.renderAction(index); }
+        public String getProduction() { return trace.renderProduction(index); }
+    }
 
-    private List<ParseStep> parseSteps = new ArrayList<>();
-    private int currentStep = 0;
+    /**
+     * Nivel de instrumentación del análisis.
+     */
+    public enum TraceLevel {
+        /** Sin instrumentación: el bucle principal no registra nada. */
+        OFF,
+        /** Solo contadores de acciones (ver {@link ParseCounters}). */
+        COUNTERS,
+        /** Contadores y registro completo de pasos para la interfaz. */
+        FULL
+    }
+    
+    private TraceLevel traceLevel = TraceLevel.OFF;
+    private ParseListener parseListener;
+    private final ParseCounters counters = new ParseCounters();
+    private final ParseTraceRecorder traceRecorder = new ParseTraceRecorder();
+    // Observador efectivo del análisis en curso (null si no hay instrumentación)
+    private ParseListener tracer;
+    
+    /**
+     * Símbolo de los nodos que agrupan la entrada descartada durante la
+     * recuperación de errores.
+     */
+    public static final String ERROR_SYMBOL = "error";
+    
+    // IDs de los terminales en los que se detiene el modo pánico
+    private static final int SEMICOLON_ID = Grammar.getTerminalId("SEMICOLON");
+    private static final int RIGHT_BRACE_ID = Grammar.getTerminalId("RIGHT_BRACE");
+    private static final int EOF_ID = Grammar.getTerminalId("$");
 
     /**
      * Representa un nodo del árbol sintáctico.
      */    
     public static class ParseTreeNode {
+        private static final ParseTreeNode[] NO_CHILDREN = new ParseTreeNode[0];
+        
         private final String symbol;
         private final String value;
-        private final List<ParseTreeNode> children;
+        private ParseTreeNode[] children;
+        private int childCount;
         private final boolean isTerminal;
         private final Token token; // Para nodos terminales
+        // Datos para el reanálisis incremental: tokens cubiertos y estados del autómata
+        private int width;
+        private boolean containsError;
+        private int state = -1;
+        private int leftState = -1;
         
         // Constructor para nodos terminales
         public ParseTreeNode(Token token) {
             this.token = token;
             this.symbol = token.getType().name();
             this.value = token.getLexeme();
-            this.children = new ArrayList<>();
+            this.children = NO_CHILDREN;
             this.isTerminal = true;
+            this.width = 1;
         }
         
         // Constructor para nodos no terminales
         public ParseTreeNode(String symbol) {
+            this(symbol, NO_CHILDREN);
+        }
+        
+        /**
+         * Constructor para nodos no terminales con sus hijos ya ordenados.
+         * El arreglo pasa a ser propiedad del nodo.
+         */
+        public ParseTreeNode(String symbol, ParseTreeNode[] children) {
             this.symbol = symbol;
             this.value = null;
-            this.children = new ArrayList<>();
+            this.children = children;
+            this.childCount = children.length;
             this.isTerminal = false;
             this.token = null;
+            this.containsError = ERROR_SYMBOL.equals(symbol);
+            for (ParseTreeNode child : children) {
+                width += child.width;
+                containsError |= child.containsError;
+            }
         }
         
         public String getSymbol() { return symbol; }
         public String getValue() { return value; }
-        public List<ParseTreeNode> getChildren() { return new ArrayList<>(children); }
+        /**
+         * Obtiene una copia modificable de la lista de hijos. Para recorrer
+         * el árbol es preferible getChildCount()/getChild(), que no copian.
+         */
+        public List<ParseTreeNode> getChildren() {
+            return new ArrayList<>(Arrays.asList(children).subList(0, childCount));
+        }
+        
+        public int getChildCount() { return childCount; }
+        
+        public ParseTreeNode getChild(int index) {
+            Objects.checkIndex(index, childCount);
+            return children[index];
+        }
+        
+        /**
+         * Obtiene una vista de solo lectura de los hijos, sin copiarlos.
+         */
+        public List<ParseTreeNode> getChildView() {
+            return Collections.unmodifiableList(Arrays.asList(children).subList(0, childCount));
+        }
         public boolean isTerminal() { return isTerminal; }
         public Token getToken() { return token; }
         
+        /**
+         * Indica si el nodo agrupa entrada descartada por la recuperación de errores.
+         */
+        public boolean isError() {
+            return !isTerminal && ERROR_SYMBOL.equals(symbol);
+        }
+        
+        /**
+         * Obtiene el número de tokens de la entrada que cubre el nodo.
+         */
+        public int getWidth() { return width; }
+        
+        /**
+         * Indica si el nodo o alguno de sus descendientes es un nodo de error
+         * o un token insertado por la recuperación. Estos subárboles nunca se
+         * reutilizan, para que el reanálisis vuelva a informar el error.
+         */
+        public boolean containsError() { return containsError; }
+        
+        /**
+         * Obtiene el estado apilado junto al nodo (-1 si no lo apiló el parser).
+         */
+        public int getState() { return state; }
+        
+        /**
+         * Obtiene el estado que había en la cima de la pila al apilar el nodo,
+         * es decir, su contexto izquierdo (-1 si no lo apiló el parser).
+         */
+        public int getLeftState() { return leftState; }
+        
         public void addChild(ParseTreeNode child) {
-            children.add(child);
+            if (childCount == children.length) {
+                children = Arrays.copyOf(children, Math.max(4, childCount * 2));
+            }
+            children[childCount++] = child;
+            width += child.width;
+            containsError |= child.containsError;
         }
         
         public void addChildren(List<ParseTreeNode> children) {
-            this.children.addAll(children);
+            for (ParseTreeNode child : children) {
+                addChild(child);
+            }
         }
         
         @Override
@@ -92,123 +198,613 @@ public class SLR1Parser {
         
         /**
          * Genera una representación en forma de árbol del nodo y sus hijos.
+         * Para árboles grandes, ParseTreeWriter escribe el mismo texto
+         * directamente en un Writer.
          */
         public String toTreeString() {
-            return toTreeString(0);
+            StringBuilder sb = new StringBuilder(width * 24);
+            try {
+                ParseTreeWriter.write(this, sb);
+            } catch (IOException e) {
+                // StringBuilder no lanza IOException
+                throw new UncheckedIOException(e);
+            }
+            return sb.toString();
         }
+    }
         
-        private String toTreeString(int depth) {
-            StringBuilder sb = new StringBuilder();
-            String indent = "  ".repeat(depth);
-            
-            sb.append(indent).append(toString()).append("\n");
-            
-            for (ParseTreeNode child : children) {
-                sb.append(child.toTreeString(depth + 1));
+    /**
+     * Recorre el árbol de un análisis anterior en orden de posición para
+     * encontrar los subárboles que el reanálisis incremental puede apilar
+     * sin volver a analizarlos. El cursor solo avanza: cada nodo anterior se
+     * visita como mucho una vez por reanálisis.
+     */
+    private static class ReusableNodes {
+        private final TokenEdit edit;
+        // Camino desde la raíz hasta el nodo actual, con la posición inicial de cada nodo
+        private ParseTreeNode[] path = new ParseTreeNode[64];
+        private int[] starts = new int[64];
+        private int[] childIndices = new int[64];
+        private int top;
+        
+        ReusableNodes(ParseTreeNode root, TokenEdit edit) {
+            this.edit = edit;
+            path[0] = root;
+            top = 0;
+        }
+        
+        /**
+         * Busca el subárbol anterior más externo que empieza en la posición
+         * dada, cuyo contexto izquierdo es el estado actual y cuyos tokens
+         * (y el siguiente) no cambiaron.
+         *
+         * @param tokenIndex Posición en la lista de tokens nueva
+         * @param state Estado en la cima de la pila
+         * @return Nodo reutilizable, o null
+         */
+        ParseTreeNode find(int tokenIndex, int state) {
+            int oldIndex = edit.toOldIndex(tokenIndex);
+            if (oldIndex < 0 || !advanceTo(oldIndex)) {
+                return null;
             }
             
-            return sb.toString();
+            for (ParseTreeNode node = path[top]; !node.isTerminal && node.childCount > 0; node = node.children[0]) {
+                if (node.leftState == state && node.width > 0 && !node.containsError
+                        && edit.isUnchanged(oldIndex, node.width)) {
+                    return node;
+                }
+            }
+            return null;
+        }
+        
+        /**
+         * Indica si los tokens de un nodo devuelto por find cambiaron de
+         * posición (por ejemplo, porque la edición insertó una línea antes).
+         */
+        boolean isMoved(int tokenIndex, ParseTreeNode node) {
+            return !edit.keepsPositions(edit.toOldIndex(tokenIndex), node.width);
+        }
+        
+        /**
+         * Avanza el cursor hasta el nodo más externo que empieza en la
+         * posición anterior dada.
+         *
+         * @return false si ningún nodo empieza en esa posición
+         */
+        private boolean advanceTo(int oldIndex) {
+            while (top >= 0) {
+                ParseTreeNode node = path[top];
+                int start = starts[top];
+                if (start + node.width <= oldIndex || node.width == 0) {
+                    nextSibling();
+                } else if (start < oldIndex) {
+                    if (node.childCount == 0) {
+                        nextSibling();
+                    } else {
+                        descend();
+                    }
+                } else {
+                    return start == oldIndex;
+                }
+            }
+            return false;
+        }
+        
+        private void descend() {
+            if (top + 1 == path.length) {
+                path = Arrays.copyOf(path, path.length * 2);
+                starts = Arrays.copyOf(starts, path.length);
+                childIndices = Arrays.copyOf(childIndices, path.length);
+            }
+            path[top + 1] = path[top].children[0];
+            starts[top + 1] = starts[top];
+            childIndices[top + 1] = 0;
+            top++;
+        }
+        
+        private void nextSibling() {
+            while (top > 0) {
+                ParseTreeNode parent = path[top - 1];
+                int next = childIndices[top] + 1;
+                if (next < parent.childCount) {
+                    starts[top] += path[top].width;
+                    path[top] = parent.children[next];
+                    childIndices[top] = next;
+                    return;
+                }
+                path[top--] = null;
+            }
+            top = -1;
         }
     }
         
+    /**
+     * Forma del árbol sintáctico construido por el parser. El análisis
+     * semántico y las fases que dependen de él necesitan árboles FULL.
+     */
+    public enum TreeMode {
+        /** Un nodo por cada reducción, incluidas las producciones unitarias. */
+        FULL,
+        /**
+         * Las producciones unitarias (A -> B) no generan nodos propios. Solo
+         * sirve para mostrar o recorrer el árbol: SemanticAnalyzer lo rechaza.
+         */
+        COLLAPSED
+    }
+        
+    private static final int INITIAL_STACK_CAPACITY = 64;
+    
     private final SLR1Table table;
-    private final Stack<Integer> stateStack;
-    private final Stack<ParseTreeNode> nodeStack;
+    // Pilas del autómata: stateStack[i] es el estado alcanzado al apilar nodeStack[i]
+    private int[] stateStack;
+    private ParseTreeNode[] nodeStack;
+    // Valores de las acciones semánticas (solo con parse(List, SemanticActions))
+    private Object[] valueStack;
+    private int depth;
+    // Mayor profundidad alcanzada: hasta ahí puede haber referencias que liberar
+    private int maxDepth;
     private List<Token> tokens;
     private int currentTokenIndex;
+    private boolean optimizedTables = false;
+    private TreeMode treeMode = TreeMode.FULL;
+    
+    // Recuperación de errores: null si el análisis se detiene en el primer error
+    private List<ParserException> recoveredErrors;
+    // Token insertado por la recuperación a nivel de frase, pendiente de desplazar
+    private Token insertedToken;
+    private int lastInsertionIndex;
+    private int lastRecoveryIndex;
+    
+    // Subárboles del análisis anterior (solo durante un reanálisis incremental)
+    private ReusableNodes reusableNodes;
+    
+    // Lexer concurrente del que llegan los tokens (null si la lista ya está completa)
+    private PipelinedLexer tokenSource;
+    
+    // Acciones semánticas del análisis en curso (null construye el árbol concreto)
+    private SemanticActions semanticActions;
+    private Object acceptedValue;
+    // Arreglo de valores que se pasa a cada reducción, uno por longitud del lado derecho
+    private final Object[][] reductionValues;
+    
+    /**
+     * Error del lexer concurrente; interrumpe el bucle del parser y se
+     * convierte de nuevo en la excepción original en parse(PipelinedLexer).
+     */
+    private static class TokenSourceFailure extends RuntimeException {
+        TokenSourceFailure(Exception cause) {
+            super(cause);
+        }
+    }
     
     public SLR1Parser() {
         // Construir componentes del parser
-        FirstFollowSets firstFollow = new FirstFollowSets();
-        LR0Automaton automaton = new LR0Automaton();
-        this.table = new SLR1Table(automaton, firstFollow);
+        this(new SLR1Table(new LR0Automaton(), new FirstFollowSets()));
+    }
+    
+    /**
+     * Crea un parser que comparte unas tablas ya construidas. Las tablas no
+     * cambian después de construirse, así que varios parsers pueden usarlas
+     * desde hilos distintos.
+     */
+    SLR1Parser(SLR1Table table) {
+        this.table = table;
+        
+        this.stateStack = new int[INITIAL_STACK_CAPACITY];
+        this.nodeStack = new ParseTreeNode[INITIAL_STACK_CAPACITY];
+        this.valueStack = new Object[INITIAL_STACK_CAPACITY];
         
-        this.stateStack = new Stack<>();
-        this.nodeStack = new Stack<>();
+        int maxLength = 1;
+        for (Grammar.Production production : Grammar.getProductions()) {
+            maxLength = Math.max(maxLength, production.getLength());
+        }
+        this.reductionValues = new Object[maxLength + 1][];
+        for (int length = 0; length <= maxLength; length++) {
+            reductionValues[length] = new Object[length];
+        }
+    }
+    
+    /**
+     * Activa el modo de tablas optimizado: reducciones por defecto y
+     * eliminación de las reducciones unitarias como pasos independientes.
+     */
+    public void setOptimizedTables(boolean optimizedTables) {
+        this.optimizedTables = optimizedTables;
+    }
+    
+    SLR1Table getTable() {
+        return table;
+    }
+    
+    public boolean isOptimizedTables() {
+        return optimizedTables;
+    }
+    
+    /**
+     * Define si el árbol conserva los nodos de las producciones unitarias.
+     */
+    public void setTreeMode(TreeMode treeMode) {
+        this.treeMode = treeMode != null ? treeMode : TreeMode.FULL;
+    }
+    
+    public TreeMode getTreeMode() {
+        return treeMode;
+    }
+    
+    /**
+     * Define el nivel de instrumentación de los siguientes análisis.
+     */
+    public void setTraceLevel(TraceLevel traceLevel) {
+        this.traceLevel = traceLevel != null ? traceLevel : TraceLevel.OFF;
+    }
+    
+    public TraceLevel getTraceLevel() {
+        return traceLevel;
+    }
+    
+    /**
+     * Registra un observador propio que recibe todas las acciones del parser,
+     * independientemente del nivel de traza. Con null se elimina.
+     */
+    public void setParseListener(ParseListener parseListener) {
+        this.parseListener = parseListener;
+    }
+    
+    /**
+     * Obtiene los contadores del último análisis (nivel COUNTERS o FULL).
+     */
+    public ParseCounters getCounters() {
+        return counters;
     }
     
     /**
      * Analiza una lista de tokens y construye el árbol sintáctico.
+     * El análisis se detiene en el primer error sintáctico.
      */
     public ParseTreeNode parse(List<Token> tokens) throws ParserException {
-        parseSteps.clear();
-        currentStep = 0;
+        reusableNodes = null;
+        return runParse(tokens, null);
+    }
+    
+    /**
+     * Analiza una lista de tokens recuperándose de los errores sintácticos,
+     * de modo que una sola pasada informa todos los errores.
+     * <p>
+     * Ante un error se intenta primero insertar el ';' que falta al final de
+     * una línea (recuperación a nivel de frase). Si no es posible se aplica el
+     * modo pánico: se descartan tokens hasta un ';' (que también se descarta),
+     * una '}' o el fin de la entrada, y se desapilan estados hasta uno cuyo
+     * conjunto de sincronización admita el token actual. Lo descartado queda
+     * en un nodo {@link #ERROR_SYMBOL} que ocupa el lugar de una sentencia.
+     *
+     * @return Resultado con el árbol (parcial si hubo errores), todos los
+     *         errores encontrados y las advertencias de validación
+     */
+    public ParseResult parseWithRecovery(List<Token> tokens) {
+        return parseWithRecovery(tokens, null, null);
+    }
+    
+    /**
+     * Reanaliza una lista de tokens reutilizando el árbol del análisis
+     * anterior. Cuando la pila llega al mismo estado en el que un subárbol
+     * anterior fue apilado, y ni sus tokens ni el siguiente cambiaron, el
+     * subárbol completo se apila de una vez en lugar de volver a analizarse.
+     * Así el trabajo es proporcional al tamaño de la edición y no al del
+     * archivo. El árbol anterior debe provenir de un parser con la misma
+     * configuración (tablas optimizadas y modo de árbol).
+     *
+     * @param tokens Lista de tokens nueva
+     * @param previousTree Árbol del análisis anterior (null analiza desde cero)
+     * @param edit Edición que transforma los tokens anteriores en los nuevos
+     */
+    public ParseResult parseWithRecovery(List<Token> tokens, ParseTreeNode previousTree, TokenEdit edit) {
+        long startTime = System.currentTimeMillis();
+        List<String> warnings = validateTokens(tokens);
+        List<ParserException> errors = new ArrayList<>();
+        
+        ParseTreeNode parseTree;
+        try {
+            reusableNodes = previousTree != null && edit != null ? new ReusableNodes(previousTree, edit) : null;
+            parseTree = runParse(tokens, errors);
+        } catch (ParserException e) {
+            // Error interno del autómata: no hay recuperación posible
+            errors.add(e);
+            parseTree = null;
+        } finally {
+            reusableNodes = null;
+        }
         
+        return new ParseResult(parseTree, errors, warnings, System.currentTimeMillis() - startTime);
+    }
+    
+    /**
+     * Analiza una lista de tokens ejecutando las acciones semánticas dadas
+     * en cada desplazamiento y reducción, sin construir el árbol sintáctico
+     * concreto. El análisis se detiene en el primer error sintáctico.
+     *
+     * @return Valor calculado para el símbolo inicial (program)
+     */
+    public Object parse(List<Token> tokens, SemanticActions actions) throws ParserException {
+        reusableNodes = null;
+        semanticActions = actions;
+        try {
+            runParse(tokens, null);
+            return acceptedValue;
+        } finally {
+            semanticActions = null;
+            acceptedValue = null;
+        }
+    }
+    
+    /**
+     * Analiza los tokens a medida que los produce un lexer que se ejecuta en
+     * otro hilo, solapando el análisis léxico con el sintáctico. El parser
+     * solo espera cuando alcanza al lexer. Se detiene en el primer error.
+     *
+     * @param lexer Lexer ya iniciado; se detiene al terminar el análisis
+     * @throws LexerException Si el lexer falla antes de que el parser termine
+     */
+    public ParseTreeNode parse(PipelinedLexer lexer) throws ParserException, LexerException {
+        reusableNodes = null;
+        tokenSource = lexer;
+        try {
+            return runParse(new ArrayList<>(), null);
+        } catch (TokenSourceFailure e) {
+            throw unwrap(e);
+        } finally {
+            tokenSource = null;
+            lexer.close();
+        }
+    }
+    
+    /**
+     * Igual que {@link #parse(PipelinedLexer)}, pero recuperándose de los
+     * errores sintácticos como {@link #parseWithRecovery(List)}.
+     *
+     * @throws LexerException Si el lexer falla antes de que el parser termine
+     */
+    public ParseResult parseWithRecovery(PipelinedLexer lexer) throws LexerException {
+        long startTime = System.currentTimeMillis();
+        List<ParserException> errors = new ArrayList<>();
+        
+        reusableNodes = null;
+        tokenSource = lexer;
+        ParseTreeNode parseTree;
+        try {
+            parseTree = runParse(new ArrayList<>(), errors);
+        } catch (ParserException e) {
+            errors.add(e);
+            parseTree = null;
+        } catch (TokenSourceFailure e) {
+            throw unwrap(e);
+        } finally {
+            tokenSource = null;
+            lexer.close();
+        }
+        
+        List<String> warnings = validateTokens(tokens);
+        return new ParseResult(parseTree, errors, warnings, System.currentTimeMillis() - startTime);
+    }
+    
+    private static LexerException unwrap(TokenSourceFailure failure) {
+        if (failure.getCause() instanceof LexerException lexerError) {
+            return lexerError;
+        }
+        // Interrupción mientras se esperaban tokens
+        Thread.currentThread().interrupt();
+        LexerException interrupted = new LexerException("Análisis interrumpido mientras se esperaban tokens", 0, 0);
+        interrupted.initCause(failure.getCause());
+        return interrupted;
+    }
+    
+    private ParseTreeNode runParse(List<Token> tokens, List<ParserException> recoveredErrors) throws ParserException {
         this.tokens = new ArrayList<>(tokens);
         this.currentTokenIndex = 0;
+        this.recoveredErrors = recoveredErrors;
+        this.insertedToken = null;
+        this.lastInsertionIndex = -1;
+        this.lastRecoveryIndex = -1;
         
-        // Agregar token EOF si no existe
-        if (tokens.isEmpty() || tokens.get(tokens.size() - 1).getType() != TokenType.EOF) {
-            Token eofToken = new Token(TokenType.EOF, "$", 
-                                     tokens.isEmpty() ? 1 : tokens.get(tokens.size() - 1).getLine(),
-                                     tokens.isEmpty() ? 1 : tokens.get(tokens.size() - 1).getColumn() + 1);
-            this.tokens.add(eofToken);
+        // Con un lexer concurrente el EOF se agrega al recibir el último lote
+        if (tokenSource == null) {
+            appendEof();
         }
         
-        // Inicializar pilas
-        stateStack.clear();
-        nodeStack.clear();
-        stateStack.push(0); // Estado inicial
+        // Inicializar pilas con el estado inicial
+        depth = 0;
+        maxDepth = 0;
+        stateStack[0] = 0;
+        nodeStack[0] = null;
+        
+        tracer = buildTracer();
+        if (tracer != null) {
+            tracer.onParseStart(Collections.unmodifiableList(this.tokens));
+        }
         
+        try {
+            return run();
+        } finally {
+            // Liberar las referencias al árbol que quedan en la pila
+            Arrays.fill(nodeStack, 0, Math.min(nodeStack.length, maxDepth + 1), null);
+            Arrays.fill(valueStack, 0, Math.min(valueStack.length, maxDepth + 1), null);
+        }
+    }
+    
+    /**
+     * Bucle principal del autómata LR.
+     */
+    private ParseTreeNode run() throws ParserException {
         while (true) {
             Token currentToken = getCurrentToken();
-            String terminal = mapTokenToTerminal(currentToken);
-            int currentState = stateStack.peek();
+            int currentState = stateStack[depth];
 
-            SLR1Table.Action action = table.getAction(currentState, terminal);
+            // Reanálisis incremental: apilar un subárbol anterior sin analizarlo
+            if (reusableNodes != null && insertedToken == null) {
+                ParseTreeNode reused = reusableNodes.find(currentTokenIndex, currentState);
+                if (reused != null) {
+                    reuse(reused);
+                    continue;
+                }
+            }
 
-            // Registrar paso ANTES de ejecutar la acción
-            String productionStr = "";
-            if (action.getType() == SLR1Table.ActionType.REDUCE) {
-                productionStr = Grammar.getProduction(action.getValue()).toString();
+            // Reducción por defecto: no hace falta consultar la anticipación
+            if (optimizedTables) {
+                int defaultProduction = table.getDefaultReduction(currentState);
+                if (defaultProduction >= 0) {
+                    reduce(defaultProduction);
+                    continue;
+                }
             }
 
-            parseSteps.add(new ParseStep(
-                ++currentStep,
-                stateStack.toString(),
-                getRemainingInput(),
-                action.toString(),
-                productionStr
-            ));
+            int action = table.getActionCode(currentState, Grammar.getTerminalId(currentToken.getType()));
             
-            switch (action.getType()) {
-                case SHIFT:
-                    shift(action.getValue());
+            switch (SLR1Table.actionType(action)) {
+                case SLR1Table.ACTION_SHIFT:
+                    shift(SLR1Table.actionValue(action));
                     break;
                     
-                case REDUCE:
-                    reduce(action.getValue());
+                case SLR1Table.ACTION_REDUCE:
+                    reduce(SLR1Table.actionValue(action));
                     break;
                     
-                case ACCEPT:
-                    if (nodeStack.size() == 1) {
-                        return nodeStack.peek();
+                case SLR1Table.ACTION_ACCEPT:
+                    if (tracer != null) {
+                        tracer.onAccept(currentState, currentTokenIndex);
+                    }
+                    if (depth == 1) {
+                        acceptedValue = valueStack[1];
+                        return nodeStack[1];
                     } else {
                         throw new ParserException("Parser internal error: multiple nodes on stack", currentToken);
                     }
                     
-                case ERROR:
-                    handleError(currentToken, currentState);
+                default:
+                    if (tracer != null) {
+                        tracer.onError(currentState, currentTokenIndex);
+                    }
+                    ParserException error = createSyntaxError(currentToken, currentState);
+                    if (recoveredErrors == null) {
+                        throw error;
+                    }
+                    recoveredErrors.add(error);
+                    if (!recover()) {
+                        return partialTree();
+                    }
                     break;
             }
         }
     }
     
+    /**
+     * Apila un estado junto con su nodo, ampliando las pilas si es necesario.
+     */
+    private void push(int state, ParseTreeNode node) {
+        if (++depth == stateStack.length) {
+            int capacity = stateStack.length * 2;
+            stateStack = Arrays.copyOf(stateStack, capacity);
+            nodeStack = Arrays.copyOf(nodeStack, capacity);
+            valueStack = Arrays.copyOf(valueStack, capacity);
+        }
+        maxDepth = Math.max(maxDepth, depth);
+        stateStack[depth] = state;
+        nodeStack[depth] = node;
+        if (node != null) {
+            node.state = state;
+            node.leftState = stateStack[depth - 1];
+        }
+    }
+    
     /**
      * Ejecuta una acción SHIFT.
      */
     private void shift(int nextState) {
-        Token currentToken = getCurrentToken();
+        if (tracer != null) {
+            tracer.onShift(stateStack[depth], currentTokenIndex, nextState);
+        }
         
-        // Crear nodo terminal y agregarlo a la pila
-        ParseTreeNode terminalNode = new ParseTreeNode(currentToken);
-        nodeStack.push(terminalNode);
+        // Crear nodo terminal (o su valor semántico) y apilarlo con el siguiente estado
+        Token token = getCurrentToken();
+        ParseTreeNode node = semanticActions == null ? new ParseTreeNode(token) : null;
+        push(nextState, node);
+        if (semanticActions != null) {
+            valueStack[depth] = semanticActions.shift(token);
+        }
         
-        // Cambiar al siguiente estado
-        stateStack.push(nextState);
+        // Avanzar al siguiente token (el token insertado no ocupa posición en la entrada)
+        if (insertedToken != null) {
+            insertedToken = null;
+            if (node != null) {
+                node.width = 0;
+                node.containsError = true;
+            }
+        } else {
+            currentTokenIndex++;
+        }
+    }
+    
+    /**
+     * Apila un subárbol del análisis anterior y salta sus tokens. Si sus
+     * tokens se desplazaron, se apila una copia con los tokens nuevos, que
+     * no vuelve a ejecutar el autómata.
+     */
+    private void reuse(ParseTreeNode node) {
+        if (tracer != null) {
+            tracer.onReuse(stateStack[depth], currentTokenIndex, node.width, node.state);
+        }
+        if (reusableNodes.isMoved(currentTokenIndex, node)) {
+            node = relocate(node, currentTokenIndex);
+        }
+        push(node.state, node);
+        currentTokenIndex += node.width;
+    }
+    
+    /**
+     * Copia un subárbol no terminal sustituyendo sus terminales por los
+     * tokens nuevos a partir de la posición dada. La copia conserva los
+     * estados de cada nodo, así que puede volver a reutilizarse. Usa una
+     * pila explícita, como ParseTreeWriter.
+     */
+    private ParseTreeNode relocate(ParseTreeNode root, int tokenIndex) {
+        ParseTreeNode[] pending = new ParseTreeNode[64];
+        ParseTreeNode[][] copiedChildren = new ParseTreeNode[64][];
+        int[] nextChild = new int[64];
+        int top = 0;
+        pending[0] = root;
+        copiedChildren[0] = new ParseTreeNode[root.childCount];
+        int position = tokenIndex;
         
-        // Avanzar al siguiente token
-        currentTokenIndex++;
+        while (true) {
+            ParseTreeNode node = pending[top];
+            if (nextChild[top] < node.childCount) {
+                ParseTreeNode child = node.children[nextChild[top]];
+                if (child.isTerminal) {
+                    ParseTreeNode copy = new ParseTreeNode(tokens.get(position++));
+                    copy.state = child.state;
+                    copy.leftState = child.leftState;
+                    copiedChildren[top][nextChild[top]++] = copy;
+                    continue;
+                }
+                if (++top == pending.length) {
+                    pending = Arrays.copyOf(pending, top * 2);
+                    copiedChildren = Arrays.copyOf(copiedChildren, top * 2);
+                    nextChild = Arrays.copyOf(nextChild, top * 2);
+                }
+                pending[top] = child;
+                copiedChildren[top] = new ParseTreeNode[child.childCount];
+                nextChild[top] = 0;
+                continue;
+            }
+            
+            ParseTreeNode copy = new ParseTreeNode(node.symbol, copiedChildren[top]);
+            copy.state = node.state;
+            copy.leftState = node.leftState;
+            pending[top] = null;
+            copiedChildren[top] = null;
+            if (--top < 0) {
+                return copy;
+            }
+            copiedChildren[top][nextChild[top]++] = copy;
+        }
     }
     
     /**
@@ -220,65 +816,329 @@ public class SLR1Parser {
             throw new ParserException("Invalid production ID: " + productionId, getCurrentToken());
         }
         
-        // Crear nodo no terminal
-        ParseTreeNode nonTerminalNode = new ParseTreeNode(production.getLeft());
-        
-        // Desapilar símbolos y estados según la longitud de la producción
-        List<ParseTreeNode> children = new ArrayList<>();
-        for (int i = 0; i < production.getLength(); i++) {
-            if (!stateStack.isEmpty()) {
-                stateStack.pop();
-            }
-            if (!nodeStack.isEmpty()) {
-                children.add(0, nodeStack.pop()); // Insertar al inicio para mantener orden
-            }
+        int state = stateStack[depth];
+        int length = production.getLength();
+        if (length > depth) {
+            throw new ParserException("Parser internal error: stack underflow reducing " + production,
+                                   getCurrentToken());
         }
         
-        // Agregar hijos al nodo no terminal
-        nonTerminalNode.addChildren(children);
+        // Desapilar los hijos en orden; en modo COLLAPSED la producción unitaria reutiliza al hijo
+        ParseTreeNode nonTerminalNode = null;
+        Object value = null;
+        if (semanticActions != null) {
+            Object[] values = reductionValues[length];
+            System.arraycopy(valueStack, depth - length + 1, values, 0, length);
+            Arrays.fill(valueStack, depth - length + 1, depth + 1, null);
+            value = semanticActions.reduce(production, values);
+            Arrays.fill(values, null);
+        } else if (treeMode == TreeMode.COLLAPSED && production.isUnit()) {
+            nonTerminalNode = nodeStack[depth];
+        } else {
+            ParseTreeNode[] children = new ParseTreeNode[length];
+            System.arraycopy(nodeStack, depth - length + 1, children, 0, length);
+            nonTerminalNode = new ParseTreeNode(production.getLeft(), children);
+        }
+        depth -= length;
         
         // Obtener el estado actual después de desapilar
-        int currentState = stateStack.isEmpty() ? 0 : stateStack.peek();
+        int currentState = stateStack[depth];
         
         // Consultar tabla GOTO
-        Integer gotoState = table.getGoto(currentState, production.getLeft());
-        if (gotoState == null) {
-            throw new ParserException("GOTO undefined for state " + currentState + 
+        int gotoState = gotoOrThrow(currentState, production);
+        
+        // Encadenar las reducciones unitarias sin apilar estados intermedios
+        if (optimizedTables) {
+            int terminalId = Grammar.getTerminalId(getCurrentToken().getType());
+            Grammar.Production unit;
+            while ((unit = table.getUnitReduction(gotoState, terminalId)) != null) {
+                if (semanticActions != null) {
+                    Object[] values = reductionValues[1];
+                    values[0] = value;
+                    value = semanticActions.reduce(unit, values);
+                    values[0] = null;
+                } else if (treeMode == TreeMode.FULL) {
+                    nonTerminalNode = new ParseTreeNode(unit.getLeft(), new ParseTreeNode[]{nonTerminalNode});
+                }
+                gotoState = gotoOrThrow(currentState, unit);
+            }
+        }
+        
+        // Apilar el nuevo nodo (o valor) y estado
+        push(gotoState, nonTerminalNode);
+        if (semanticActions != null) {
+            valueStack[depth] = value;
+        }
+        
+        if (tracer != null) {
+            tracer.onReduce(state, currentTokenIndex, production, gotoState);
+        }
+    }
+    
+    /**
+     * Combina los observadores activos según el nivel de traza.
+     */
+    private ParseListener buildTracer() {
+        List<ParseListener> listeners = new ArrayList<>(3);
+        if (traceLevel != TraceLevel.OFF) {
+            listeners.add(counters);
+        }
+        if (traceLevel == TraceLevel.FULL) {
+            listeners.add(traceRecorder);
+        }
+        if (parseListener != null) {
+            listeners.add(parseListener);
+        }
+        
+        if (listeners.isEmpty()) {
+            return null;
+        }
+        if (listeners.size() == 1) {
+            return listeners.get(0);
+        }
+        ParseListener[] all = listeners.toArray(new ParseListener[0]);
+        return new ParseListener() {
+            @Override
+            public void onParseStart(List<Token> tokens) {
+                for (ParseListener listener : all) listener.onParseStart(tokens);
+            }
+            
+            @Override
+            public void onShift(int state, int tokenIndex, int nextState) {
+                for (ParseListener listener : all) listener.onShift(state, tokenIndex, nextState);
+            }
+            
+            @Override
+            public void onReduce(int state, int tokenIndex, Grammar.Production production, int gotoState) {
+                for (ParseListener listener : all) listener.onReduce(state, tokenIndex, production, gotoState);
+            }
+            
+            @Override
+            public void onAccept(int state, int tokenIndex) {
+                for (ParseListener listener : all) listener.onAccept(state, tokenIndex);
+            }
+            
+            @Override
+            public void onError(int state, int tokenIndex) {
+                for (ParseListener listener : all) listener.onError(state, tokenIndex);
+            }
+            
+            @Override
+            public void onRecover(int tokenIndex, int poppedStates, int resumeState) {
+                for (ParseListener listener : all) listener.onRecover(tokenIndex, poppedStates, resumeState);
+            }
+            
+            @Override
+            public void onReuse(int state, int tokenIndex, int width, int nextState) {
+                for (ParseListener listener : all) listener.onReuse(state, tokenIndex, width, nextState);
+            }
+        };
+    }
+    
+    /**
+     * Consulta la tabla GOTO y falla si la transición no existe.
+     */
+    private int gotoOrThrow(int state, Grammar.Production production) throws ParserException {
+        int gotoState = table.getGotoState(state, production.getLeftId());
+        if (gotoState < 0) {
+            throw new ParserException("GOTO undefined for state " + state + 
                                    " and symbol " + production.getLeft(), getCurrentToken());
         }
+        return gotoState;
+    }
+    
+    /**
+     * Representa la pila de estados con el mismo formato que java.util.Stack.
+     */
+    private String stackToString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i <= depth; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(stateStack[i]);
+        }
+        return sb.append(']').toString();
+    }
+    
+    /**
+     * Se recupera del error en el token actual.
+     *
+     * @return false si no hay forma de continuar el análisis
+     */
+    private boolean recover() {
+        // Recuperación a nivel de frase: falta el ';' al final de la línea anterior
+        if (insertedToken == null && lastInsertionIndex != currentTokenIndex && currentTokenIndex > 0) {
+            Token previous = tokens.get(currentTokenIndex - 1);
+            Token current = getCurrentToken();
+            if ((current.getLine() > previous.getLine() || current.getType() == TokenType.EOF
+                    || current.getType() == TokenType.RIGHT_BRACE)
+                    && canShift(depth, -1, SEMICOLON_ID)) {
+                lastInsertionIndex = currentTokenIndex;
+                insertedToken = new Token(TokenType.SEMICOLON, ";", previous.getLine(),
+                                          previous.getColumn() + previous.getLexeme().length());
+                return true;
+            }
+        }
+        insertedToken = null;
+        
+        // Modo pánico: lo descartado se agrupa en un nodo de error
+        List<ParseTreeNode> discarded = new ArrayList<>();
+        if (currentTokenIndex == lastRecoveryIndex) {
+            // La recuperación anterior no avanzó: descartar al menos un token
+            if (getCurrentToken().getType() == TokenType.EOF) {
+                return false;
+            }
+            discarded.add(new ParseTreeNode(getCurrentToken()));
+            currentTokenIndex++;
+        }
+        skipToSynchronizingToken(discarded);
         
-        // Apilar el nuevo nodo y estado
-        nodeStack.push(nonTerminalNode);
-        stateStack.push(gotoState);
+        int popped = 0;
+        while (true) {
+            int terminalId = Grammar.getTerminalId(getCurrentToken().getType());
+            
+            // Desapilar hasta un estado que pueda continuar tras una sentencia de error
+            int base = depth;
+            while (base >= 0 && !(table.isSynchronizing(stateStack[base], terminalId)
+                    && canShift(base, table.getRecoveryGoto(stateStack[base]), terminalId))) {
+                base--;
+            }
+            
+            if (base >= 0) {
+                for (int i = base + 1; i <= depth; i++) {
+                    discarded.add(popped++, nodeStack[i]);
+                    nodeStack[i] = null;
+                }
+                depth = base;
+                int resumeState = table.getRecoveryGoto(stateStack[depth]);
+                push(resumeState, new ParseTreeNode(ERROR_SYMBOL, discarded.toArray(new ParseTreeNode[0])));
+                lastRecoveryIndex = currentTokenIndex;
+                if (tracer != null) {
+                    tracer.onRecover(currentTokenIndex, popped, resumeState);
+                }
+                return true;
+            }
+            
+            // Ningún estado de la pila admite el token: descartarlo y seguir buscando
+            if (getCurrentToken().getType() == TokenType.EOF) {
+                return false;
+            }
+            discarded.add(new ParseTreeNode(getCurrentToken()));
+            currentTokenIndex++;
+        }
     }
     
     /**
-     * Maneja errores sintácticos.
+     * Descarta tokens hasta un ';' (incluido), una '}' o el fin de la entrada.
      */
-    private void handleError(Token errorToken, int currentState) throws ParserException {
-        StringBuilder expectedSymbols = new StringBuilder();
+    private void skipToSynchronizingToken(List<ParseTreeNode> discarded) {
+        while (true) {
+            Token token = getCurrentToken();
+            int terminalId = Grammar.getTerminalId(token.getType());
+            if (terminalId == SEMICOLON_ID || terminalId == RIGHT_BRACE_ID || terminalId == EOF_ID) {
+                if (token.getType() == TokenType.SEMICOLON) {
+                    discarded.add(new ParseTreeNode(token));
+                    currentTokenIndex++;
+                }
+                return;
+            }
+            discarded.add(new ParseTreeNode(token));
+            currentTokenIndex++;
+        }
+    }
+    
+    /**
+     * Simula, sin modificar las pilas, si el terminal puede desplazarse (o
+     * aceptarse) partiendo de stateStack[0..base] con el estado extra apilado
+     * encima (-1 si no hay estado extra). Las reducciones SLR(1) se aplican
+     * con los mismos conjuntos FOLLOW que el análisis real.
+     */
+    private boolean canShift(int base, int extraState, int terminalId) {
+        int[] extra = new int[8];
+        int count = 0;
+        if (extraState >= 0) {
+            extra[count++] = extraState;
+        }
         
-        // Encontrar símbolos esperados consultando la tabla ACTION
-        for (String terminal : Grammar.getTerminals()) {
-            SLR1Table.Action action = table.getAction(currentState, terminal);
-            if (action.getType() != SLR1Table.ActionType.ERROR) {
-                if (expectedSymbols.length() > 0) {
-                    expectedSymbols.append(", ");
+        while (true) {
+            int state = count > 0 ? extra[count - 1] : stateStack[base];
+            int action = table.getActionCode(state, terminalId);
+            switch (SLR1Table.actionType(action)) {
+                case SLR1Table.ACTION_SHIFT:
+                case SLR1Table.ACTION_ACCEPT:
+                    return true;
+                case SLR1Table.ACTION_ERROR:
+                    return false;
+                default:
+                    break;
+            }
+            
+            Grammar.Production production = Grammar.getProduction(SLR1Table.actionValue(action));
+            int length = production.getLength();
+            if (length <= count) {
+                count -= length;
+            } else {
+                base -= length - count;
+                count = 0;
+                if (base < 0) {
+                    return false;
                 }
-                expectedSymbols.append(terminal);
             }
+            
+            int top = count > 0 ? extra[count - 1] : stateStack[base];
+            int gotoState = table.getGotoState(top, production.getLeftId());
+            if (gotoState < 0) {
+                return false;
+            }
+            if (count == extra.length) {
+                extra = Arrays.copyOf(extra, count * 2);
+            }
+            extra[count++] = gotoState;
+        }
+    }
+    
+    /**
+     * Árbol parcial cuando la recuperación no puede continuar: agrupa los
+     * nodos que quedaron en la pila.
+     */
+    private ParseTreeNode partialTree() {
+        ParseTreeNode[] children = new ParseTreeNode[depth];
+        System.arraycopy(nodeStack, 1, children, 0, depth);
+        return new ParseTreeNode(ERROR_SYMBOL, children);
+    }
+    
+    /**
+     * Construye la excepción para un error sintáctico.
+     */
+    private ParserException createSyntaxError(Token errorToken, int currentState) {
+        StringBuilder expectedSymbols = new StringBuilder();
+        
+        // Símbolos esperados: conjunto precalculado al construir la tabla
+        BitSet expected = table.getExpectedTerminals(currentState);
+        for (int id = expected.nextSetBit(0); id >= 0; id = expected.nextSetBit(id + 1)) {
+            if (expectedSymbols.length() > 0) {
+                expectedSymbols.append(", ");
+            }
+            expectedSymbols.append(Grammar.getTerminalName(id));
         }
         
         String message = String.format("Syntax error at line %d, column %d: unexpected token '%s'",
                                      errorToken.getLine(), errorToken.getColumn(), errorToken.getLexeme());
         
-        throw new ParserException(message, errorToken, expectedSymbols.toString(), currentState);
+        return new ParserException(message, errorToken, expectedSymbols.toString(), currentState);
     }
     
     /**
      * Obtiene el token actual.
      */
     private Token getCurrentToken() {
+        if (insertedToken != null) {
+            return insertedToken;
+        }
+        while (currentTokenIndex >= tokens.size() && tokenSource != null) {
+            fetchTokens();
+        }
         if (currentTokenIndex >= tokens.size()) {
             // Retornar último token (debería ser EOF)
             return tokens.get(tokens.size() - 1);
@@ -286,46 +1146,44 @@ public class SLR1Parser {
         return tokens.get(currentTokenIndex);
     }
     
+    /**
+     * Espera el siguiente lote del lexer concurrente; al final de la entrada
+     * agrega el EOF y deja de consultar al lexer.
+     */
+    private void fetchTokens() {
+        try {
+            List<Token> batch = tokenSource.nextBatch();
+            if (batch != null) {
+                tokens.addAll(batch);
+            } else {
+                tokenSource = null;
+                appendEof();
+            }
+        } catch (LexerException | InterruptedException e) {
+            throw new TokenSourceFailure(e);
+        }
+    }
+    
+    /**
+     * Agrega el token EOF si la lista no termina con él.
+     */
+    private void appendEof() {
+        if (tokens.isEmpty() || tokens.get(tokens.size() - 1).getType() != TokenType.EOF) {
+            Token eofToken = new Token(TokenType.EOF, "$", 
+                                     tokens.isEmpty() ? 1 : tokens.get(tokens.size() - 1).getLine(),
+                                     tokens.isEmpty() ? 1 : tokens.get(tokens.size() - 1).getColumn() + 1);
+            tokens.add(eofToken);
+        }
+    }
+    
     /**
      * Mapea un token a su representación terminal en la gramática.
+     * El bucle del parser usa directamente {@link Grammar#getTerminalId(TokenType)};
+     * este nombre solo se usa para mostrar trazas y mensajes.
      */
-    private String mapTokenToTerminal(Token token) {
-        return switch (token.getType()) {
-            case INT ->
-                "INT";
-            case FLOAT ->
-                "FLOAT";
-            case IDENTIFIER ->
-                "IDENTIFIER";
-            case INTEGER ->
-                "INTEGER";
-            case ASSIGN ->
-                "ASSIGN";
-            case SEMICOLON ->
-                "SEMICOLON";
-            case PLUS ->
-                "PLUS";
-            case MINUS ->
-                "MINUS";
-            case MULTIPLY ->
-                "MULTIPLY";
-            case DIVIDE ->
-                "DIVIDE";
-            case LEFT_PAREN ->
-                "LEFT_PAREN";
-            case RIGHT_PAREN ->
-                "RIGHT_PAREN";
-            case STRING ->
-                "STRING";
-            case STRING_LITERAL ->
-                "STRING_LITERAL";
-            case VOID ->
-                "VOID";
-            case EOF ->
-                "$";
-            default ->
-                token.getType().name();
-        };
+    static String mapTokenToTerminal(Token token) {
+        int terminalId = Grammar.getTerminalId(token.getType());
+        return terminalId >= 0 ? Grammar.getTerminalName(terminalId) : token.getType().name();
     }
     
     /**
@@ -333,11 +1191,9 @@ public class SLR1Parser {
      */
     public List<String> validateTokens(List<Token> tokens) {
         List<String> warnings = new ArrayList<>();
-        Set<String> validTerminals = Grammar.getTerminals();
         
         for (Token token : tokens) {
-            String terminal = mapTokenToTerminal(token);
-            if (!validTerminals.contains(terminal)) {
+            if (Grammar.getTerminalId(token.getType()) < 0) {
                 warnings.add(String.format("Warning: Token '%s' at line %d, column %d not recognized by grammar",
                                          token.getLexeme(), token.getLine(), token.getColumn()));
             }
@@ -347,17 +1203,18 @@ public class SLR1Parser {
     }
     
     /**
-     * Método auxiliar para obtener la entrada restante.
+     * Obtiene los pasos del último análisis. Solo se registran con el nivel
+     * de traza FULL; en otro caso la lista está vacía.
      */
-    private String getRemainingInput() {
-        StringBuilder sb = new StringBuilder();
-        for (int i = currentTokenIndex; i < tokens.size(); i++) {
-            sb.append(mapTokenToTerminal(tokens.get(i))).append(" ");
-        }
-        return sb.toString().trim();
-    }
     public List<ParseStep> getParseSteps() {
-        return new ArrayList<>(parseSteps);
+        return traceLevel == TraceLevel.FULL ? traceRecorder.getSteps() : new ArrayList<>();
+    }
+    
+    /**
+     * Obtiene la traza compacta del último análisis (nivel FULL), o null.
+     */
+    public ParseTrace getParseTrace() {
+        return traceLevel == TraceLevel.FULL ? traceRecorder.getTrace() : null;
     }
     
     /**
@@ -366,7 +1223,7 @@ public class SLR1Parser {
     public String getDebugInfo() {
         StringBuilder debug = new StringBuilder();
         debug.append("=== INFORMACIÓN DEL PARSER SLR(1) ===\n");
-        debug.append("Estados en la pila: ").append(stateStack).append("\n");
+        debug.append("Estados en la pila: ").append(stackToString()).append("\n");
         debug.append("Tokens procesados: ").append(currentTokenIndex).append("/").append(tokens.size()).append("\n");
         
         
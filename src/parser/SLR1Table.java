@@ -44,8 +44,44 @@ public class SLR1Table {
         }
     }
     
+    private static final Action ERROR_ACTION = new Action(ActionType.ERROR);
+    
+    /**
+     * Tipos de acción de la tabla compilada (ver {@link #getActionCode}).
+     */
+    public static final int ACTION_ERROR = 0;
+    public static final int ACTION_SHIFT = 1;
+    public static final int ACTION_REDUCE = 2;
+    public static final int ACTION_ACCEPT = 3;
+    private static final int ACTION_TYPE_BITS = 2;
+    private static final int ACTION_TYPE_MASK = (1 << ACTION_TYPE_BITS) - 1;
+    
+    /**
+     * No terminal con el que se reanuda el análisis tras un error: la
+     * porción descartada de la entrada se sustituye por una sentencia.
+     */
+    public static final String RECOVERY_SYMBOL = "stmt";
+    
     private final Map<Integer, Map<String, Action>> actionTable;
     private final Map<Integer, Map<String, Integer>> gotoTable;
+    // Celdas con conflicto sin resolver: todas las acciones posibles, para el parser GLR
+    private final Map<Integer, Map<String, List<Action>>> conflictTable;
+    private final Map<Integer, int[]> conflictCodes;
+    private final BitSet conflictCells;
+    // Filas indexadas por estado para consultar sin autoboxing
+    private final List<Map<String, Action>> actionRows;
+    private final List<Map<String, Integer>> gotoRows;
+    // Tablas compiladas: una fila por estado, una columna por ID de (no) terminal
+    private final int terminalCount;
+    private final int nonTerminalCount;
+    private final int[] actionCodes;
+    private final int[] gotoStates;
+    private final int[] defaultReductions;
+    // Terminales con acción válida en cada estado, indexados por ID de terminal
+    private final BitSet[] expectedTerminals;
+    // Recuperación de errores: GOTO sobre RECOVERY_SYMBOL y terminales de sincronización por estado
+    private final int[] recoveryGotos;
+    private final BitSet[] synchronizingTerminals;
     private final LR0Automaton automaton;
     private final FirstFollowSets firstFollow;
     
@@ -54,7 +90,26 @@ public class SLR1Table {
         this.firstFollow = firstFollow;
         this.actionTable = new HashMap<>();
         this.gotoTable = new HashMap<>();
+        this.conflictTable = new HashMap<>();
+        this.conflictCodes = new HashMap<>();
+        this.conflictCells = new BitSet();
         buildTables();
+        this.actionRows = new ArrayList<>();
+        this.gotoRows = new ArrayList<>();
+        for (int i = 0; i < automaton.getStates().size(); i++) {
+            actionRows.add(actionTable.getOrDefault(i, Map.of()));
+            gotoRows.add(gotoTable.getOrDefault(i, Map.of()));
+        }
+        this.terminalCount = Grammar.getTerminalCount();
+        this.nonTerminalCount = Grammar.getNonTerminalCount();
+        this.actionCodes = new int[actionRows.size() * terminalCount];
+        this.gotoStates = new int[gotoRows.size() * nonTerminalCount];
+        compileTables();
+        this.defaultReductions = buildDefaultReductions();
+        this.expectedTerminals = buildExpectedTerminals();
+        this.recoveryGotos = new int[actionRows.size()];
+        this.synchronizingTerminals = new BitSet[actionRows.size()];
+        buildRecoverySets();
     }
     
     /**
@@ -93,16 +148,17 @@ public class SLR1Table {
                     
                     for (String terminal : followSet) {
                         Action existingAction = stateActions.get(terminal);
+                        Action reduceAction = new Action(ActionType.REDUCE, item.getProduction().getId());
                         if (existingAction != null) {
-                            if (terminal.equals("ELSE")) {
-                                stateActions.put(terminal, new Action(ActionType.SHIFT, item.getProduction().getId()));
+                            if (terminal.equals("ELSE") && existingAction.getType() == ActionType.SHIFT) {
+                                // else colgante: se conserva el desplazamiento ya registrado
                                 continue;
                             }
                             System.err.println("CONFLICT: Reduce-Reduce en estado " + 
                                              state.getId() + " terminal " + terminal);
+                            recordConflict(state.getId(), terminal, existingAction, reduceAction);
                         }
-                        stateActions.put(terminal, new Action(ActionType.REDUCE, 
-                                                            item.getProduction().getId()));
+                        stateActions.put(terminal, reduceAction);
                     }
                 }
             } else {
@@ -114,15 +170,15 @@ public class SLR1Table {
                     if (Grammar.isTerminal(nextSymbol)) {
                         // Acción SHIFT
                         Action existingAction = stateActions.get(nextSymbol);
+                        Action shiftAction = new Action(ActionType.SHIFT, nextState);
                         if (existingAction != null && existingAction.getType() == ActionType.REDUCE) {
-                            if (nextSymbol.equals("ELSE")) {
-                                stateActions.put(nextSymbol, new Action(ActionType.SHIFT, nextState));
-                                continue;
+                            if (!nextSymbol.equals("ELSE")) {
+                                System.err.println("CONFLICT: Shift-Reduce en estado " + 
+                                                 state.getId() + " terminal " + nextSymbol);
+                                recordConflict(state.getId(), nextSymbol, existingAction, shiftAction);
                             }
-                            System.err.println("CONFLICT: Shift-Reduce en estado " + 
-                                             state.getId() + " terminal " + nextSymbol);
                         }
-                        stateActions.put(nextSymbol, new Action(ActionType.SHIFT, nextState));
+                        stateActions.put(nextSymbol, shiftAction);
                     } else {
                         // Acción GOTO
                         stateGotos.put(nextSymbol, nextState);
@@ -132,13 +188,262 @@ public class SLR1Table {
         }
     }
     
+    /**
+     * Guarda las acciones en conflicto de una celda para el parser GLR. La
+     * tabla ACTION conserva una sola de ellas, como hasta ahora.
+     */
+    private void recordConflict(int state, String terminal, Action existing, Action added) {
+        List<Action> actions = conflictTable.computeIfAbsent(state, s -> new HashMap<>())
+                .computeIfAbsent(terminal, t -> new ArrayList<>());
+        for (Action action : new Action[]{existing, added}) {
+            boolean present = false;
+            for (Action other : actions) {
+                present |= other.getType() == action.getType() && other.getValue() == action.getValue();
+            }
+            if (!present) {
+                actions.add(action);
+            }
+        }
+    }
+    
+    /**
+     * Compila las tablas a arreglos de enteros indexados por estado e ID de
+     * símbolo, para que el bucle del parser no use cadenas ni mapas. Las
+     * acciones se copian tal cual, con la resolución de conflictos ya aplicada.
+     */
+    private void compileTables() {
+        Arrays.fill(gotoStates, -1);
+        for (int state = 0; state < actionRows.size(); state++) {
+            for (Map.Entry<String, Action> entry : actionRows.get(state).entrySet()) {
+                Action action = entry.getValue();
+                int type = switch (action.getType()) {
+                    case SHIFT -> ACTION_SHIFT;
+                    case REDUCE -> ACTION_REDUCE;
+                    case ACCEPT -> ACTION_ACCEPT;
+                    case ERROR -> ACTION_ERROR;
+                };
+                int value = action.getType() == ActionType.ACCEPT ? 0 : action.getValue();
+                actionCodes[state * terminalCount + Grammar.getTerminalId(entry.getKey())] =
+                        value << ACTION_TYPE_BITS | type;
+            }
+            for (Map.Entry<String, Integer> entry : gotoRows.get(state).entrySet()) {
+                gotoStates[state * nonTerminalCount + Grammar.getNonTerminalId(entry.getKey())] = entry.getValue();
+            }
+        }
+        
+        for (Map.Entry<Integer, Map<String, List<Action>>> row : conflictTable.entrySet()) {
+            for (Map.Entry<String, List<Action>> cell : row.getValue().entrySet()) {
+                int[] codes = new int[cell.getValue().size()];
+                for (int i = 0; i < codes.length; i++) {
+                    Action action = cell.getValue().get(i);
+                    codes[i] = action.getValue() << ACTION_TYPE_BITS
+                            | (action.getType() == ActionType.SHIFT ? ACTION_SHIFT : ACTION_REDUCE);
+                }
+                int index = row.getKey() * terminalCount + Grammar.getTerminalId(cell.getKey());
+                conflictCodes.put(index, codes);
+                conflictCells.set(index);
+            }
+        }
+    }
+
+    /**
+     * Calcula las reducciones por defecto: si todas las acciones válidas de un
+     * estado reducen por la misma producción, esa reducción se aplica sin
+     * consultar el token de anticipación. Un error en la entrada se detecta
+     * igualmente antes del siguiente desplazamiento.
+     */
+    private int[] buildDefaultReductions() {
+        int[] defaults = new int[automaton.getStates().size()];
+        Arrays.fill(defaults, -1);
+
+        for (Map.Entry<Integer, Map<String, Action>> entry : actionTable.entrySet()) {
+            int production = -1;
+            for (Action action : entry.getValue().values()) {
+                if (action.getType() != ActionType.REDUCE
+                        || (production >= 0 && production != action.getValue())) {
+                    production = -1;
+                    break;
+                }
+                production = action.getValue();
+            }
+            defaults[entry.getKey()] = production;
+        }
+        return defaults;
+    }
+
+    /**
+     * Calcula el conjunto de terminales esperados de cada estado, usado para
+     * informar los errores sin recorrer la tabla ACTION.
+     */
+    private BitSet[] buildExpectedTerminals() {
+        BitSet[] expected = new BitSet[actionRows.size()];
+        for (int state = 0; state < expected.length; state++) {
+            expected[state] = new BitSet(Grammar.getTerminalCount());
+            for (String terminal : actionRows.get(state).keySet()) {
+                expected[state].set(Grammar.getTerminalId(terminal));
+            }
+        }
+        return expected;
+    }
+
+    /**
+     * Obtiene los IDs de los terminales con acción válida en el estado dado.
+     * El conjunto devuelto es una copia.
+     */
+    public BitSet getExpectedTerminals(int state) {
+        if (state < 0 || state >= expectedTerminals.length) {
+            return new BitSet();
+        }
+        return (BitSet) expectedTerminals[state].clone();
+    }
+
+    /**
+     * Calcula, para cada estado desde el que puede empezar una sentencia, el
+     * estado GOTO sobre RECOVERY_SYMBOL y los terminales que pueden seguir a
+     * esa sentencia. Son los puntos donde el parser se resincroniza.
+     */
+    private void buildRecoverySets() {
+        for (int state = 0; state < actionRows.size(); state++) {
+            int gotoState = getGotoState(state, RECOVERY_SYMBOL);
+            recoveryGotos[state] = gotoState;
+            synchronizingTerminals[state] = gotoState >= 0 ? getExpectedTerminals(gotoState) : new BitSet();
+        }
+    }
+
+    /**
+     * Obtiene el estado al que se llega desde el estado dado tras reconocer
+     * una sentencia de error.
+     *
+     * @return Estado destino, o -1 si el estado no admite recuperación
+     */
+    public int getRecoveryGoto(int state) {
+        return state >= 0 && state < recoveryGotos.length ? recoveryGotos[state] : -1;
+    }
+
+    /**
+     * Indica si el análisis puede reanudarse en el estado dado con el
+     * terminal indicado después de una sentencia de error.
+     */
+    public boolean isSynchronizing(int state, int terminalId) {
+        return state >= 0 && state < synchronizingTerminals.length && terminalId >= 0
+                && synchronizingTerminals[state].get(terminalId);
+    }
+
+    /**
+     * Obtiene la producción de la reducción por defecto de un estado.
+     *
+     * @return ID de la producción, o -1 si el estado necesita anticipación
+     */
+    public int getDefaultReduction(int state) {
+        return state >= 0 && state < defaultReductions.length ? defaultReductions[state] : -1;
+    }
+
+    /**
+     * Obtiene la producción unitaria que se reduce en un estado con el
+     * terminal dado, consultando primero la reducción por defecto.
+     *
+     * @return Producción unitaria, o null si la acción no es una reducción unitaria
+     */
+    public Grammar.Production getUnitReduction(int state, int terminalId) {
+        int productionId = getDefaultReduction(state);
+        if (productionId < 0) {
+            int code = getActionCode(state, terminalId);
+            if (actionType(code) != ACTION_REDUCE) {
+                return null;
+            }
+            productionId = actionValue(code);
+        }
+        Grammar.Production production = Grammar.getProduction(productionId);
+        return production != null && production.isUnit() ? production : null;
+    }
+
+    /**
+     * Consulta la tabla ACTION compilada.
+     *
+     * @return Acción codificada; se descompone con {@link #actionType} y {@link #actionValue}
+     */
+    public int getActionCode(int state, int terminalId) {
+        if (state < 0 || state >= actionRows.size() || terminalId < 0) {
+            return ACTION_ERROR;
+        }
+        return actionCodes[state * terminalCount + terminalId];
+    }
+
+    /**
+     * Obtiene todas las acciones de una celda con conflicto sin resolver
+     * (desplazamiento/reducción o reducción/reducción). El else colgante no
+     * cuenta como conflicto: siempre se desplaza.
+     *
+     * @return Acciones codificadas, o null si la celda es determinista
+     */
+    public int[] getConflictActionCodes(int state, int terminalId) {
+        if (state < 0 || state >= actionRows.size() || terminalId < 0
+                || !conflictCells.get(state * terminalCount + terminalId)) {
+            return null;
+        }
+        return conflictCodes.get(state * terminalCount + terminalId);
+    }
+    
+    public int getStateCount() {
+        return actionRows.size();
+    }
+    
+    /**
+     * Obtiene el número de celdas de la tabla ACTION con conflicto sin resolver.
+     */
+    public int getConflictCount() {
+        return conflictCodes.size();
+    }
+    
+    /**
+     * Obtiene el tipo (ACTION_SHIFT, ACTION_REDUCE, ...) de una acción codificada.
+     */
+    public static int actionType(int code) {
+        return code & ACTION_TYPE_MASK;
+    }
+
+    /**
+     * Obtiene el estado (SHIFT) o la producción (REDUCE) de una acción codificada.
+     */
+    public static int actionValue(int code) {
+        return code >> ACTION_TYPE_BITS;
+    }
+
     public Action getAction(int state, String terminal) {
-        return actionTable.getOrDefault(state, Map.of())
-                         .getOrDefault(terminal, new Action(ActionType.ERROR));
+        if (state < 0 || state >= actionRows.size()) {
+            return ERROR_ACTION;
+        }
+        return actionRows.get(state).getOrDefault(terminal, ERROR_ACTION);
     }
     
     public Integer getGoto(int state, String nonTerminal) {
-        return gotoTable.getOrDefault(state, Map.of()).get(nonTerminal);
+        int gotoState = getGotoState(state, nonTerminal);
+        return gotoState >= 0 ? gotoState : null;
+    }
+    
+    /**
+     * Consulta la tabla GOTO sin crear objetos.
+     *
+     * @return Estado destino, o -1 si la transición no existe
+     */
+    public int getGotoState(int state, String nonTerminal) {
+        if (state < 0 || state >= gotoRows.size()) {
+            return -1;
+        }
+        Integer gotoState = gotoRows.get(state).get(nonTerminal);
+        return gotoState != null ? gotoState : -1;
+    }
+    
+    /**
+     * Consulta la tabla GOTO compilada.
+     *
+     * @return Estado destino, o -1 si la transición no existe
+     */
+    public int getGotoState(int state, int nonTerminalId) {
+        if (state < 0 || state >= gotoRows.size() || nonTerminalId < 0) {
+            return -1;
+        }
+        return gotoStates[state * nonTerminalCount + nonTerminalId];
     }
     
     public void printTables() {
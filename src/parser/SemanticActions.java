@@ -0,0 +1,28 @@
+package parser;
+
+import lexer.Token;
+
+/**
+ * Acciones semánticas que el parser ejecuta en cada desplazamiento y en
+ * cada reducción, en lugar de construir el árbol sintáctico concreto.
+ * Cada símbolo de la pila lleva el valor que devolvió su acción.
+ *
+ * @see SLR1Parser#parse(java.util.List, SemanticActions)
+ */
+public interface SemanticActions {
+
+    /**
+     * Calcula el valor de un token desplazado.
+     */
+    Object shift(Token token);
+
+    /**
+     * Calcula el valor del lado izquierdo de una producción reducida.
+     *
+     * @param production Producción reducida
+     * @param values Valores de los símbolos del lado derecho, en orden. El
+     *               parser reutiliza el arreglo en cada reducción, así que
+     *               la acción no debe conservarlo
+     */
+    Object reduce(Grammar.Production production, Object[] values);
+}
@@ -0,0 +1,130 @@
+package parser;
+
+import lexer.Token;
+import java.util.List;
+
+/**
+ * Describe una edición sobre la lista de tokens: los tokens
+ * [start, oldEnd) de la lista anterior se sustituyeron por los tokens
+ * [start, newEnd) de la nueva. Los tokens anteriores a start y posteriores
+ * al final de la edición tienen el mismo tipo y lexema en ambas listas,
+ * pero su posición puede haber cambiado, por ejemplo al insertar una línea.
+ * La edición recuerda además qué tokens conservan también su posición.
+ */
+public class TokenEdit {
+    private final int start;
+    private final int oldEnd;
+    private final int newEnd;
+    // Tokens anteriores que conservan su posición: [0, fixedPrefix) y desde fixedSuffixStart
+    private final int fixedPrefix;
+    private final int fixedSuffixStart;
+
+    /**
+     * Crea una edición en la que los tokens fuera de ella conservan su posición.
+     */
+    public TokenEdit(int start, int oldEnd, int newEnd) {
+        this(start, oldEnd, newEnd, start, oldEnd);
+    }
+
+    private TokenEdit(int start, int oldEnd, int newEnd, int fixedPrefix, int fixedSuffixStart) {
+        if (start < 0 || oldEnd < start || newEnd < start) {
+            throw new IllegalArgumentException("Edición inválida: [" + start + ", " + oldEnd + ") -> ["
+                    + start + ", " + newEnd + ")");
+        }
+        this.start = start;
+        this.oldEnd = oldEnd;
+        this.newEnd = newEnd;
+        this.fixedPrefix = fixedPrefix;
+        this.fixedSuffixStart = fixedSuffixStart;
+    }
+
+    /**
+     * Calcula la edición mínima entre dos listas de tokens comparando el
+     * prefijo y el sufijo comunes por tipo y lexema, de modo que insertar o
+     * borrar líneas no impide reutilizar los tokens que se desplazaron.
+     */
+    public static TokenEdit between(List<Token> oldTokens, List<Token> newTokens) {
+        int limit = Math.min(oldTokens.size(), newTokens.size());
+        int oldSize = oldTokens.size();
+        int newSize = newTokens.size();
+
+        int prefix = 0;
+        while (prefix < limit && sameToken(oldTokens.get(prefix), newTokens.get(prefix))) {
+            prefix++;
+        }
+        int fixedPrefix = 0;
+        while (fixedPrefix < prefix && samePosition(oldTokens.get(fixedPrefix), newTokens.get(fixedPrefix))) {
+            fixedPrefix++;
+        }
+
+        int suffix = 0;
+        while (suffix < limit - prefix
+                && sameToken(oldTokens.get(oldSize - 1 - suffix), newTokens.get(newSize - 1 - suffix))) {
+            suffix++;
+        }
+        int fixedSuffix = 0;
+        while (fixedSuffix < suffix
+                && samePosition(oldTokens.get(oldSize - 1 - fixedSuffix), newTokens.get(newSize - 1 - fixedSuffix))) {
+            fixedSuffix++;
+        }
+
+        return new TokenEdit(prefix, oldSize - suffix, newSize - suffix, fixedPrefix, oldSize - fixedSuffix);
+    }
+
+    private static boolean sameToken(Token oldToken, Token newToken) {
+        return oldToken.getType() == newToken.getType() && oldToken.getLexeme().equals(newToken.getLexeme());
+    }
+
+    private static boolean samePosition(Token oldToken, Token newToken) {
+        return oldToken.getLine() == newToken.getLine() && oldToken.getColumn() == newToken.getColumn();
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getOldEnd() {
+        return oldEnd;
+    }
+
+    public int getNewEnd() {
+        return newEnd;
+    }
+
+    /**
+     * Convierte una posición de la lista nueva a la lista anterior.
+     *
+     * @return Posición en la lista anterior, o -1 si el token es parte de la edición
+     */
+    public int toOldIndex(int newIndex) {
+        if (newIndex < start) {
+            return newIndex;
+        }
+        if (newIndex >= newEnd) {
+            return newIndex - newEnd + oldEnd;
+        }
+        return -1;
+    }
+
+    /**
+     * Indica si los tokens anteriores [from, from + width) y el token que
+     * los sigue quedaron fuera de la edición.
+     */
+    public boolean isUnchanged(int from, int width) {
+        return from + width < start || from >= oldEnd;
+    }
+
+    /**
+     * Indica si los tokens anteriores [from, from + width) conservan también
+     * su posición. Si no, un subárbol que los cubre puede reutilizarse pero
+     * debe copiarse con los tokens nuevos.
+     */
+    public boolean keepsPositions(int from, int width) {
+        return from + width <= fixedPrefix || from >= fixedSuffixStart;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TokenEdit{[%d, %d) -> [%d, %d)}", start, oldEnd, start, newEnd);
+    }
+}
@@ -0,0 +1,81 @@
+package semantic;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Índice de llamadas: para cada función, los nodos del árbol en arreglos
+ * (producción factor -> IDENTIFIER ( args )) que la llaman. Las funciones
+ * se identifican por su símbolo, así que dos funciones con el mismo nombre
+ * en ámbitos distintos tienen listas distintas.
+ *
+ * Cada llamada se resuelve una sola vez, al calcular su tipo, con una
+ * búsqueda en la tabla de símbolos, de modo que construir el índice de
+ * todo el programa es lineal en el número de llamadas.
+ */
+public class CallSiteIndex {
+    private static final int[] NO_SITES = new int[0];
+
+    private final Map<Symbol, Sites> sites = new IdentityHashMap<>();
+
+    /**
+     * Nodos de llamada de una función, en un arreglo que crece al añadir.
+     */
+    private static final class Sites {
+        private int[] nodes = new int[4];
+        private int size;
+
+        void add(int node) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            nodes[size++] = node;
+        }
+    }
+
+    /**
+     * Registra una llamada resuelta.
+     *
+     * @param callee Símbolo de la función llamada
+     * @param node Nodo factor de la llamada
+     */
+    public void add(Symbol callee, int node) {
+        sites.computeIfAbsent(callee, key -> new Sites()).add(node);
+    }
+
+    /**
+     * Añade las llamadas registradas en otro índice, por ejemplo el de una
+     * tarea que analizó el cuerpo de una función.
+     */
+    public void merge(CallSiteIndex other) {
+        other.sites.forEach((callee, calls) -> {
+            for (int i = 0; i < calls.size; i++) {
+                add(callee, calls.nodes[i]);
+            }
+        });
+    }
+
+    /**
+     * Obtiene los nodos que llaman a una función, en el orden del programa.
+     */
+    public int[] getCallSites(Symbol callee) {
+        Sites calls = sites.get(callee);
+        if (calls == null) {
+            return NO_SITES;
+        }
+        // Los nodos se numeran en postorden, que es el orden del programa
+        int[] nodes = Arrays.copyOf(calls.nodes, calls.size);
+        Arrays.sort(nodes);
+        return nodes;
+    }
+
+    /**
+     * Obtiene las funciones que se llaman al menos una vez.
+     */
+    public Set<Symbol> getCallees() {
+        return Collections.unmodifiableSet(sites.keySet());
+    }
+}
@@ -0,0 +1,491 @@
+package semantic;
+
+import lexer.Token;
+import lexer.TokenType;
+import parser.Grammar;
+import parser.ParseTreeArena;
+
+/**
+ * Plegado y propagación de constantes sobre el árbol en arreglos de un
+ * análisis semántico sin errores. Evalúa las expresiones cuyos operandos
+ * son literales o variables que nunca se modifican después de declararse
+ * con un inicializador constante, guarda el valor de esas variables en su
+ * Symbol y sustituye cada expresión constante (incluidas las condiciones
+ * de if, while y for) por un único nodo literal.
+ *
+ * La evaluación sigue la semántica de Java según los tipos estáticos que
+ * calculó el análisis: la aritmética INT desborda en 32 bits, en la FLOAT
+ * cada operando se convierte a float antes de operar y de comparar, y una
+ * división entera entre cero no se pliega. Solo
+ * se sustituyen las expresiones de tipo INT, FLOAT, BOOLEAN, STRING o CHAR,
+ * que son los tipos que tienen literales en el lenguaje; las de otros
+ * tipos se evalúan igualmente para plegar las expresiones que las usan.
+ *
+ * Internamente los valores enteros (también los CHAR) se representan con
+ * Long y los de coma flotante con Double, y su tipo estático indica cómo
+ * interpretarlos.
+ */
+public class ConstantFolder {
+    // Forma de cada tipo de nodo, indexada por ParseTreeArena.getKind
+    private static final byte OTHER = 0;
+    private static final byte BINARY = 1;
+    private static final byte PREFIX = 2;
+    private static final byte POSTFIX = 3;
+    private static final byte FACTOR = 4;
+    private static final byte DECLARATION = 5;
+    private static final byte ASSIGNMENT = 6;
+    private static final byte LITERAL = 7;
+    private static final byte IDENTIFIER = 8;
+    private static final byte[] FORMS = new byte[ParseTreeArena.ERROR_KIND + 1];
+
+    static {
+        for (String level : new String[]{"expr", "and_expr", "eq_expr", "rel_expr", "add_expr", "term"}) {
+            FORMS[ParseTreeArena.getNonTerminalKind(level)] = BINARY;
+        }
+        FORMS[ParseTreeArena.getNonTerminalKind("unary_expr")] = PREFIX;
+        FORMS[ParseTreeArena.getNonTerminalKind("postfix_expr")] = POSTFIX;
+        FORMS[ParseTreeArena.getNonTerminalKind("factor")] = FACTOR;
+        FORMS[ParseTreeArena.getNonTerminalKind("decl_stmt")] = DECLARATION;
+        FORMS[ParseTreeArena.getNonTerminalKind("decl_stmt_inline")] = DECLARATION;
+        FORMS[ParseTreeArena.getNonTerminalKind("expr_stmt")] = ASSIGNMENT;
+        for (String literal : new String[]{"INTEGER", "FLOAT_NUMBER", "TRUE", "FALSE", "STRING_LITERAL",
+                "CHAR_LITERAL"}) {
+            FORMS[Grammar.getTerminalId(literal)] = LITERAL;
+        }
+        FORMS[Grammar.getTerminalId("IDENTIFIER")] = IDENTIFIER;
+    }
+
+    private final SemanticAnalysisResult analysis;
+    private final ParseTreeArena tree;
+    // Valor constante de cada nodo (null si no es constante)
+    private final Object[] values;
+    private final TokenType[] types;
+    // Declaraciones cuya variable se modifica en algún punto del programa
+    private final boolean[] mutated;
+
+    /**
+     * @param analysis Resultado del análisis de un árbol en arreglos
+     * @throws IllegalArgumentException Si el resultado no conserva el árbol analizado
+     */
+    public ConstantFolder(SemanticAnalysisResult analysis) {
+        if (analysis.getTree() == null) {
+            throw new IllegalArgumentException("El análisis no conserva el árbol analizado");
+        }
+        this.analysis = analysis;
+        this.tree = analysis.getTree();
+        this.values = new Object[tree.getNodeCount()];
+        this.types = new TokenType[tree.getNodeCount()];
+        this.mutated = new boolean[tree.getNodeCount()];
+    }
+
+    /**
+     * Evalúa las expresiones constantes, asigna el valor de las variables
+     * constantes a sus símbolos y construye el árbol plegado. Si el análisis
+     * tiene errores no se pliega nada y se devuelve el árbol original.
+     *
+     * @return Árbol en el que cada expresión constante es un literal
+     */
+    public ParseTreeArena fold() {
+        if (analysis.hasErrors() || tree.getNodeCount() == 0) {
+            return tree;
+        }
+        Resolver.Resolution resolution = new Resolver(tree).resolve();
+        markMutations(resolution);
+
+        // Por el postorden, los operandos y las declaraciones se evalúan antes que sus usos
+        for (int node = 0; node < tree.getNodeCount(); node++) {
+            evaluate(node, resolution);
+        }
+
+        // Sustituir solo las expresiones constantes maximales: de la raíz hacia las hojas
+        Token[] replacements = new Token[tree.getNodeCount()];
+        boolean replaced = false;
+        int limit = tree.getNodeCount();
+        for (int node = tree.getNodeCount() - 1; node >= 0; node--) {
+            if (node >= limit || tree.isTerminal(node)) {
+                continue;
+            }
+            Token literal = literalToken(node);
+            if (literal != null) {
+                replacements[node] = literal;
+                replaced = true;
+                limit = tree.getSubtreeStart(node);
+            }
+        }
+        return replaced ? tree.replaceSubtrees(replacements) : tree;
+    }
+
+    /**
+     * Obtiene el valor constante de un nodo del árbol original, calculado
+     * por {@link #fold()}: Long para los tipos enteros y CHAR, Double para
+     * FLOAT y DOUBLE, Boolean o String.
+     *
+     * @return Valor del nodo, o null si no es una expresión constante
+     */
+    public Object getValue(int node) {
+        return values[node];
+    }
+
+    /**
+     * Marca las declaraciones de las variables que se asignan (x := e,
+     * x += e...) o se incrementan (++x, x--) en cualquier punto.
+     */
+    private void markMutations(Resolver.Resolution resolution) {
+        for (int node = 0; node < tree.getNodeCount(); node++) {
+            int target = ParseTreeArena.NONE;
+            switch (FORMS[tree.getKind(node)]) {
+                case ASSIGNMENT: {
+                    // expr_stmt -> IDENTIFIER compound_assign expr ;
+                    int first = tree.getFirstChild(node);
+                    if (tree.isTerminal(first) && tree.getNextSibling(first) != ParseTreeArena.NONE) {
+                        target = first;
+                    }
+                    break;
+                }
+                case PREFIX:
+                    // unary_expr -> INCREMENT unary_expr | DECREMENT unary_expr
+                    if (tree.getChildCount(node) == 2) {
+                        target = operand(tree.getNextSibling(tree.getFirstChild(node)));
+                    }
+                    break;
+                case POSTFIX:
+                    // postfix_expr -> postfix_expr INCREMENT | postfix_expr DECREMENT
+                    if (tree.getChildCount(node) == 2) {
+                        target = operand(tree.getFirstChild(node));
+                    }
+                    break;
+                default:
+                    break;
+            }
+            if (target != ParseTreeArena.NONE && resolution.getDeclaration(target) != ParseTreeArena.NONE) {
+                mutated[resolution.getDeclaration(target)] = true;
+            }
+        }
+    }
+
+    /**
+     * Baja por las producciones unitarias y los paréntesis hasta el
+     * IDENTIFIER que modifica un ++ o un --.
+     */
+    private int operand(int node) {
+        while (!tree.isTerminal(node)) {
+            int first = tree.getFirstChild(node);
+            if (first == ParseTreeArena.NONE) {
+                return ParseTreeArena.NONE;
+            }
+            int second = tree.getNextSibling(first);
+            if (second == ParseTreeArena.NONE) {
+                node = first;
+            } else if (tree.isTerminal(first) && tree.getToken(first).getType() == TokenType.LEFT_PAREN) {
+                node = second;
+            } else {
+                return ParseTreeArena.NONE;
+            }
+        }
+        return tree.getToken(node).getType() == TokenType.IDENTIFIER ? node : ParseTreeArena.NONE;
+    }
+
+    /**
+     * Calcula el valor de un nodo cuyos hijos ya están evaluados.
+     */
+    private void evaluate(int node, Resolver.Resolution resolution) {
+        int first = tree.getFirstChild(node);
+        int second = first == ParseTreeArena.NONE ? ParseTreeArena.NONE : tree.getNextSibling(first);
+        switch (FORMS[tree.getKind(node)]) {
+            case LITERAL:
+                setValue(node, TypeRules.literalType(tree.getToken(node).getType()), literalValue(tree.getToken(node)));
+                break;
+
+            case IDENTIFIER: {
+                // Uso de una variable constante: su declaración ya tiene valor
+                int declaration = resolution.getDeclaration(node);
+                if (declaration != ParseTreeArena.NONE && declaration != node && !mutated[declaration]) {
+                    setValue(node, types[declaration], values[declaration]);
+                }
+                break;
+            }
+
+            case BINARY:
+                if (second == ParseTreeArena.NONE) {
+                    setValue(node, analysis.getExpressionType(node), values[first]);
+                } else {
+                    int right = tree.getNextSibling(second);
+                    setValue(node, analysis.getExpressionType(node), binary(tree.getToken(second).getType(),
+                            values[first], types[first], values[right], types[right], analysis.getExpressionType(node)));
+                }
+                break;
+
+            case PREFIX:
+            case POSTFIX:
+                // Un ++ o un -- modifica su operando: nunca es constante
+                if (second == ParseTreeArena.NONE) {
+                    setValue(node, analysis.getExpressionType(node), values[first]);
+                }
+                break;
+
+            case FACTOR:
+                if (second == ParseTreeArena.NONE) {
+                    setValue(node, analysis.getExpressionType(node), values[first]);
+                } else if (tree.getToken(first).getType() == TokenType.NOT) {
+                    if (values[second] instanceof Boolean operand) {
+                        setValue(node, TokenType.BOOLEAN, !operand);
+                    }
+                } else if (tree.getToken(first).getType() == TokenType.LEFT_PAREN) {
+                    setValue(node, analysis.getExpressionType(node), values[second]);
+                }
+                // Las llamadas no son constantes
+                break;
+
+            case DECLARATION:
+                declare(node);
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Declaración type IDENTIFIER := expr: si el inicializador es constante
+     * y la variable no se modifica, la variable es constante. El valor se
+     * convierte al tipo declarado y se guarda en el nodo IDENTIFIER y en su
+     * símbolo.
+     */
+    private void declare(int node) {
+        int identifier = tree.getNextSibling(tree.getFirstChild(node));
+        int assign = tree.getNextSibling(identifier);
+        int initializer = assign == ParseTreeArena.NONE ? ParseTreeArena.NONE : tree.getNextSibling(assign);
+        Symbol symbol = analysis.getDeclaredSymbol(identifier);
+        if (initializer == ParseTreeArena.NONE || symbol == null || mutated[identifier]
+                || values[initializer] == null) {
+            return;
+        }
+        Object value = convert(values[initializer], symbol.getType());
+        if (value != null) {
+            setValue(identifier, symbol.getType(), value);
+            symbol.setValue(box(value, symbol.getType()));
+        }
+    }
+
+    private void setValue(int node, TokenType type, Object value) {
+        if (type != null && value != null) {
+            types[node] = type;
+            values[node] = value;
+        }
+    }
+
+    private static Object literalValue(Token token) {
+        String lexeme = token.getLexeme();
+        try {
+            switch (token.getType()) {
+                case INTEGER: {
+                    long value = Long.parseLong(lexeme);
+                    return value <= Integer.MAX_VALUE ? value : null;
+                }
+                case FLOAT_NUMBER:
+                    return (double) Float.parseFloat(lexeme);
+                case TRUE:
+                    return Boolean.TRUE;
+                case FALSE:
+                    return Boolean.FALSE;
+                case STRING_LITERAL:
+                    return lexeme;
+                case CHAR_LITERAL:
+                    return lexeme.isEmpty() ? null : (long) lexeme.charAt(0);
+                default:
+                    return null;
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Evalúa una operación binaria con operandos constantes.
+     *
+     * @param type Tipo estático del resultado
+     * @return Resultado, o null si algún operando no es constante o la operación no se pliega
+     */
+    private static Object binary(TokenType operator, Object left, TokenType leftType, Object right,
+                                 TokenType rightType, TokenType type) {
+        if (left == null || right == null || type == null) {
+            return null;
+        }
+        switch (operator) {
+            case AND:
+                return (Boolean) left && (Boolean) right;
+            case OR:
+                return (Boolean) left || (Boolean) right;
+            case EQUAL_EQUAL:
+            case NOT_EQUAL: {
+                // Las cadenas se comparan por referencia: no se pliegan
+                Boolean equal;
+                if (left instanceof Boolean && right instanceof Boolean) {
+                    equal = left.equals(right);
+                } else if (left instanceof Number && right instanceof Number) {
+                    equal = compare(left, leftType, right, rightType) == 0;
+                } else {
+                    return null;
+                }
+                return operator == TokenType.EQUAL_EQUAL ? equal : !equal;
+            }
+            case GREATER:
+                return compare(left, leftType, right, rightType) > 0;
+            case LESS:
+                return compare(left, leftType, right, rightType) < 0;
+            case GREATER_EQUAL:
+                return compare(left, leftType, right, rightType) >= 0;
+            case LESS_EQUAL:
+                return compare(left, leftType, right, rightType) <= 0;
+            default:
+                break;
+        }
+        if (type == TokenType.STRING) {
+            return text(left, leftType) + text(right, rightType);
+        }
+        if (type == TokenType.FLOAT) {
+            // Cada operando se convierte a float antes de operar, como en Java
+            float a = ((Number) left).floatValue();
+            float b = ((Number) right).floatValue();
+            float result = switch (operator) {
+                case PLUS -> a + b;
+                case MINUS -> a - b;
+                case MULTIPLY -> a * b;
+                case DIVIDE -> a / b;
+                case MODULO -> a % b;
+                default -> Float.NaN;
+            };
+            return (double) result;
+        }
+        if (type == TokenType.DOUBLE) {
+            double a = ((Number) left).doubleValue();
+            double b = ((Number) right).doubleValue();
+            return switch (operator) {
+                case PLUS -> a + b;
+                case MINUS -> a - b;
+                case MULTIPLY -> a * b;
+                case DIVIDE -> a / b;
+                case MODULO -> a % b;
+                default -> Double.NaN;
+            };
+        }
+        long a = (Long) left;
+        long b = (Long) right;
+        if ((operator == TokenType.DIVIDE || operator == TokenType.MODULO) && b == 0) {
+            return null;
+        }
+        long result = switch (operator) {
+            case PLUS -> a + b;
+            case MINUS -> a - b;
+            case MULTIPLY -> a * b;
+            case DIVIDE -> a / b;
+            case MODULO -> a % b;
+            default -> 0;
+        };
+        return type == TokenType.INT ? (long) (int) result : result;
+    }
+
+    /**
+     * Compara dos números según sus tipos estáticos, con la promoción
+     * numérica de Java: como double si alguno es DOUBLE, como float si
+     * alguno es FLOAT y como long en otro caso.
+     */
+    private static int compare(Object left, TokenType leftType, Object right, TokenType rightType) {
+        if (leftType == TokenType.DOUBLE || rightType == TokenType.DOUBLE) {
+            return Double.compare(((Number) left).doubleValue(), ((Number) right).doubleValue());
+        }
+        if (leftType == TokenType.FLOAT || rightType == TokenType.FLOAT) {
+            return Float.compare(((Number) left).floatValue(), ((Number) right).floatValue());
+        }
+        return Long.compare(((Number) left).longValue(), ((Number) right).longValue());
+    }
+
+    /**
+     * Texto de un valor en una concatenación, como lo escribiría Java.
+     */
+    private static String text(Object value, TokenType type) {
+        if (type == TokenType.CHAR) {
+            return String.valueOf((char) (long) (Long) value);
+        }
+        if (type == TokenType.FLOAT) {
+            return Float.toString((float) (double) (Double) value);
+        }
+        return value.toString();
+    }
+
+    /**
+     * Convierte un valor al tipo de la variable que lo recibe. El análisis
+     * ya comprobó que la asignación es válida.
+     */
+    private static Object convert(Object value, TokenType type) {
+        switch (type) {
+            case BYTE:
+                return (long) (byte) ((Number) value).longValue();
+            case SHORT:
+                return (long) (short) ((Number) value).longValue();
+            case CHAR:
+                return (long) (char) ((Number) value).longValue();
+            case INT:
+                return (long) (int) ((Number) value).longValue();
+            case LONG:
+                return ((Number) value).longValue();
+            case FLOAT:
+                return (double) ((Number) value).floatValue();
+            case DOUBLE:
+                return ((Number) value).doubleValue();
+            case BOOLEAN:
+            case STRING:
+                return value;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Valor que se guarda en el símbolo, con la clase de Java del tipo
+     * declarado: Integer para INT (y también para BYTE y SHORT), Long,
+     * Character, Float, Double, Boolean o String.
+     */
+    private static Object box(Object value, TokenType type) {
+        return switch (type) {
+            case BYTE, SHORT, INT -> (int) (long) (Long) value;
+            case CHAR -> (char) (long) (Long) value;
+            case FLOAT -> (float) (double) (Double) value;
+            default -> value;
+        };
+    }
+
+    /**
+     * Construye el literal que sustituye a una expresión constante, situado
+     * en el primer token de la expresión.
+     *
+     * @return Token del literal, o null si la expresión no se puede sustituir
+     */
+    private Token literalToken(int node) {
+        Object value = values[node];
+        if (value == null) {
+            return null;
+        }
+        Token first = tree.getToken(tree.getSubtreeStart(node));
+        int line = first != null ? first.getLine() : 0;
+        int column = first != null ? first.getColumn() : 0;
+        switch (types[node]) {
+            case INT:
+                return new Token(TokenType.INTEGER, value.toString(), line, column);
+            case FLOAT: {
+                double number = (Double) value;
+                return Double.isFinite(number)
+                        ? new Token(TokenType.FLOAT_NUMBER, Float.toString((float) number), line, column) : null;
+            }
+            case BOOLEAN:
+                return (Boolean) value ? new Token(TokenType.TRUE, "true", line, column)
+                        : new Token(TokenType.FALSE, "false", line, column);
+            case STRING:
+                return new Token(TokenType.STRING_LITERAL, (String) value, line, column);
+            case CHAR:
+                return new Token(TokenType.CHAR_LITERAL, text(value, TokenType.CHAR), line, column);
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package semantic;
+
+import lexer.Lexer;
+import lexer.LexerException;
+import parser.ParseTreeArena;
+import parser.ParserException;
+import parser.SLR1Parser;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Clase de prueba para el plegado de constantes.
+ * Comprueba el valor que reciben los símbolos (con su clase de Java) y el
+ * código del árbol plegado, comparándolos con lo que calcularía Java.
+ */
+public class ConstantFolderTest {
+    public static void main(String[] args) throws LexerException, ParserException {
+        // Código, valores esperados de los símbolos y fragmento esperado del árbol plegado
+        Object[][] cases = {
+            // La aritmética INT desborda en 32 bits
+            {"int big := 2147483647 + 1;\nint neg := 0 - 2147483647 - 2;",
+             new String[]{"big = -2147483648 (Integer)", "neg = 2147483647 (Integer)"},
+             "int big := -2147483648 ;"},
+            // Cada operando se convierte a float antes de operar y de comparar
+            {"float f := 16777217 - 1.0;\nboolean e := 16777217 == 16777216.0;\nfloat t := 0.1 * 3;",
+             new String[]{"f = 1.6777215E7 (Float)", "e = true (Boolean)", "t = 0.3 (Float)"},
+             "float f := 1.6777215E7 ;"},
+            // Una división entera entre cero no se pliega
+            {"int d := 10 / 0;\nint m := 7 % 0;\nint q := 7 / 2;",
+             new String[]{"d = null", "m = null", "q = 3 (Integer)"},
+             "int d := 10 / 0 ;"},
+            // Los char se operan como enteros y se concatenan como caracteres
+            {"char c := 'a';\nint k := c + 1;\nString s := \"v\" + c + k;",
+             new String[]{"c = a (Character)", "k = 98 (Integer)", "s = va98 (String)"},
+             "String s := va98 ;"},
+            // Una variable que se modifica no es constante, ni lo que se calcula con ella
+            {"int z := 0;\nz := z + 1;\nint w := z + 1;\nint n := 5;\nn++;\nint u := 2 * 3;",
+             new String[]{"z = null", "w = null", "n = null", "u = 6 (Integer)"},
+             "int w := z + 1 ;"},
+            // Las condiciones constantes de if y while se pliegan
+            {"int x := 3;\nint y := 0;\nif (x > 2) { y := 1; }\nwhile (x * 0 > 1) { y := 2; }",
+             new String[]{"x = 3 (Integer)", "y = null"},
+             "if ( true ) { y := 1 ; } while ( false )"}
+        };
+
+        int failures = 0;
+        for (Object[] test : cases) {
+            String source = (String) test[0];
+            ParseTreeArena tree = ParseTreeArena.parse(new SLR1Parser(), new Lexer(source).tokenize());
+            SemanticAnalysisResult analysis = new SemanticAnalyzer().analyze(tree);
+            String folded = text(new ConstantFolder(analysis).fold());
+
+            List<String> expected = List.of((String[]) test[1]);
+            List<String> actual = new ArrayList<>();
+            for (String value : expected) {
+                String name = value.substring(0, value.indexOf(' '));
+                actual.add(name + " = " + describe(analysis.getSymbolTable().lookup(name)));
+            }
+            String fragment = (String) test[2];
+            boolean same = analysis.getErrors().isEmpty() && expected.equals(actual) && folded.contains(fragment);
+            System.out.println((same ? "OK         " : "DIFERENCIA ") + source.replace('\n', ' '));
+            if (!same) {
+                System.out.println("  Errores:   " + analysis.getErrors());
+                System.out.println("  Esperado:  " + expected + " / " + fragment);
+                System.out.println("  Obtenido:  " + actual + " / " + folded);
+                failures++;
+            }
+        }
+
+        System.out.println("\n" + failures + " diferencias en " + cases.length + " casos");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static String describe(Symbol symbol) {
+        if (symbol == null || symbol.getValue() == null) {
+            return "null";
+        }
+        return symbol.getValue() + " (" + symbol.getValue().getClass().getSimpleName() + ")";
+    }
+
+    /**
+     * Código del árbol: los lexemas de sus terminales separados por espacios.
+     */
+    private static String text(ParseTreeArena tree) {
+        StringBuilder text = new StringBuilder();
+        for (int node = 0; node < tree.getNodeCount(); node++) {
+            if (tree.isTerminal(node)) {
+                text.append(tree.getValue(node)).append(' ');
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,118 @@
+package semantic;
+
+import lexer.Lexer;
+import lexer.LexerException;
+import parser.ParseTreeArena;
+import parser.ParserException;
+import parser.SLR1Parser;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Clase de prueba para el análisis semántico en paralelo.
+ * Comprueba que analizar los cuerpos de las funciones en un pool da los
+ * mismos errores, símbolos, ámbitos y tipos que el análisis secuencial.
+ */
+public class ParallelAnalysisTest {
+    public static void main(String[] args) throws LexerException, ParserException {
+        String[] programs = {
+            // Varias funciones que usan globales, se llaman entre sí y anidan otra función
+            "int base := 10;\n"
+                + "int doble(int a) {\n    return a * 2;\n}\n"
+                + "int suma(int a, int b) {\n"
+                + "    int ajuste(int q) {\n        return q + base;\n    }\n"
+                + "    int r := ajuste(a) + doble(b);\n"
+                + "    if (r > base) { int t := r; r := t - 1; }\n"
+                + "    return r;\n}\n"
+                + "float media(float x, float y) {\n    float m := (x + y) / 2;\n    return m;\n}\n"
+                + "int total := suma(base, 3);\n",
+            // Errores dentro de varias funciones, en el orden del programa
+            "int f(int a) {\n    return a + noDeclarada;\n}\n"
+                + "int g := 1;\n"
+                + "void h() {\n    int a := 1;\n    int a := 2;\n    return 3;\n}\n"
+                + "boolean k(int n) {\n"
+                + "    int interna(int q) { return q; }\n"
+                + "    while (n) { n := n - 1; }\n"
+                + "    return interna(n);\n}\n"
+                + "String s := g;\n",
+            // Una función sin return, parámetros repetidos y una función declarada dos veces
+            "void vacia() { int nada := 0; }\n"
+                + "int p(int a, int a) {\n    return a;\n}\n"
+                + "int p(int b) {\n    return b;\n}\n"
+                + "for (int i := 0; i < 3; i++) { vacia(); }\n"
+        };
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        int failures = 0;
+        for (String program : programs) {
+            ParseTreeArena tree = ParseTreeArena.parse(new SLR1Parser(), new Lexer(program).tokenize());
+            SemanticAnalysisResult sequential = new SemanticAnalyzer().analyze(tree);
+            SemanticAnalysisResult parallel = new SemanticAnalyzer().analyze(tree, pool);
+
+            List<String> differences = new ArrayList<>();
+            compare("errores", messages(sequential), messages(parallel), differences);
+            compare("símbolos", describe(sequential.getSymbolTable().getSymbols()),
+                    describe(parallel.getSymbolTable().getSymbols()), differences);
+            for (int node = 0; node < tree.getNodeCount(); node++) {
+                compare("tipo del nodo " + node, sequential.getExpressionType(node),
+                        parallel.getExpressionType(node), differences);
+                compare("símbolo declarado en el nodo " + node, describe(sequential.getDeclaredSymbol(node)),
+                        describe(parallel.getDeclaredSymbol(node)), differences);
+                PersistentSymbolMap sequentialScope = sequential.getVisibleSymbols(node);
+                PersistentSymbolMap parallelScope = parallel.getVisibleSymbols(node);
+                compare("ámbito del nodo " + node,
+                        sequentialScope == null ? null : describe(sequentialScope.toMap()),
+                        parallelScope == null ? null : describe(parallelScope.toMap()), differences);
+            }
+
+            String title = program.substring(0, program.indexOf('\n'));
+            System.out.println((differences.isEmpty() ? "OK         " : "DIFERENCIA ") + title + " ("
+                    + sequential.getErrors().size() + " errores)");
+            for (String difference : differences) {
+                System.out.println("  " + difference);
+            }
+            if (!differences.isEmpty()) {
+                failures++;
+            }
+        }
+        pool.shutdown();
+
+        System.out.println("\n" + failures + " diferencias en " + programs.length + " programas");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void compare(String what, Object expected, Object actual, List<String> differences) {
+        if (expected == null ? actual != null : !expected.equals(actual)) {
+            differences.add(what + ": secuencial " + expected + ", paralelo " + actual);
+        }
+    }
+
+    private static List<String> messages(SemanticAnalysisResult result) {
+        List<String> messages = new ArrayList<>();
+        for (SemanticError error : result.getErrors()) {
+            messages.add(error.toString());
+        }
+        return messages;
+    }
+
+    private static Map<String, String> describe(Map<String, Symbol> symbols) {
+        Map<String, String> described = new TreeMap<>();
+        for (Map.Entry<String, Symbol> entry : symbols.entrySet()) {
+            described.put(entry.getKey(), describe(entry.getValue()));
+        }
+        return described;
+    }
+
+    private static String describe(Symbol symbol) {
+        if (symbol == null) {
+            return null;
+        }
+        return symbol.getName() + ":" + symbol.getType() + "@" + symbol.getScopeLevel()
+                + (symbol.isFunction() ? " función " + symbol.getReturnType() + symbol.getParameters() : "");
+    }
+}
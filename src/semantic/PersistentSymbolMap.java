@@ -0,0 +1,244 @@
+package semantic;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Mapa inmutable de nombre a símbolo implementado como un trie de
+ * arreglos indexados por hash (HAMT). Cada nivel consume 5 bits del hash
+ * del nombre y cada nodo guarda solo las ramas presentes, indicadas en un
+ * mapa de bits. Añadir un nombre copia únicamente el camino desde la raíz
+ * hasta la hoja (O(log n)) y comparte el resto con la versión anterior, así
+ * que conservar cada versión cuesta muy poco.
+ *
+ * Añadir un nombre que ya existe reemplaza su símbolo en la nueva versión,
+ * que es exactamente el ocultamiento de una variable por otra declarada en
+ * un ámbito interno.
+ */
+public final class PersistentSymbolMap {
+    /** Mapa vacío. */
+    public static final PersistentSymbolMap EMPTY = new PersistentSymbolMap(BitmapNode.EMPTY, 0);
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private final Node root;
+    private final int size;
+
+    private PersistentSymbolMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public Symbol get(String name) {
+        return root.get(hash(name), 0, name);
+    }
+
+    public boolean containsKey(String name) {
+        return get(name) != null;
+    }
+
+    /**
+     * Obtiene una versión del mapa con el nombre asociado al símbolo. Esta
+     * versión no cambia.
+     */
+    public PersistentSymbolMap put(String name, Symbol symbol) {
+        boolean[] added = new boolean[1];
+        Node newRoot = root.put(hash(name), 0, name, symbol, added);
+        return newRoot == root ? this : new PersistentSymbolMap(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Aplica una operación a cada símbolo, en un orden sin especificar.
+     */
+    public void forEach(Consumer<Symbol> action) {
+        root.forEach(action);
+    }
+
+    /**
+     * Copia el contenido en un mapa mutable.
+     */
+    public Map<String, Symbol> toMap() {
+        Map<String, Symbol> map = new HashMap<>(size * 2);
+        forEach(symbol -> map.put(symbol.getName(), symbol));
+        return map;
+    }
+
+    private static int hash(String name) {
+        int h = name.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private abstract static class Node {
+        abstract Symbol get(int hash, int shift, String name);
+
+        abstract Node put(int hash, int shift, String name, Symbol symbol, boolean[] added);
+
+        abstract void forEach(Consumer<Symbol> action);
+    }
+
+    /**
+     * Nodo interno. Por cada bit activo del mapa de bits hay dos posiciones
+     * en el arreglo: nombre y símbolo si la rama es una hoja, o null y el
+     * nodo hijo si la rama continúa.
+     */
+    private static final class BitmapNode extends Node {
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        private final int bitmap;
+        private final Object[] slots;
+
+        BitmapNode(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        @Override
+        Symbol get(int hash, int shift, String name) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            int index = 2 * Integer.bitCount(bitmap & (bit - 1));
+            Object key = slots[index];
+            if (key == null) {
+                return ((Node) slots[index + 1]).get(hash, shift + BITS, name);
+            }
+            return key.equals(name) ? (Symbol) slots[index + 1] : null;
+        }
+
+        @Override
+        Node put(int hash, int shift, String name, Symbol symbol, boolean[] added) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            int index = 2 * Integer.bitCount(bitmap & (bit - 1));
+
+            if ((bitmap & bit) == 0) {
+                // Rama nueva: insertar la hoja en su posición
+                Object[] newSlots = new Object[slots.length + 2];
+                System.arraycopy(slots, 0, newSlots, 0, index);
+                newSlots[index] = name;
+                newSlots[index + 1] = symbol;
+                System.arraycopy(slots, index, newSlots, index + 2, slots.length - index);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, newSlots);
+            }
+
+            Object key = slots[index];
+            Object value = slots[index + 1];
+            Object newValue;
+            if (key == null) {
+                Node child = (Node) value;
+                Node newChild = child.put(hash, shift + BITS, name, symbol, added);
+                if (newChild == child) {
+                    return this;
+                }
+                newValue = newChild;
+            } else if (key.equals(name)) {
+                if (value == symbol) {
+                    return this;
+                }
+                newValue = symbol;
+            } else {
+                // Dos nombres en la misma rama: bajar un nivel con ambos
+                String existing = (String) key;
+                newValue = pair(hash(existing), existing, (Symbol) value, hash, name, symbol, shift + BITS);
+                key = null;
+                added[0] = true;
+            }
+            Object[] newSlots = slots.clone();
+            newSlots[index] = key;
+            newSlots[index + 1] = newValue;
+            return new BitmapNode(bitmap, newSlots);
+        }
+
+        @Override
+        void forEach(Consumer<Symbol> action) {
+            for (int i = 0; i < slots.length; i += 2) {
+                if (slots[i] == null) {
+                    ((Node) slots[i + 1]).forEach(action);
+                } else {
+                    action.accept((Symbol) slots[i + 1]);
+                }
+            }
+        }
+
+        /**
+         * Crea el nodo que contiene dos hojas de nombres distintos.
+         */
+        private static Node pair(int hash1, String name1, Symbol symbol1,
+                                 int hash2, String name2, Symbol symbol2, int shift) {
+            if (hash1 == hash2) {
+                return new CollisionNode(hash1, new String[]{name1, name2}, new Symbol[]{symbol1, symbol2});
+            }
+            boolean[] ignored = new boolean[1];
+            return EMPTY.put(hash1, shift, name1, symbol1, ignored).put(hash2, shift, name2, symbol2, ignored);
+        }
+    }
+
+    /**
+     * Hoja con varios nombres cuyo hash completo coincide.
+     */
+    private static final class CollisionNode extends Node {
+        private final int hash;
+        private final String[] names;
+        private final Symbol[] symbols;
+
+        CollisionNode(int hash, String[] names, Symbol[] symbols) {
+            this.hash = hash;
+            this.names = names;
+            this.symbols = symbols;
+        }
+
+        @Override
+        Symbol get(int hash, int shift, String name) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name)) {
+                    return symbols[i];
+                }
+            }
+            return null;
+        }
+
+        @Override
+        Node put(int hash, int shift, String name, Symbol symbol, boolean[] added) {
+            if (hash != this.hash) {
+                // Nombre con otro hash: este nodo pasa a ser una rama de un nodo interno
+                BitmapNode parent = new BitmapNode(1 << ((this.hash >>> shift) & MASK), new Object[]{null, this});
+                return parent.put(hash, shift, name, symbol, added);
+            }
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name)) {
+                    if (symbols[i] == symbol) {
+                        return this;
+                    }
+                    Symbol[] newSymbols = symbols.clone();
+                    newSymbols[i] = symbol;
+                    return new CollisionNode(hash, names, newSymbols);
+                }
+            }
+            String[] newNames = Arrays.copyOf(names, names.length + 1);
+            Symbol[] newSymbols = Arrays.copyOf(symbols, symbols.length + 1);
+            newNames[names.length] = name;
+            newSymbols[symbols.length] = symbol;
+            added[0] = true;
+            return new CollisionNode(hash, newNames, newSymbols);
+        }
+
+        @Override
+        void forEach(Consumer<Symbol> action) {
+            for (Symbol symbol : symbols) {
+                action.accept(symbol);
+            }
+        }
+    }
+}
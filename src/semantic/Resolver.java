@@ -0,0 +1,320 @@
+package semantic;
+
+import parser.Grammar;
+import parser.ParseTreeArena;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resuelve cada uso de una variable a su declaración. El resultado indica,
+ * para cada nodo IDENTIFIER, en qué marco está la variable (cuántas
+ * funciones hay que subir desde la función actual) y en qué posición de ese
+ * marco, de modo que un intérprete o un generador de código pueda acceder a
+ * las variables por índice sin buscar su nombre.
+ *
+ * Hay un marco por función y uno para el programa, que guarda las variables
+ * globales y las de los bloques de primer nivel. Los parámetros ocupan las
+ * primeras posiciones del marco de su función, y las variables de bloques
+ * hermanos reutilizan las mismas posiciones, así que el tamaño de un marco
+ * es el máximo de variables vivas a la vez.
+ *
+ * Aplica las mismas reglas de ámbito que SemanticAnalyzer y debe ejecutarse
+ * sobre árboles sin errores semánticos; los nombres que no se pueden
+ * resolver quedan sin posición.
+ */
+public class Resolver {
+    // Tipo de nodo que requiere una acción, indexado por ParseTreeArena.getKind
+    private static final byte DECLARATION = 1;
+    private static final byte PARAM = 2;
+    private static final byte FUNCTION = 3;
+    private static final byte SCOPE = 4;
+    private static final byte IDENTIFIER = 5;
+    private static final byte[] ACTIONS = new byte[ParseTreeArena.ERROR_KIND + 1];
+    private static final int LEFT_PAREN_KIND = Grammar.getTerminalId("LEFT_PAREN");
+
+    static {
+        ACTIONS[ParseTreeArena.getNonTerminalKind("decl_stmt")] = DECLARATION;
+        ACTIONS[ParseTreeArena.getNonTerminalKind("decl_stmt_inline")] = DECLARATION;
+        ACTIONS[ParseTreeArena.getNonTerminalKind("param")] = PARAM;
+        ACTIONS[ParseTreeArena.getNonTerminalKind("function_decl")] = FUNCTION;
+        ACTIONS[ParseTreeArena.getNonTerminalKind("block")] = SCOPE;
+        ACTIONS[ParseTreeArena.getNonTerminalKind("for_stmt")] = SCOPE;
+        ACTIONS[Grammar.getTerminalId("IDENTIFIER")] = IDENTIFIER;
+    }
+
+    /**
+     * Resultado de la resolución, con un valor por nodo del árbol.
+     */
+    public static class Resolution {
+        private final int[] depths;
+        private final int[] slots;
+        private final int[] declarations;
+        private final Map<Integer, Integer> frameSizes;
+
+        private Resolution(int[] depths, int[] slots, int[] declarations, Map<Integer, Integer> frameSizes) {
+            this.depths = depths;
+            this.slots = slots;
+            this.declarations = declarations;
+            this.frameSizes = frameSizes;
+        }
+
+        /**
+         * Indica si el nodo es un IDENTIFIER que se refiere a una variable
+         * (un uso o su declaración) y se pudo resolver.
+         */
+        public boolean isResolved(int node) {
+            return slots[node] >= 0;
+        }
+
+        /**
+         * Obtiene cuántos marcos hay que subir desde la función del nodo
+         * hasta el que contiene la variable (0 si es una variable local).
+         *
+         * @return Profundidad, o -1 si el nodo no está resuelto
+         */
+        public int getDepth(int node) {
+            return depths[node];
+        }
+
+        /**
+         * Obtiene la posición de la variable dentro de su marco.
+         *
+         * @return Posición, o -1 si el nodo no está resuelto
+         */
+        public int getSlot(int node) {
+            return slots[node];
+        }
+
+        /**
+         * Obtiene el nodo IDENTIFIER que declara la variable (el propio nodo
+         * si es una declaración).
+         *
+         * @return Nodo de la declaración, o NONE si el nodo no está resuelto
+         */
+        public int getDeclaration(int node) {
+            return declarations[node];
+        }
+
+        /**
+         * Obtiene el número de posiciones del marco de una función.
+         *
+         * @param node Nodo function_decl, o la raíz para el marco del programa
+         * @return Tamaño del marco, o -1 si el nodo no tiene marco
+         */
+        public int getFrameSize(int node) {
+            return frameSizes.getOrDefault(node, -1);
+        }
+    }
+
+    /**
+     * Variable visible: marco y posición. Oculta a la declaración anterior
+     * del mismo nombre, que vuelve a ser visible al cerrar su ámbito.
+     */
+    private static final class Binding {
+        final int frame;
+        final int slot;
+        final int scope;
+        final int declaration;
+        final Binding previous;
+
+        Binding(int frame, int slot, int scope, int declaration, Binding previous) {
+            this.frame = frame;
+            this.slot = slot;
+            this.scope = scope;
+            this.declaration = declaration;
+            this.previous = previous;
+        }
+    }
+
+    /**
+     * Marco en construcción: siguiente posición libre y máximo alcanzado.
+     */
+    private static final class Frame {
+        final int node;
+        int next;
+        int size;
+
+        Frame(int node) {
+            this.node = node;
+        }
+    }
+
+    private final ParseTreeArena tree;
+    private final int[] depths;
+    private final int[] slots;
+    private final int[] declarations;
+    private final Map<Integer, Integer> frameSizes = new HashMap<>();
+    private final Map<String, Binding> bindings = new HashMap<>();
+    private final List<Frame> frames = new ArrayList<>();
+    // Nombres declarados en cada ámbito abierto, para deshacerlos al cerrarlo
+    private final List<List<String>> scopes = new ArrayList<>();
+    // Frontera de posiciones del marco al abrir cada ámbito
+    private int[] scopeStarts = new int[16];
+    // IDENTIFIER de la declaración en curso, que se declara al salir de su nodo
+    private int pendingDefinition = ParseTreeArena.NONE;
+
+    public Resolver(ParseTreeArena tree) {
+        this.tree = tree;
+        this.depths = new int[tree.getNodeCount()];
+        this.slots = new int[tree.getNodeCount()];
+        this.declarations = new int[tree.getNodeCount()];
+        Arrays.fill(depths, -1);
+        Arrays.fill(slots, -1);
+        Arrays.fill(declarations, ParseTreeArena.NONE);
+    }
+
+    /**
+     * Recorre el árbol una vez y resuelve todos los identificadores.
+     */
+    public Resolution resolve() {
+        if (tree.getNodeCount() > 0) {
+            openFrame(tree.getRoot());
+            openScope();
+            tree.walk(new Pass());
+            closeScope();
+            closeFrame();
+        }
+        return new Resolution(depths, slots, declarations, frameSizes);
+    }
+
+    private class Pass implements ParseTreeArena.Visitor {
+
+        @Override
+        public boolean enter(ParseTreeArena tree, int node, int depth) {
+            switch (ACTIONS[tree.getKind(node)]) {
+                case DECLARATION:
+                case PARAM:
+                    // El inicializador se resuelve antes de declarar la variable
+                    pendingDefinition = child(node, 1);
+                    return true;
+                case FUNCTION:
+                    // El nombre de la función no ocupa posición en el marco
+                    declareFunction(tree.getValue(child(node, 1)));
+                    openFrame(node);
+                    openScope();
+                    return true;
+                case SCOPE:
+                    openScope();
+                    return true;
+                case IDENTIFIER:
+                    resolveUse(node);
+                    return false;
+                default:
+                    return !tree.isTerminal(node);
+            }
+        }
+
+        @Override
+        public void exit(ParseTreeArena tree, int node, int depth) {
+            switch (ACTIONS[tree.getKind(node)]) {
+                case DECLARATION:
+                    declareVariable(child(node, 1), false);
+                    pendingDefinition = ParseTreeArena.NONE;
+                    break;
+                case PARAM:
+                    declareVariable(child(node, 1), true);
+                    pendingDefinition = ParseTreeArena.NONE;
+                    break;
+                case FUNCTION:
+                    closeScope();
+                    closeFrame();
+                    break;
+                case SCOPE:
+                    closeScope();
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private void resolveUse(int node) {
+        int next = tree.getNextSibling(node);
+        if (node == pendingDefinition || (next != ParseTreeArena.NONE && tree.getKind(next) == LEFT_PAREN_KIND)) {
+            // Nombre de una declaración, de una función o de una llamada
+            return;
+        }
+        Binding binding = bindings.get(tree.getValue(node));
+        if (binding != null && binding.slot >= 0) {
+            depths[node] = frames.size() - 1 - binding.frame;
+            slots[node] = binding.slot;
+            declarations[node] = binding.declaration;
+        }
+    }
+
+    /**
+     * Declara la variable de un nodo IDENTIFIER en el ámbito actual. Como
+     * en el análisis semántico, una variable no puede ocultar a otro nombre
+     * visible, y un parámetro solo no puede repetir otro parámetro.
+     */
+    private void declareVariable(int identifier, boolean parameter) {
+        String name = tree.getValue(identifier);
+        Binding visible = bindings.get(name);
+        if (visible != null && (!parameter || visible.scope == scopes.size() - 1)) {
+            return;
+        }
+        Frame frame = frames.get(frames.size() - 1);
+        int slot = frame.next++;
+        frame.size = Math.max(frame.size, frame.next);
+        bind(name, slot, identifier);
+        depths[identifier] = 0;
+        slots[identifier] = slot;
+        declarations[identifier] = identifier;
+    }
+
+    private void declareFunction(String name) {
+        if (!bindings.containsKey(name)) {
+            bind(name, -1, ParseTreeArena.NONE);
+        }
+    }
+
+    private void bind(String name, int slot, int declaration) {
+        bindings.put(name, new Binding(frames.size() - 1, slot, scopes.size() - 1, declaration, bindings.get(name)));
+        scopes.get(scopes.size() - 1).add(name);
+    }
+
+    private void openFrame(int node) {
+        frames.add(new Frame(node));
+    }
+
+    private void closeFrame() {
+        Frame frame = frames.remove(frames.size() - 1);
+        frameSizes.put(frame.node, frame.size);
+    }
+
+    private void openScope() {
+        if (scopes.size() == scopeStarts.length) {
+            scopeStarts = Arrays.copyOf(scopeStarts, scopeStarts.length * 2);
+        }
+        scopeStarts[scopes.size()] = frames.get(frames.size() - 1).next;
+        scopes.add(new ArrayList<>());
+    }
+
+    /**
+     * Cierra el ámbito actual: sus nombres dejan de ser visibles y sus
+     * posiciones quedan libres para los bloques siguientes.
+     */
+    private void closeScope() {
+        int index = scopes.size() - 1;
+        for (String name : scopes.remove(index)) {
+            Binding binding = bindings.get(name);
+            if (binding.previous == null) {
+                bindings.remove(name);
+            } else {
+                bindings.put(name, binding.previous);
+            }
+        }
+        frames.get(frames.size() - 1).next = scopeStarts[index];
+    }
+
+    private int child(int node, int index) {
+        int child = tree.getFirstChild(node);
+        for (int i = 0; i < index && child != ParseTreeArena.NONE; i++) {
+            child = tree.getNextSibling(child);
+        }
+        return child;
+    }
+}
@@ -1,14 +1,50 @@
 package semantic;
 
+import parser.ParseTreeArena;
+import lexer.TokenType;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class SemanticAnalysisResult {
     private final List<SemanticError> errors;
     private final SymbolTable symbolTable;
+    private final Map<Object, PersistentSymbolMap> scopeSnapshots;
+    private final ParseTreeArena tree;
+    private final TypeChecker typeChecker;
+    private final Map<Integer, Symbol> declaredSymbols;
 
     public SemanticAnalysisResult(List<SemanticError> errors, SymbolTable symbolTable) {
-        this.errors = errors;
+        this(errors, symbolTable, Collections.emptyMap());
+    }
+
+    /**
+     * @param scopeSnapshots Símbolos visibles al final de cada bloque, función
+     *                       y programa, indexados por su nodo (los nodos de los
+     *                       árboles se comparan por identidad y los índices
+     *                       del árbol en arreglos por valor)
+     */
+    public SemanticAnalysisResult(List<SemanticError> errors, SymbolTable symbolTable,
+                                  Map<Object, PersistentSymbolMap> scopeSnapshots) {
+        this(errors, symbolTable, scopeSnapshots, null, null, Collections.emptyMap());
+    }
+
+    /**
+     * @param tree Árbol analizado (null si se analizó un AST)
+     * @param typeChecker Tipos memorizados de las expresiones del árbol
+     * @param declaredSymbols Símbolo de cada variable declarada, por su nodo IDENTIFIER
+     */
+    public SemanticAnalysisResult(List<SemanticError> errors, SymbolTable symbolTable,
+                                  Map<Object, PersistentSymbolMap> scopeSnapshots,
+                                  ParseTreeArena tree, TypeChecker typeChecker,
+                                  Map<Integer, Symbol> declaredSymbols) {
+        this.errors = List.copyOf(errors);
         this.symbolTable = symbolTable;
+        this.scopeSnapshots = Collections.unmodifiableMap(new HashMap<>(scopeSnapshots));
+        this.tree = tree;
+        this.typeChecker = typeChecker;
+        this.declaredSymbols = Collections.unmodifiableMap(new HashMap<>(declaredSymbols));
     }
 
     public boolean hasErrors() {
@@ -23,6 +59,52 @@ public class SemanticAnalysisResult {
         return symbolTable;
     }
 
+    /**
+     * Obtiene los símbolos visibles al final de un bloque, una función o el
+     * programa (nodo del árbol sintáctico o del AST, o índice del árbol en
+     * arreglos).
+     *
+     * @return Símbolos visibles, o null si el nodo no abre un ámbito o no se analizó
+     */
+    public PersistentSymbolMap getVisibleSymbols(Object node) {
+        return scopeSnapshots.get(node);
+    }
+
+    /**
+     * Obtiene el árbol en arreglos sobre el que se calcularon los tipos
+     * (null si se analizó un AST o el resultado se recuperó de la caché).
+     */
+    public ParseTreeArena getTree() {
+        return tree;
+    }
+
+    /**
+     * Obtiene el índice de llamadas de cada función a sus nodos del árbol
+     * (null si se analizó un AST o el resultado se recuperó de la caché).
+     */
+    public CallSiteIndex getCallSites() {
+        return typeChecker != null ? typeChecker.getCallSites() : null;
+    }
+
+    /**
+     * Obtiene el tipo memorizado de una expresión del árbol, por su índice.
+     *
+     * @return Tipo de la expresión, o null si no es una expresión o no tiene un tipo válido
+     */
+    public TokenType getExpressionType(int node) {
+        return typeChecker != null ? typeChecker.getType(node) : null;
+    }
+
+    /**
+     * Obtiene el símbolo que declara un nodo IDENTIFIER del árbol (el nombre
+     * de una declaración de variable).
+     *
+     * @return Símbolo declarado, o null si el nodo no declara una variable
+     */
+    public Symbol getDeclaredSymbol(int node) {
+        return declaredSymbols.get(node);
+    }
+
     public String getSummary() {
         return String.format("Análisis semántico completado. %d errores encontrados.", errors.size());
     }
@@ -1,236 +1,921 @@
 package semantic;
 
+import ast.*;
 import lexer.Token;
 import lexer.TokenType;
-import parser.SLR1Parser;
+import parser.Grammar;
+import parser.ParseTreeArena;
+import parser.ParseTreeWalker;
 import parser.SLR1Parser.ParseTreeNode;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntFunction;
 
 public class SemanticAnalyzer {
-    private final SymbolTable symbolTable = new SymbolTable();
+    // Acción de TreeAnalysis para cada tipo de nodo, indexada por ParseTreeArena.getKind
+    private static final byte OTHER = 0;
+    private static final byte DECLARATION = 1;
+    private static final byte FUNCTION = 2;
+    private static final byte BLOCK = 3;
+    private static final byte FOR = 4;
+    private static final byte EXPRESSION_STATEMENT = 5;
+    private static final byte RETURN = 6;
+    private static final byte EXPRESSION = 7;
+    private static final byte IF_OR_WHILE = 8;
+    private static final byte DO_WHILE = 9;
+    private static final byte[] ACTIONS = new byte[ParseTreeArena.ERROR_KIND + 1];
+
+    private static final int BLOCK_KIND = ParseTreeArena.getNonTerminalKind("block");
+    private static final int FOR_KIND = ParseTreeArena.getNonTerminalKind("for_stmt");
+    private static final int FUNCTION_KIND = ParseTreeArena.getNonTerminalKind("function_decl");
+    private static final int PARAMS_KIND = ParseTreeArena.getNonTerminalKind("params");
+    private static final int PARAM_LIST_KIND = ParseTreeArena.getNonTerminalKind("param_list");
+    private static final int FOR_COND_KIND = ParseTreeArena.getNonTerminalKind("for_cond");
+    // Lados derechos de las producciones de cada no terminal como tipos de nodo, indexados por su tipo
+    private static final int[][][] RIGHT_SIDES = new int[ParseTreeArena.ERROR_KIND][][];
+
+    static {
+        for (Grammar.Production production : Grammar.getProductions()) {
+            if (production.getLeftId() < 0) {
+                continue;
+            }
+            int[] side = new int[production.getLength()];
+            for (int i = 0; i < side.length; i++) {
+                String symbol = production.getRight().get(i);
+                side[i] = Grammar.isTerminal(symbol) ? Grammar.getTerminalId(symbol)
+                        : ParseTreeArena.getNonTerminalKind(symbol);
+            }
+            int kind = Grammar.getTerminalCount() + production.getLeftId();
+            int[][] sides = RIGHT_SIDES[kind] == null ? new int[1][] : Arrays.copyOf(RIGHT_SIDES[kind],
+                    RIGHT_SIDES[kind].length + 1);
+            sides[sides.length - 1] = side;
+            RIGHT_SIDES[kind] = sides;
+        }
+
+        setAction(DECLARATION, "decl_stmt", "decl_stmt_inline");
+        setAction(FUNCTION, "function_decl");
+        setAction(BLOCK, "block");
+        setAction(FOR, "for_stmt");
+        setAction(EXPRESSION_STATEMENT, "expr_stmt");
+        setAction(RETURN, "return_stmt");
+        setAction(EXPRESSION, "expr", "and_expr", "eq_expr", "rel_expr", "add_expr", "term",
+                "unary_expr", "postfix_expr", "factor");
+        setAction(IF_OR_WHILE, "if_stmt", "while_stmt");
+        setAction(DO_WHILE, "do_while_stmt");
+    }
+
+    private final SymbolTable symbolTable;
     private final List<SemanticError> errors = new ArrayList<>();
+    // Símbolos visibles al cerrar cada ámbito, para consultas posteriores
+    private final Map<Object, PersistentSymbolMap> scopeSnapshots = new HashMap<>();
+    // Símbolo de cada variable declarada, por el índice de su nodo IDENTIFIER
+    private final Map<Integer, Symbol> declaredSymbols = new HashMap<>();
     private TokenType currentFunctionReturnType = null;
+    // Tipo de retorno de las funciones que encierran a la actual, de la más externa a la más interna
+    private final List<TokenType> enclosingReturnTypes = new ArrayList<>();
+
+    private ParseTreeArena tree;
+    private TypeChecker typeChecker;
+    // Clave de cada nodo del árbol en scopeSnapshots (el ParseTreeNode original o su índice)
+    private IntFunction<Object> snapshotKeys;
+    // Funciones cuyo ámbito se abrió (el recorrido llama a exit también si enter devolvió false)
+    private final BitSet openFunctions = new BitSet();
+    // Funciones cuyo cuerpo se analizará en paralelo (null en el análisis secuencial)
+    private List<DeferredFunction> deferred;
+
+    /**
+     * Función cuya cabecera ya se comprobó y cuyo cuerpo se analiza en una
+     * tarea aparte, con una tabla derivada de la tabla global.
+     */
+    private static final class DeferredFunction {
+        final int node;
+        final TokenType returnType;
+        final SymbolTable symbolTable;
+        // Posición de sus errores entre los del recorrido principal
+        final int errorIndex;
+
+        DeferredFunction(int node, TokenType returnType, SymbolTable symbolTable, int errorIndex) {
+            this.node = node;
+            this.returnType = returnType;
+            this.symbolTable = symbolTable;
+            this.errorIndex = errorIndex;
+        }
+    }
+
+    public SemanticAnalyzer() {
+        this(new SymbolTable());
+    }
+
+    private SemanticAnalyzer(SymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+    }
 
+    private static void setAction(byte action, String... nonTerminals) {
+        for (String nonTerminal : nonTerminals) {
+            ACTIONS[ParseTreeArena.getNonTerminalKind(nonTerminal)] = action;
+        }
+    }
+
+    /**
+     * Analiza un árbol de objetos. El árbol se copia a un árbol en arreglos
+     * para que el tipo de cada nodo pueda memorizarse por su índice.
+     *
+     * @throws IllegalArgumentException Si el árbol no se construyó en modo TreeMode.FULL
+     */
     public SemanticAnalysisResult analyze(ParseTreeNode root) {
-        traverse(root);
-        return new SemanticAnalysisResult(errors, symbolTable);
+        // Los nodos del árbol en arreglos se numeran en postorden, igual que esta lista
+        List<ParseTreeNode> nodes = new ArrayList<>();
+        ParseTreeWalker.walk(root, new ParseTreeWalker.Listener() {
+            @Override
+            public boolean enter(ParseTreeNode node) {
+                return true;
+            }
+
+            @Override
+            public void exit(ParseTreeNode node) {
+                nodes.add(node);
+            }
+        });
+        ParseTreeArena tree = ParseTreeArena.from(root);
+        if (!hasFullShape(tree)) {
+            throw new IllegalArgumentException("El análisis semántico necesita un árbol construido en modo FULL");
+        }
+        return analyze(tree, nodes::get);
     }
 
-    private void traverse(ParseTreeNode node) {
-        try {
-            switch (node.getSymbol()) {
-                case "program":
-                    processProgram(node);
-                    break;
-                case "decl_stmt":
+    /**
+     * Comprueba que los hijos de cada no terminal sean exactamente el lado
+     * derecho de una de sus producciones, como en los árboles del modo
+     * FULL; en el modo COLLAPSED faltan los nodos de las producciones
+     * unitarias. Los nodos con un hijo de error no se comprueban.
+     */
+    private static boolean hasFullShape(ParseTreeArena tree) {
+        for (int node = 0; node < tree.getNodeCount(); node++) {
+            if (tree.isTerminal(node) || tree.isError(node) || hasErrorChild(tree, node)) {
+                continue;
+            }
+            int[][] sides = RIGHT_SIDES[tree.getKind(node)];
+            boolean matched = false;
+            for (int s = 0; sides != null && s < sides.length && !matched; s++) {
+                int[] side = sides[s];
+                int child = tree.getFirstChild(node);
+                int i = 0;
+                while (child != ParseTreeArena.NONE && i < side.length && tree.getKind(child) == side[i]) {
+                    child = tree.getNextSibling(child);
+                    i++;
+                }
+                matched = child == ParseTreeArena.NONE && i == side.length;
+            }
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasErrorChild(ParseTreeArena tree, int node) {
+        for (int child = tree.getFirstChild(node); child != ParseTreeArena.NONE; child = tree.getNextSibling(child)) {
+            if (tree.isError(child)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Analiza un árbol en arreglos. Los símbolos visibles de cada ámbito se
+     * consultan en el resultado con el índice del nodo.
+     */
+    public SemanticAnalysisResult analyze(ParseTreeArena tree) {
+        return analyze(tree, Integer::valueOf, null);
+    }
+
+    /**
+     * Analiza un árbol en arreglos comprobando los cuerpos de las funciones
+     * en paralelo. Primero se recorre el programa sin entrar en los cuerpos,
+     * lo que registra todos los símbolos globales; después cada cuerpo se
+     * analiza en una tarea del pool con su propia tabla derivada y su propia
+     * lista de errores. Cada cuerpo ve exactamente los símbolos que vería en
+     * el análisis secuencial, y los resultados se unen en el orden del
+     * programa, así que el resultado es idéntico al de {@link #analyze(ParseTreeArena)}.
+     */
+    public SemanticAnalysisResult analyze(ParseTreeArena tree, ForkJoinPool pool) {
+        return analyze(tree, Integer::valueOf, pool);
+    }
+
+    private SemanticAnalysisResult analyze(ParseTreeArena tree, IntFunction<Object> snapshotKeys) {
+        return analyze(tree, snapshotKeys, null);
+    }
+
+    private SemanticAnalysisResult analyze(ParseTreeArena tree, IntFunction<Object> snapshotKeys, ForkJoinPool pool) {
+        this.tree = tree;
+        this.typeChecker = new TypeChecker(tree, symbolTable, errors);
+        this.snapshotKeys = snapshotKeys;
+        if (tree.getNodeCount() > 0) {
+            deferred = pool != null ? new ArrayList<>() : null;
+            new TreeAnalysis().run(tree.getRoot());
+            scopeSnapshots.put(snapshotKeys.apply(tree.getRoot()), symbolTable.snapshot());
+            if (deferred != null) {
+                analyzeDeferredFunctions(pool);
+                deferred = null;
+            }
+        }
+        return new SemanticAnalysisResult(errors, symbolTable, scopeSnapshots, tree, typeChecker, declaredSymbols);
+    }
+
+    /**
+     * Analiza en el pool los cuerpos aplazados y une sus resultados, en el
+     * orden de las funciones, con los del recorrido principal.
+     */
+    private void analyzeDeferredFunctions(ForkJoinPool pool) {
+        List<ForkJoinTask<SemanticAnalyzer>> tasks = new ArrayList<>();
+        for (DeferredFunction function : deferred) {
+            tasks.add(pool.submit(() -> {
+                SemanticAnalyzer worker = new SemanticAnalyzer(function.symbolTable);
+                worker.analyzeFunctionBody(this, function);
+                return worker;
+            }));
+        }
+
+        List<SemanticError> merged = new ArrayList<>();
+        int copied = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            DeferredFunction function = deferred.get(i);
+            SemanticAnalyzer worker = tasks.get(i).join();
+            merged.addAll(errors.subList(copied, function.errorIndex));
+            merged.addAll(worker.errors);
+            copied = function.errorIndex;
+            symbolTable.merge(worker.symbolTable);
+            typeChecker.getCallSites().merge(worker.typeChecker.getCallSites());
+            scopeSnapshots.putAll(worker.scopeSnapshots);
+            declaredSymbols.putAll(worker.declaredSymbols);
+        }
+        merged.addAll(errors.subList(copied, errors.size()));
+        errors.clear();
+        errors.addAll(merged);
+    }
+
+    /**
+     * Analiza el cuerpo de una función aplazada. Se ejecuta en un analizador
+     * propio de la tarea que comparte con el principal el árbol y los tipos
+     * memorizados.
+     */
+    private void analyzeFunctionBody(SemanticAnalyzer main, DeferredFunction function) {
+        tree = main.tree;
+        typeChecker = main.typeChecker.withScope(symbolTable, errors);
+        snapshotKeys = main.snapshotKeys;
+        openFunction(function.node, function.returnType);
+        // function_decl -> type IDENTIFIER ( params ) block
+        new TreeAnalysis().run(child(function.node, 5));
+        closeFunction(function.node);
+    }
+
+    /**
+     * Analiza el AST construido con ast.AstBuilder. Aplica las mismas reglas
+     * que el recorrido del árbol concreto, pero el tipo de cada expresión se
+     * calcula a partir de sus operandos.
+     */
+    public SemanticAnalysisResult analyze(Program program) {
+        new AstAnalysis().visitProgram(program);
+        scopeSnapshots.put(program, symbolTable.snapshot());
+        return new SemanticAnalysisResult(errors, symbolTable, scopeSnapshots);
+    }
+
+    /**
+     * Recorrido iterativo del árbol: las declaraciones se procesan al entrar
+     * en su nodo, el tipo de cada expresión se calcula (y memoriza) la
+     * primera vez que se alcanza, y los ámbitos se cierran al salir del
+     * bloque, del for o de la función. Cada nodo se despacha con una
+     * consulta al arreglo ACTIONS por su tipo, sin comparar cadenas.
+     *
+     * Un fallo interno no se captura en cada nodo: interrumpe el recorrido
+     * y se informa una sola vez, en la posición del último nodo visitado.
+     */
+    private class TreeAnalysis implements ParseTreeArena.Visitor {
+        private int current = ParseTreeArena.NONE;
+
+        /**
+         * Recorre el subárbol de un nodo.
+         */
+        void run(int root) {
+            try {
+                tree.walk(root, this);
+            } catch (RuntimeException e) {
+                Token token = current == ParseTreeArena.NONE ? null : firstToken(current);
+                String message = "Error durante el análisis semántico: " + e.getMessage();
+                errors.add(token != null ? new SemanticError(message, token) : new SemanticError(message, 0, 0));
+            }
+        }
+
+        @Override
+        public boolean enter(ParseTreeArena tree, int node, int depth) {
+            current = node;
+            switch (ACTIONS[tree.getKind(node)]) {
+                case DECLARATION:
                     processDeclaration(node);
-                    break;
-                case "function_decl":
-                    processFunctionDeclaration(node);
-                    break;
-                case "expr":
-                    processExpression(node);
-                    break;
-                case "block":
+                    return false;
+                case FUNCTION: {
+                    TokenType returnType = checkFunctionHeader(node);
+                    if (returnType == null) {
+                        return false;
+                    }
+                    if (deferred != null) {
+                        deferFunction(node, returnType);
+                        return false;
+                    }
+                    openFunction(node, returnType);
+                    openFunctions.set(node);
+                    return true;
+                }
+                case BLOCK:
+                case FOR:
                     symbolTable.enterScope();
-                    for (ParseTreeNode child : node.getChildren()) {
-                        traverse(child);
+                    return true;
+                case EXPRESSION_STATEMENT:
+                    processExpressionStatement(node);
+                    return false;
+                case RETURN:
+                    processReturn(node);
+                    return false;
+                case EXPRESSION:
+                    // Raíz de una expresión (condición, selector, argumento del for...)
+                    typeChecker.typeOf(node);
+                    return false;
+                default:
+                    // Los terminales no tienen hijos; el resto de nodos solo se recorren
+                    return !tree.isTerminal(node);
+            }
+        }
+
+        @Override
+        public void exit(ParseTreeArena tree, int node, int depth) {
+            current = node;
+            switch (ACTIONS[tree.getKind(node)]) {
+                case FUNCTION:
+                    if (openFunctions.get(node)) {
+                        closeFunction(node);
                     }
+                    break;
+                case BLOCK:
+                    scopeSnapshots.put(snapshotKeys.apply(node), symbolTable.snapshot());
                     symbolTable.exitScope();
                     break;
+                case FOR:
+                    // for ( init ; cond ; update ) block
+                    checkCondition(child(node, 4));
+                    symbolTable.exitScope();
+                    break;
+                case IF_OR_WHILE:
+                    checkCondition(child(node, 2));
+                    break;
+                case DO_WHILE:
+                    checkCondition(child(node, 4));
+                    break;
                 default:
-                    for (ParseTreeNode child : node.getChildren()) {
-                        traverse(child);
-                    }
+                    break;
             }
-        } catch (Exception e) {
-            errors.add(new SemanticError("Error durante el análisis semántico: " + e.getMessage(),
-                    node.isTerminal() ? node.getToken() : null));
         }
     }
 
-    private void processProgram(ParseTreeNode node) {
-        for (ParseTreeNode child : node.getChildren()) {
-            traverse(child);
+    /**
+     * Obtiene el hijo en la posición indicada (NONE si no existe).
+     */
+    private int child(int node, int index) {
+        int child = tree.getFirstChild(node);
+        for (int i = 0; i < index && child != ParseTreeArena.NONE; i++) {
+            child = tree.getNextSibling(child);
         }
+        return child;
     }
-    
-    private TokenType getTokenTypeFromNode(ParseTreeNode node) {
-        if (node == null || node.getSymbol() == null) {
-            return null;
-        }
-
-        // Mapeo especial para tipos de datos
-        if (node.getSymbol().equals("type")) {
-            return getTypeFromTypeNode(node);
-        }
 
-        // Para nodos terminales (que tienen token)
-        if (node.isTerminal() && node.getToken() != null) {
-            return node.getToken().getType();
-        }
-
-        // Mapeo de símbolos no terminales a tipos
-        switch (node.getSymbol()) {
-            case "INTEGER":
-                return TokenType.INT;
-            case "FLOAT_NUMBER":
-                return TokenType.FLOAT;
-            case "STRING_LITERAL":
-                return TokenType.STRING_LITERAL;
-            case "CHAR_LITERAL":
-                return TokenType.CHAR_LITERAL;
-            case "TRUE":
-            case "FALSE":
-                return TokenType.BOOLEAN;
-            default:
-                return null;
+    /**
+     * Obtiene el primer token de un subárbol, para situar los errores.
+     */
+    private Token firstToken(int node) {
+        while (node != ParseTreeArena.NONE && !tree.isTerminal(node)) {
+            node = tree.getFirstChild(node);
         }
+        return node == ParseTreeArena.NONE ? null : tree.getToken(node);
     }
 
-    private TokenType getTypeFromTypeNode(ParseTreeNode typeNode) {
-        // typeNode es un nodo "type" con hijos como "INT", "FLOAT", etc.
-        if (typeNode.getChildren().isEmpty() || !typeNode.getChildren().get(0).isTerminal()) {
+    private TokenType getTypeFromTypeNode(int typeNode) {
+        // typeNode es un nodo "type" con un hijo como INT, FLOAT, etc.
+        if (tree.isTerminal(typeNode)) {
+            return tree.getToken(typeNode).getType();
+        }
+        int keyword = tree.getFirstChild(typeNode);
+        if (keyword == ParseTreeArena.NONE || !tree.isTerminal(keyword)) {
             return null;
         }
-
-        return typeNode.getChildren().get(0).getToken().getType();
+        return tree.getToken(keyword).getType();
     }
 
-    private void processDeclaration(ParseTreeNode node) {
+    /**
+     * Declaración de variable: type IDENTIFIER [ASSIGN expr] [SEMICOLON].
+     */
+    private void processDeclaration(int node) {
         // Obtener el tipo
-        TokenType type = getTokenTypeFromNode(node.getChildren().get(0));
+        TokenType type = getTypeFromTypeNode(child(node, 0));
         if (type == null) {
-            errors.add(new SemanticError("Tipo no válido en declaración",
-                    node.getChildren().get(0).getToken()));
+            errors.add(new SemanticError("Tipo no válido en declaración", firstToken(node)));
             return;
         }
 
-        String identifier = node.getChildren().get(1).getToken().getLexeme();
+        int identifierNode = child(node, 1);
+        Token identifierToken = tree.getToken(identifierNode);
+        String identifier = identifierToken.getLexeme();
 
         // Verificar si la variable ya está declarada
         if (symbolTable.lookup(identifier) != null) {
-            errors.add(new SemanticError("Variable '" + identifier + "' ya declarada",
-                    node.getChildren().get(1).getToken()));
+            errors.add(new SemanticError("Variable '" + identifier + "' ya declarada", identifierToken));
             return;
         }
 
+        // El inicializador se comprueba antes de declarar la variable: no puede usarse a sí misma
+        int initializer = child(node, 3);
+        if (initializer != ParseTreeArena.NONE) {
+            checkAssignment(type, initializer, identifierToken);
+        }
+
         // Agregar a la tabla de símbolos
         Symbol symbol = new Symbol(identifier, type, null, symbolTable.getCurrentScope());
         if (!symbolTable.addSymbol(symbol)) {
             errors.add(new SemanticError("No se pudo agregar la variable '" + identifier + "' a la tabla de símbolos",
-                    node.getChildren().get(1).getToken()));
-        }
-
-        // Verificación de tipo en asignación
-        if (node.getChildren().size() > 3) {
-            TokenType exprType = checkExpressionType(node.getChildren().get(3));
-            if (exprType != null && !areTypesCompatible(type, exprType)) {
-                errors.add(new SemanticError("Asignación incompatible: no se puede convertir de " + exprType + " a " + type,
-                        node.getChildren().get(1).getToken()));
-            }
+                    identifierToken));
+        } else {
+            declaredSymbols.put(identifierNode, symbol);
         }
     }
 
-    private void processFunctionDeclaration(ParseTreeNode node) {
-        TokenType returnType = getTokenTypeFromNode(node.getChildren().get(0));
+    /**
+     * Comprueba la cabecera de una función.
+     *
+     * @return Tipo de retorno, o null si no hay que analizar el cuerpo
+     */
+    private TokenType checkFunctionHeader(int node) {
+        TokenType returnType = getTypeFromTypeNode(child(node, 0));
         if (returnType == null) {
-            errors.add(new SemanticError("Tipo de retorno no válido",
-                    node.getChildren().get(0).getToken()));
-            return;
+            errors.add(new SemanticError("Tipo de retorno no válido", firstToken(node)));
+            return null;
         }
 
-        String functionName = node.getChildren().get(1).getToken().getLexeme();
+        Token nameToken = tree.getToken(child(node, 1));
+        String functionName = nameToken.getLexeme();
 
         // Verificar si la función ya está declarada
         if (symbolTable.lookup(functionName) != null) {
-            errors.add(new SemanticError("Función '" + functionName + "' ya declarada",
-                    node.getChildren().get(1).getToken()));
-            return;
+            errors.add(new SemanticError("Función '" + functionName + "' ya declarada", nameToken));
+            return null;
         }
 
-        // Procesar parámetros
+        // Agregar función a la tabla de símbolos antes del cuerpo, para permitir la recursión
         List<TokenType> paramTypes = new ArrayList<>();
-        if (node.getChildren().size() > 3 && node.getChildren().get(3).getSymbol().equals("param_list")) {
-            for (ParseTreeNode param : node.getChildren().get(3).getChildren()) {
-                if (param.getSymbol().equals("param")) {
-                    TokenType paramType = getTokenTypeFromNode(param.getChildren().get(0));
-                    if (paramType != null) {
-                        paramTypes.add(paramType);
-                    }
-                }
-            }
+        for (int param : functionParams(node)) {
+            paramTypes.add(getTypeFromTypeNode(child(param, 0)));
         }
+        symbolTable.addSymbol(new Symbol(functionName, returnType, null, symbolTable.getCurrentScope(),
+                true, returnType, Collections.unmodifiableList(paramTypes)));
+        return returnType;
+    }
 
-        // Agregar función a la tabla de símbolos
-        //Symbol functionSymbol = new Symbol(functionName, TokenType.FUNCTION, null, 
-                                         //symbolTable.getCurrentScope(), true, returnType, paramTypes);
-        //symbolTable.addSymbol(functionSymbol);
+    /**
+     * Aplaza el análisis del cuerpo de una función. La tabla derivada ve los
+     * símbolos visibles en este punto, y se reservan los números de los
+     * ámbitos que abrirá el cuerpo (el de la función y uno por cada bloque
+     * y cada for) para que coincidan con los del análisis secuencial. Si
+     * una función anidada tiene una cabecera errónea, los números reservados
+     * para sus bloques quedan sin usar.
+     */
+    private void deferFunction(int node, TokenType returnType) {
+        int scopeCount = 0;
+        for (int i = tree.getSubtreeStart(node); i <= node; i++) {
+            int kind = tree.getKind(i);
+            if (kind == FUNCTION_KIND || kind == BLOCK_KIND || kind == FOR_KIND) {
+                scopeCount++;
+            }
+        }
+        SymbolTable functionTable = symbolTable.fork(symbolTable.reserveScopes(scopeCount));
+        deferred.add(new DeferredFunction(node, returnType, functionTable, errors.size()));
+    }
 
-        // Procesar el cuerpo de la función
+    /**
+     * Abre el ámbito de una función y declara en él los parámetros. El
+     * ámbito se cierra con closeFunction al terminar el cuerpo.
+     */
+    private void openFunction(int node, TokenType returnType) {
+        // Los parámetros pertenecen al ámbito de la función; el cuerpo abre el suyo
+        enclosingReturnTypes.add(currentFunctionReturnType);
         currentFunctionReturnType = returnType;
         symbolTable.enterScope();
-        traverse(node.getChildren().get(node.getChildren().size() - 1)); // block
+        for (int param : functionParams(node)) {
+            TokenType paramType = getTypeFromTypeNode(child(param, 0));
+            Token paramToken = tree.getToken(child(param, 1));
+            if (paramType != null && !symbolTable.addSymbol(new Symbol(paramToken.getLexeme(), paramType, null,
+                    symbolTable.getCurrentScope()))) {
+                errors.add(new SemanticError("Parámetro '" + paramToken.getLexeme() + "' repetido", paramToken));
+            }
+        }
+    }
+
+    /**
+     * Obtiene los nodos param de una función, que están en la cadena
+     * recursiva por la izquierda de param_list.
+     */
+    private List<Integer> functionParams(int node) {
+        List<Integer> params = new ArrayList<>();
+        int list = child(node, 3);
+        if (list != ParseTreeArena.NONE && tree.getKind(list) == PARAMS_KIND) {
+            list = child(list, 0);
+        }
+        while (list != ParseTreeArena.NONE && tree.getKind(list) == PARAM_LIST_KIND) {
+            int last = child(list, tree.getChildCount(list) - 1);
+            params.add(last);
+            list = tree.getChildCount(list) == 1 ? ParseTreeArena.NONE : child(list, 0);
+        }
+        Collections.reverse(params);
+        return params;
+    }
+
+    private void closeFunction(int node) {
+        scopeSnapshots.put(snapshotKeys.apply(node), symbolTable.snapshot());
         symbolTable.exitScope();
-        currentFunctionReturnType = null;
+        currentFunctionReturnType = enclosingReturnTypes.remove(enclosingReturnTypes.size() - 1);
     }
 
-    private TokenType checkExpressionType(ParseTreeNode exprNode) {
-        if (exprNode == null) {
-            return null;
+    /**
+     * Sentencia de expresión: expr ; o IDENTIFIER op= expr ;
+     */
+    private void processExpressionStatement(int node) {
+        int first = child(node, 0);
+        if (!tree.isTerminal(first)) {
+            typeChecker.typeOf(first);
+            return;
         }
 
-        // Para nodos terminales
-        if (exprNode.isTerminal()) {
-            return getTokenTypeFromNode(exprNode);
+        Token target = tree.getToken(first);
+        Symbol symbol = symbolTable.lookup(target.getLexeme());
+        int operatorNode = child(node, 1);
+        Token operator = tree.getToken(tree.isTerminal(operatorNode) ? operatorNode : child(operatorNode, 0));
+        int value = child(node, 2);
+        if (symbol == null || symbol.isFunction()) {
+            errors.add(new SemanticError(symbol == null ? "Variable '" + target.getLexeme() + "' no declarada"
+                    : "No se puede asignar a la función '" + target.getLexeme() + "'", target));
+            typeChecker.typeOf(value);
+            return;
         }
 
-        // Para expresiones más complejas
-        switch (exprNode.getSymbol()) {
-            case "expr":
-            case "and_expr":
-            case "eq_expr":
-            case "rel_expr":
-            case "add_expr":
-            case "term":
-                return checkExpressionType(exprNode.getChildren().get(0));
+        if (operator.getType() == TokenType.ASSIGN) {
+            checkAssignment(symbol.getType(), value, target);
+        } else {
+            checkCompoundAssignment(symbol.getType(), operator, typeChecker.typeOf(value));
+        }
+    }
 
-            case "factor":
-                if (exprNode.getChildren().get(0).getSymbol().equals("LEFT_PAREN")) {
-                    return checkExpressionType(exprNode.getChildren().get(1));
-                }
-                return checkExpressionType(exprNode.getChildren().get(0));
+    /**
+     * Sentencia return: el valor debe poder convertirse al tipo de retorno.
+     */
+    private void processReturn(int node) {
+        int value = child(node, 1);
+        checkReturn(typeChecker.typeOf(value), typeChecker.integerConstant(value), tree.getToken(child(node, 0)));
+    }
 
-            case "postfix_expr":
-                return checkExpressionType(exprNode.getChildren().get(0));
+    /**
+     * Comprueba que el valor de una expresión puede asignarse a una variable.
+     */
+    private void checkAssignment(TokenType target, int value, Token token) {
+        checkAssignable(target, typeChecker.typeOf(value), typeChecker.integerConstant(value), token);
+    }
 
-            case "unary_expr":
-                if (exprNode.getChildren().size() == 1) {
-                    return checkExpressionType(exprNode.getChildren().get(0));
-                }
-                return checkExpressionType(exprNode.getChildren().get(1));
+    /**
+     * Comprueba que la condición de un if, while, do-while o for es booleana.
+     */
+    private void checkCondition(int condition) {
+        if (condition == ParseTreeArena.NONE || tree.isTerminal(condition)) {
+            return;
+        }
+        // La condición vacía de un for (for_cond -> ε) no tiene expresión
+        if (tree.getKind(condition) == FOR_COND_KIND) {
+            condition = child(condition, 0);
+            if (condition == ParseTreeArena.NONE || tree.isTerminal(condition)) {
+                return;
+            }
+        }
+        checkConditionType(typeChecker.typeOf(condition), firstToken(condition));
+    }
 
-            case "function_call":
-                Symbol func = symbolTable.lookup(exprNode.getChildren().get(0).getToken().getLexeme());
-                return func != null ? func.getReturnType() : null;
+    // Reglas comunes al análisis del árbol y al del AST
 
-            default:
-                return null;
+    /**
+     * Comprueba que un valor puede guardarse en una variable del tipo target.
+     *
+     * @param constant Valor si la expresión es un literal entero (null si no lo es)
+     */
+    private void checkAssignable(TokenType target, TokenType valueType, Long constant, Token token) {
+        if (valueType != null && !TypeRules.isAssignable(target, valueType, constant)) {
+            errors.add(new SemanticError("Asignación incompatible: no se puede convertir de " + valueType + " a " + target,
+                    token));
+        }
+    }
+
+    /**
+     * Asignación compuesta: x op= e equivale a x = x op e con conversión
+     * implícita al tipo de x, así que basta con que la operación sea válida.
+     */
+    private void checkCompoundAssignment(TokenType targetType, Token operator, TokenType valueType) {
+        TokenType binaryOperator = switch (operator.getType()) {
+            case PLUS_ASSIGN -> TokenType.PLUS;
+            case MINUS_ASSIGN -> TokenType.MINUS;
+            case MULTIPLY_ASSIGN -> TokenType.MULTIPLY;
+            case DIVIDE_ASSIGN -> TokenType.DIVIDE;
+            default -> TokenType.MODULO;
+        };
+        TokenType result = TypeRules.binary(binaryOperator, targetType, valueType);
+        if (valueType != null && (result == null
+                || !(TypeRules.isAssignable(targetType, result) || TypeRules.isNumeric(targetType)))) {
+            errors.add(new SemanticError("Operador '" + operator.getLexeme() + "' no aplicable a "
+                    + targetType + " y " + valueType, operator));
         }
     }
 
-    private boolean areTypesCompatible(TokenType target, TokenType source) {
-        // Implementar reglas de compatibilidad de tipos
-        // Esto es muy básico - deberías expandirlo
-        return target == source;
+    /**
+     * Comprueba el valor de un return frente al tipo de la función actual.
+     */
+    private void checkReturn(TokenType valueType, Long constant, Token token) {
+        if (currentFunctionReturnType == null) {
+            errors.add(new SemanticError("Sentencia return fuera de una función", token));
+        } else if (currentFunctionReturnType == TokenType.VOID) {
+            errors.add(new SemanticError("Una función void no puede devolver un valor", token));
+        } else if (valueType != null && !TypeRules.isAssignable(currentFunctionReturnType, valueType, constant)) {
+            errors.add(new SemanticError("Tipo de retorno incompatible: se esperaba " + currentFunctionReturnType
+                    + " y se encontró " + valueType, token));
+        }
     }
 
-    private void processExpression(ParseTreeNode node) {
-        // Verificar tipos en expresiones
-        // Implementar según tus necesidades
-        for (ParseTreeNode child : node.getChildren()) {
-            traverse(child);
+    private void checkConditionType(TokenType type, Token token) {
+        if (type != null && type != TokenType.BOOLEAN) {
+            errors.add(new SemanticError("La condición debe ser de tipo BOOLEAN, no " + type, token));
+        }
+    }
+
+    /**
+     * Recorrido del AST. Las sentencias devuelven null y las expresiones su
+     * tipo (null si no se puede determinar).
+     */
+    private class AstAnalysis implements AstVisitor<TokenType> {
+
+        private void visitAll(List<? extends ast.Node> nodes) {
+            for (ast.Node node : nodes) {
+                visit(node);
+            }
+        }
+
+        private TokenType visit(ast.Node node) {
+            return node == null ? null : node.accept(this);
+        }
+
+        @Override
+        public TokenType visitProgram(Program node) {
+            visitAll(node.getStatements());
+            return null;
+        }
+
+        @Override
+        public TokenType visitBlock(Block node) {
+            symbolTable.enterScope();
+            visitAll(node.getStatements());
+            scopeSnapshots.put(node, symbolTable.snapshot());
+            symbolTable.exitScope();
+            return null;
+        }
+
+        @Override
+        public TokenType visitVarDecl(VarDecl node) {
+            TokenType type = node.getType();
+            String identifier = node.getName();
+
+            // Verificar si la variable ya está declarada
+            if (symbolTable.lookup(identifier) != null) {
+                errors.add(new SemanticError("Variable '" + identifier + "' ya declarada", node.getToken()));
+                return null;
+            }
+
+            // Verificación de tipo en asignación, antes de declarar la variable
+            if (node.getInitializer() != null) {
+                checkAssignable(type, visit(node.getInitializer()), integerConstant(node.getInitializer()),
+                        node.getToken());
+            }
+
+            if (!symbolTable.addSymbol(new Symbol(identifier, type, null, symbolTable.getCurrentScope()))) {
+                errors.add(new SemanticError("No se pudo agregar la variable '" + identifier + "' a la tabla de símbolos",
+                        node.getToken()));
+            }
+            return null;
+        }
+
+        @Override
+        public TokenType visitFunctionDecl(FunctionDecl node) {
+            String functionName = node.getName();
+
+            // Verificar si la función ya está declarada
+            if (symbolTable.lookup(functionName) != null) {
+                errors.add(new SemanticError("Función '" + functionName + "' ya declarada", node.getToken()));
+                return null;
+            }
+
+            // Agregar función a la tabla de símbolos antes del cuerpo, para permitir la recursión
+            List<TokenType> paramTypes = new ArrayList<>();
+            for (Param param : node.getParams()) {
+                paramTypes.add(param.getType());
+            }
+            symbolTable.addSymbol(new Symbol(functionName, node.getReturnType(), null, symbolTable.getCurrentScope(),
+                    true, node.getReturnType(), Collections.unmodifiableList(paramTypes)));
+
+            // Los parámetros pertenecen al ámbito de la función; el cuerpo abre el suyo
+            TokenType enclosingReturnType = currentFunctionReturnType;
+            currentFunctionReturnType = node.getReturnType();
+            symbolTable.enterScope();
+            visitAll(node.getParams());
+            visitBlock(node.getBody());
+            scopeSnapshots.put(node, symbolTable.snapshot());
+            symbolTable.exitScope();
+            currentFunctionReturnType = enclosingReturnType;
+            return null;
+        }
+
+        @Override
+        public TokenType visitParam(Param node) {
+            if (!symbolTable.addSymbol(new Symbol(node.getName(), node.getType(), null, symbolTable.getCurrentScope()))) {
+                errors.add(new SemanticError("Parámetro '" + node.getName() + "' repetido", node.getToken()));
+            }
+            return null;
+        }
+
+        @Override
+        public TokenType visitExprStmt(ExprStmt node) {
+            visit(node.getExpression());
+            return null;
+        }
+
+        @Override
+        public TokenType visitAssign(Assign node) {
+            Symbol symbol = symbolTable.lookup(node.getName());
+            TokenType valueType = visit(node.getValue());
+            if (symbol == null) {
+                errors.add(new SemanticError("Variable '" + node.getName() + "' no declarada", node.getToken()));
+            } else if (symbol.isFunction()) {
+                errors.add(new SemanticError("No se puede asignar a la función '" + node.getName() + "'",
+                        node.getToken()));
+            } else if (node.getOperator().getType() == TokenType.ASSIGN) {
+                checkAssignable(symbol.getType(), valueType, integerConstant(node.getValue()), node.getToken());
+            } else {
+                checkCompoundAssignment(symbol.getType(), node.getOperator(), valueType);
+            }
+            return null;
+        }
+
+        @Override
+        public TokenType visitIf(If node) {
+            checkConditionType(visit(node.getCondition()), node.getCondition().getToken());
+            visit(node.getThenBranch());
+            visit(node.getElseBranch());
+            return null;
+        }
+
+        @Override
+        public TokenType visitWhile(While node) {
+            checkConditionType(visit(node.getCondition()), node.getCondition().getToken());
+            visit(node.getBody());
+            return null;
+        }
+
+        @Override
+        public TokenType visitDoWhile(DoWhile node) {
+            visit(node.getBody());
+            checkConditionType(visit(node.getCondition()), node.getCondition().getToken());
+            return null;
+        }
+
+        @Override
+        public TokenType visitFor(For node) {
+            // La variable declarada en la cabecera es local al for
+            symbolTable.enterScope();
+            visit(node.getInitializer());
+            if (node.getCondition() != null) {
+                checkConditionType(visit(node.getCondition()), node.getCondition().getToken());
+            }
+            visit(node.getUpdate());
+            visit(node.getBody());
+            symbolTable.exitScope();
+            return null;
+        }
+
+        @Override
+        public TokenType visitReturn(Return node) {
+            checkReturn(visit(node.getValue()), integerConstant(node.getValue()), node.getToken());
+            return null;
+        }
+
+        @Override
+        public TokenType visitBreak(Break node) {
+            return null;
+        }
+
+        @Override
+        public TokenType visitSwitch(Switch node) {
+            visit(node.getSelector());
+            visitAll(node.getCases());
+            return null;
+        }
+
+        @Override
+        public TokenType visitCase(Case node) {
+            visitAll(node.getBody());
+            return null;
+        }
+
+        @Override
+        public TokenType visitBinaryExpr(BinaryExpr node) {
+            TokenType left = visit(node.getLeft());
+            TokenType right = visit(node.getRight());
+            TokenType result = TypeRules.binary(node.getOperator(), left, right);
+            if (result == null && left != null && right != null) {
+                errors.add(new SemanticError("Operador '" + node.getToken().getLexeme() + "' no aplicable a "
+                        + left + " y " + right, node.getToken()));
+            }
+            return result;
+        }
+
+        @Override
+        public TokenType visitUnaryExpr(UnaryExpr node) {
+            TokenType operand = visit(node.getOperand());
+            TokenType result = TypeRules.unary(node.getOperator(), operand);
+            if (result == null && operand != null) {
+                errors.add(new SemanticError("Operador '" + node.getToken().getLexeme() + "' no aplicable a " + operand,
+                        node.getToken()));
+            }
+            return result;
+        }
+
+        @Override
+        public TokenType visitLiteral(Literal node) {
+            return node.getValueType();
+        }
+
+        @Override
+        public TokenType visitIdentifier(Identifier node) {
+            Symbol symbol = symbolTable.lookup(node.getName());
+            if (symbol == null) {
+                errors.add(new SemanticError("Variable '" + node.getName() + "' no declarada", node.getToken()));
+                return null;
+            }
+            if (symbol.isFunction()) {
+                errors.add(new SemanticError("'" + node.getName() + "' es una función, no una variable",
+                        node.getToken()));
+                return null;
+            }
+            return symbol.getType();
+        }
+
+        @Override
+        public TokenType visitCall(Call node) {
+            List<TokenType> argumentTypes = new ArrayList<>();
+            List<Long> constants = new ArrayList<>();
+            for (Expr argument : node.getArguments()) {
+                argumentTypes.add(visit(argument));
+                constants.add(integerConstant(argument));
+            }
+            Symbol func = symbolTable.lookup(node.getName());
+            if (func == null) {
+                errors.add(new SemanticError("Función '" + node.getName() + "' no declarada", node.getToken()));
+                return null;
+            }
+            if (!func.isFunction()) {
+                errors.add(new SemanticError("'" + node.getName() + "' no es una función", node.getToken()));
+                return null;
+            }
+            TypeChecker.checkArguments(func, node.getToken(), argumentTypes, constants, errors);
+            return func.getReturnType();
+        }
+
+        /**
+         * Valor de la expresión si es un literal entero (null si no lo es).
+         */
+        private Long integerConstant(Expr expr) {
+            if (!(expr instanceof Literal) || expr.getToken().getType() != TokenType.INTEGER) {
+                return null;
+            }
+            try {
+                return Long.parseLong(expr.getToken().getLexeme());
+            } catch (NumberFormatException e) {
+                return null;
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,82 @@
+package semantic;
+
+import ast.AstBuilder;
+import lexer.Lexer;
+import lexer.LexerException;
+import lexer.Token;
+import parser.ParseTreeArena;
+import parser.ParserException;
+import parser.SLR1Parser;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Clase de prueba para el análisis semántico.
+ * Comprueba que el análisis del árbol de objetos, el del árbol en arreglos
+ * y el del AST informan los errores esperados, y que se rechazan los
+ * árboles construidos en modo COLLAPSED.
+ */
+public class SemanticAnalyzerTest {
+    public static void main(String[] args) throws LexerException, ParserException {
+        // Código y errores esperados
+        Object[][] cases = {
+            // Al cerrar una función anidada vuelve a valer el tipo de retorno de la externa
+            {"int f() {\n    int h(int q) { return q; }\n    return 1;\n}",
+             new String[]{}},
+            {"void g() {\n    int h(int q) { return q; }\n    return 1;\n}",
+             new String[]{"Error semántico en línea 3, columna 5: Una función void no puede devolver un valor"}},
+            {"int f() { return 1; }\nreturn 2;",
+             new String[]{"Error semántico en línea 2, columna 1: Sentencia return fuera de una función"}}
+        };
+
+        int failures = 0;
+        for (Object[] test : cases) {
+            String source = (String) test[0];
+            List<String> expected = List.of((String[]) test[1]);
+            List<Token> tokens = new Lexer(source).tokenize();
+            SLR1Parser parser = new SLR1Parser();
+
+            List<List<String>> results = List.of(
+                    messages(new SemanticAnalyzer().analyze(parser.parse(tokens))),
+                    messages(new SemanticAnalyzer().analyze(ParseTreeArena.parse(parser, tokens))),
+                    messages(new SemanticAnalyzer().analyze(AstBuilder.build(parser, tokens))));
+            boolean same = true;
+            for (List<String> actual : results) {
+                same &= expected.equals(actual);
+            }
+            System.out.println((same ? "OK         " : "DIFERENCIA ") + source.replace('\n', ' '));
+            if (!same) {
+                System.out.println("  Esperado:          " + expected);
+                System.out.println("  Árbol de objetos:  " + results.get(0));
+                System.out.println("  Árbol en arreglos: " + results.get(1));
+                System.out.println("  AST:               " + results.get(2));
+                failures++;
+            }
+        }
+
+        // Un árbol sin los nodos de las producciones unitarias se rechaza
+        SLR1Parser collapsed = new SLR1Parser();
+        collapsed.setTreeMode(SLR1Parser.TreeMode.COLLAPSED);
+        String source = "int f(int a) {\n    return a;\n}";
+        try {
+            new SemanticAnalyzer().analyze(collapsed.parse(new Lexer(source).tokenize()));
+            System.out.println("DIFERENCIA " + source.replace('\n', ' ') + " (árbol COLLAPSED aceptado)");
+            failures++;
+        } catch (IllegalArgumentException e) {
+            System.out.println("OK         " + source.replace('\n', ' ') + " (árbol COLLAPSED rechazado)");
+        }
+
+        System.out.println("\n" + failures + " diferencias en " + (cases.length + 1) + " casos");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static List<String> messages(SemanticAnalysisResult result) {
+        List<String> messages = new ArrayList<>();
+        for (SemanticError error : result.getErrors()) {
+            messages.add(error.toString());
+        }
+        return messages;
+    }
+}
@@ -7,7 +7,8 @@ import lexer.TokenType;
 public class Symbol {
     private final String name;
     private final TokenType type;
-    private final Object value;
+    // Valor constante de la variable, si se conoce (lo asigna ConstantFolder)
+    private Object value;
     private final int scopeLevel;
     private final boolean isFunction;
     private final TokenType returnType; // Para funciones
@@ -36,4 +37,6 @@ public class Symbol {
     public boolean isFunction() { return isFunction; }
     public TokenType getReturnType() { return returnType; }
     public List<TokenType> getParameters() { return parameters; }
+
+    void setValue(Object value) { this.value = value; }
 }
\ No newline at end of file
@@ -1,54 +1,300 @@
 package semantic;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Stack;
 
+/**
+ * Tabla de símbolos con ámbitos anidados. Cada ámbito tiene su propia tabla
+ * hash de direccionamiento abierto indexada por el ID del nombre (los
+ * nombres se internan una sola vez) y un enlace a su ámbito padre. Buscar un
+ * nombre recorre la cadena de ámbitos sin crear objetos, y salir de un
+ * ámbito solo cambia el ámbito actual por su padre.
+ *
+ * Los ámbitos no se destruyen al salir de ellos, de modo que al terminar el
+ * análisis la tabla conserva todos los símbolos declarados. Además se
+ * mantiene un mapa persistente con los símbolos visibles en cada momento:
+ * {@link #snapshot()} lo devuelve sin copiarlo, y las versiones guardadas
+ * siguen siendo válidas aunque después se declaren o se oculten nombres.
+ *
+ * Para analizar cuerpos de funciones en paralelo, {@link #fork(int)} crea
+ * una tabla derivada que ve los símbolos visibles en ese momento y numera
+ * sus ámbitos en un rango reservado; al terminar, {@link #merge} incorpora
+ * sus ámbitos a esta tabla.
+ */
 public class SymbolTable {
-    private final Map<String, Symbol> symbols = new HashMap<>();
-    private final Stack<Integer> scopeStack = new Stack<>();
-    private int currentScope = 0;
+
+    /**
+     * Ámbito: tabla de ID de nombre a símbolo con sondeo lineal.
+     */
+    private static final class Scope {
+        private static final int EMPTY = -1;
+
+        private final int id;
+        private final Scope parent;
+        // Símbolos visibles al entrar en el ámbito, que vuelven a serlo al salir
+        private final PersistentSymbolMap enclosing;
+        private int[] keys = emptyKeys(8);
+        private Symbol[] values = new Symbol[8];
+        private int size;
+
+        Scope(int id, Scope parent, PersistentSymbolMap enclosing) {
+            this.id = id;
+            this.parent = parent;
+            this.enclosing = enclosing;
+        }
+
+        Symbol get(int nameId) {
+            int mask = keys.length - 1;
+            for (int slot = hash(nameId) & mask; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+                if (keys[slot] == nameId) {
+                    return values[slot];
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Añade o reemplaza el símbolo de un nombre.
+         *
+         * @return Símbolo reemplazado, o null si el nombre no estaba
+         */
+        Symbol put(int nameId, Symbol symbol) {
+            // Factor de carga máximo de 1/2
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            int slot = hash(nameId) & mask;
+            while (keys[slot] != EMPTY) {
+                if (keys[slot] == nameId) {
+                    Symbol previous = values[slot];
+                    values[slot] = symbol;
+                    return previous;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = nameId;
+            values[slot] = symbol;
+            size++;
+            return null;
+        }
+
+        private void resize() {
+            int[] oldKeys = keys;
+            Symbol[] oldValues = values;
+            keys = emptyKeys(oldKeys.length * 2);
+            values = new Symbol[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int hash(int nameId) {
+            // Los ID son consecutivos: la multiplicación los reparte por toda la tabla
+            int h = nameId * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+        private static int[] emptyKeys(int capacity) {
+            int[] keys = new int[capacity];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+    }
+
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    // Todos los ámbitos creados; el ámbito número id está en la posición id - firstScopeId + 1
+    private final List<Scope> scopes = new ArrayList<>();
+    private final int firstScopeId;
+    // Símbolos de la tabla de la que se derivó esta (vacío en una tabla normal)
+    private final PersistentSymbolMap outer;
+    private Scope current;
+    private PersistentSymbolMap visible;
 
     public SymbolTable() {
-        scopeStack.push(currentScope);
+        this(PersistentSymbolMap.EMPTY, 0, 1);
+    }
+
+    private SymbolTable(PersistentSymbolMap outer, int outerScopeId, int firstScopeId) {
+        this.outer = outer;
+        this.firstScopeId = firstScopeId;
+        this.visible = outer;
+        current = new Scope(outerScopeId, null, visible);
+        scopes.add(current);
     }
 
     public void enterScope() {
-        currentScope++;
-        scopeStack.push(currentScope);
+        current = new Scope(firstScopeId + scopes.size() - 1, current, visible);
+        scopes.add(current);
+    }
+
+    /**
+     * Reserva números para ámbitos que se crearán en una tabla derivada.
+     *
+     * @return Número del primero de los ámbitos reservados
+     */
+    public int reserveScopes(int count) {
+        int first = firstScopeId + scopes.size() - 1;
+        for (int i = 0; i < count; i++) {
+            scopes.add(null);
+        }
+        return first;
+    }
+
+    /**
+     * Crea una tabla derivada que ve los símbolos visibles en este momento
+     * (pero no los que se declaren después) y cuyos ámbitos se numeran a
+     * partir de firstScopeId. Las dos tablas pueden usarse después desde
+     * hilos distintos.
+     */
+    public SymbolTable fork(int firstScopeId) {
+        return new SymbolTable(visible, current.id, firstScopeId);
+    }
+
+    /**
+     * Incorpora los ámbitos creados en una tabla derivada de esta, en las
+     * posiciones reservadas para ellos.
+     */
+    public void merge(SymbolTable derived) {
+        for (int i = 1; i < derived.scopes.size(); i++) {
+            Scope scope = derived.scopes.get(i);
+            // Los ID de nombre de la tabla derivada no son los de esta
+            Scope copy = new Scope(scope.id, scopeById(scope.parent.id), scope.enclosing);
+            for (int slot = 0; slot < scope.keys.length; slot++) {
+                if (scope.keys[slot] != Scope.EMPTY) {
+                    copy.put(internName(scope.values[slot].getName()), scope.values[slot]);
+                }
+            }
+            scopes.set(scope.id - firstScopeId + 1, copy);
+        }
+    }
+
+    private Scope scopeById(int id) {
+        return id < firstScopeId ? scopes.get(0) : scopes.get(id - firstScopeId + 1);
     }
 
     public void exitScope() {
-        scopeStack.pop();
-        currentScope = scopeStack.isEmpty() ? 0 : scopeStack.peek();
+        // El ámbito global nunca se abandona
+        if (current.parent != null) {
+            visible = current.enclosing;
+            current = current.parent;
+        }
     }
-    
+
+    /**
+     * Obtiene los símbolos visibles en este punto del análisis: para cada
+     * nombre, el declarado en el ámbito más interno. Es una versión
+     * inmutable que no se copia, así que puede guardarse por cada bloque.
+     */
+    public PersistentSymbolMap snapshot() {
+        return visible;
+    }
+
     public int getCurrentScope() {
-        return currentScope;
+        return current.id;
+    }
+
+    /**
+     * Obtiene el ID de un nombre, asignándole uno nuevo si es la primera vez
+     * que aparece. Los ID permiten buscar con {@link #lookup(int)} sin volver
+     * a calcular el hash del nombre.
+     */
+    public int internName(String name) {
+        Integer id = nameIds.get(name);
+        if (id == null) {
+            id = names.size();
+            nameIds.put(name, id);
+            names.add(name);
+        }
+        return id;
     }
 
+    /**
+     * Añade un símbolo al ámbito actual.
+     *
+     * @return false si el nombre ya está declarado en el ámbito actual
+     */
     public boolean addSymbol(Symbol symbol) {
-        String scopedName = symbol.getName() + "@" + currentScope;
-        if (symbols.containsKey(scopedName)) {
+        int nameId = internName(symbol.getName());
+        if (current.get(nameId) != null) {
             return false;
         }
-        symbols.put(scopedName, symbol);
+        current.put(nameId, symbol);
+        visible = visible.put(symbol.getName(), symbol);
         return true;
     }
 
+    /**
+     * Añade un símbolo en el ámbito indicado por su nivel, sin modificar el
+     * ámbito actual. Se usa para reconstruir una tabla guardada.
+     */
+    public void restoreSymbol(Symbol symbol) {
+        int index = symbol.getScopeLevel() - firstScopeId + 1;
+        while (scopes.size() <= index) {
+            scopes.add(null);
+        }
+        if (scopes.get(index) == null) {
+            // Ámbito sin padre conocido: solo guarda los símbolos restaurados
+            scopes.set(index, new Scope(symbol.getScopeLevel(), scopes.get(0), PersistentSymbolMap.EMPTY));
+        }
+        scopes.get(index).put(internName(symbol.getName()), symbol);
+        if (symbol.getScopeLevel() == current.id) {
+            visible = visible.put(symbol.getName(), symbol);
+        }
+    }
+
     public Symbol lookup(String name) {
-        // Buscar desde el ámbito más interno al más externo
-        for (int i = scopeStack.size() - 1; i >= 0; i--) {
-            int scope = scopeStack.get(i);
-            String scopedName = name + "@" + scope;
-            if (symbols.containsKey(scopedName)) {
-                return symbols.get(scopedName);
+        Integer nameId = nameIds.get(name);
+        if (nameId == null) {
+            return outer.isEmpty() ? null : outer.get(name);
+        }
+        return lookup(nameId);
+    }
+
+    /**
+     * Busca un nombre desde el ámbito más interno al más externo.
+     */
+    public Symbol lookup(int nameId) {
+        for (Scope scope = current; scope != null; scope = scope.parent) {
+            Symbol symbol = scope.get(nameId);
+            if (symbol != null) {
+                return symbol;
             }
         }
-        return null;
+        return outer.isEmpty() ? null : outer.get(names.get(nameId));
+    }
+
+    /**
+     * Busca un nombre solo en el ámbito actual.
+     */
+    public Symbol lookupLocal(String name) {
+        Integer nameId = nameIds.get(name);
+        return nameId == null ? null : current.get(nameId);
     }
 
+    /**
+     * Obtiene todos los símbolos declarados, con claves "nombre@ámbito".
+     */
     public Map<String, Symbol> getSymbols() {
-        return new HashMap<>(symbols);
+        Map<String, Symbol> symbols = new HashMap<>();
+        for (Scope scope : scopes) {
+            if (scope == null) {
+                continue;
+            }
+            for (int i = 0; i < scope.keys.length; i++) {
+                if (scope.keys[i] != Scope.EMPTY) {
+                    Symbol symbol = scope.values[i];
+                    symbols.put(symbol.getName() + "@" + scope.id, symbol);
+                }
+            }
+        }
+        return symbols;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,340 @@
+package semantic;
+
+import lexer.Token;
+import lexer.TokenType;
+import parser.ParseTreeArena;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Calcula de abajo arriba el tipo de las expresiones de un árbol en
+ * arreglos. El tipo de cada nodo se calcula una sola vez y se guarda en un
+ * arreglo indexado por el número del nodo, así que consultarlo de nuevo es
+ * O(1). El cálculo usa una pila explícita, de modo que la profundidad de
+ * una expresión no está limitada por la pila de llamadas.
+ *
+ * Los identificadores se buscan en la tabla de símbolos en el momento en
+ * que se calcula el tipo, por lo que cada expresión debe consultarse
+ * cuando su ámbito está activo; después el resultado queda memorizado.
+ * Varios comprobadores creados con {@link #withScope} comparten los tipos
+ * memorizados y pueden usarse a la vez desde hilos distintos siempre que
+ * cada uno trabaje en subárboles distintos.
+ */
+public class TypeChecker {
+    // Forma de cada tipo de nodo de expresión, indexada por ParseTreeArena.getKind
+    private static final byte NOT_EXPRESSION = 0;
+    private static final byte BINARY = 1;
+    private static final byte PREFIX = 2;
+    private static final byte POSTFIX = 3;
+    private static final byte FACTOR = 4;
+    private static final byte[] FORMS = new byte[ParseTreeArena.ERROR_KIND + 1];
+
+    static {
+        for (String level : new String[]{"expr", "and_expr", "eq_expr", "rel_expr", "add_expr", "term"}) {
+            FORMS[ParseTreeArena.getNonTerminalKind(level)] = BINARY;
+        }
+        FORMS[ParseTreeArena.getNonTerminalKind("unary_expr")] = PREFIX;
+        FORMS[ParseTreeArena.getNonTerminalKind("postfix_expr")] = POSTFIX;
+        FORMS[ParseTreeArena.getNonTerminalKind("factor")] = FACTOR;
+    }
+
+    private final ParseTreeArena tree;
+    private final SymbolTable symbolTable;
+    private final List<SemanticError> errors;
+    private final TokenType[] types;
+    // Arreglo de boolean y no BitSet: escribir posiciones distintas desde varios hilos es seguro
+    private final boolean[] computed;
+    private final CallSiteIndex callSites = new CallSiteIndex();
+    private int[] stack = new int[64];
+
+    /**
+     * @param tree Árbol cuyas expresiones se comprueban
+     * @param symbolTable Tabla con los símbolos visibles al consultar cada expresión
+     * @param errors Lista donde se añaden los errores de tipos
+     */
+    public TypeChecker(ParseTreeArena tree, SymbolTable symbolTable, List<SemanticError> errors) {
+        this.tree = tree;
+        this.symbolTable = symbolTable;
+        this.errors = errors;
+        this.types = new TokenType[tree.getNodeCount()];
+        this.computed = new boolean[tree.getNodeCount()];
+    }
+
+    private TypeChecker(TypeChecker shared, SymbolTable symbolTable, List<SemanticError> errors) {
+        this.tree = shared.tree;
+        this.symbolTable = symbolTable;
+        this.errors = errors;
+        this.types = shared.types;
+        this.computed = shared.computed;
+    }
+
+    /**
+     * Crea un comprobador que comparte los tipos memorizados de este pero
+     * busca los nombres en otra tabla, añade los errores a otra lista y
+     * registra las llamadas en su propio índice.
+     */
+    public TypeChecker withScope(SymbolTable symbolTable, List<SemanticError> errors) {
+        return new TypeChecker(this, symbolTable, errors);
+    }
+
+    /**
+     * Obtiene el tipo de una expresión, calculándolo (junto con el de todas
+     * sus subexpresiones) si aún no se conoce.
+     *
+     * @return Tipo de la expresión, o null si no se puede determinar
+     */
+    public TokenType typeOf(int node) {
+        if (computed[node]) {
+            return types[node];
+        }
+        if (tree.isTerminal(node)) {
+            types[node] = terminalType(node);
+            computed[node] = true;
+            return types[node];
+        }
+        int top = 0;
+        stack[0] = node;
+        while (top >= 0) {
+            int current = stack[top];
+            if (computed[current]) {
+                top--;
+                continue;
+            }
+            // Apilar los hijos pendientes en orden inverso para calcularlos de izquierda a derecha
+            int pushed = top;
+            for (int child = tree.getFirstChild(current); child != ParseTreeArena.NONE;
+                 child = tree.getNextSibling(child)) {
+                if (!tree.isTerminal(child) && !computed[child]) {
+                    if (++pushed == stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[pushed] = child;
+                }
+            }
+            if (pushed == top) {
+                types[current] = computeType(current);
+                computed[current] = true;
+                top--;
+            } else {
+                reverse(top + 1, pushed);
+                top = pushed;
+            }
+        }
+        return types[node];
+    }
+
+    /**
+     * Obtiene el índice de las llamadas resueltas por este comprobador.
+     */
+    public CallSiteIndex getCallSites() {
+        return callSites;
+    }
+
+    /**
+     * Obtiene el tipo ya calculado de un nodo sin calcularlo.
+     *
+     * @return Tipo memorizado, o null si no se ha calculado o no se pudo determinar
+     */
+    public TokenType getType(int node) {
+        return types[node];
+    }
+
+    public boolean isComputed(int node) {
+        return computed[node];
+    }
+
+    /**
+     * Obtiene el valor de una expresión que es directamente un literal
+     * entero (a través de la cadena de producciones unitarias).
+     *
+     * @return Valor del literal, o null si la expresión no es un literal entero
+     */
+    public Long integerConstant(int node) {
+        while (!tree.isTerminal(node)) {
+            int child = tree.getFirstChild(node);
+            if (child == ParseTreeArena.NONE || tree.getNextSibling(child) != ParseTreeArena.NONE) {
+                return null;
+            }
+            node = child;
+        }
+        Token token = tree.getToken(node);
+        if (token.getType() != TokenType.INTEGER) {
+            return null;
+        }
+        try {
+            return Long.parseLong(token.getLexeme());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Calcula el tipo de un nodo cuyos hijos no terminales ya tienen tipo.
+     */
+    private TokenType computeType(int node) {
+        int first = tree.getFirstChild(node);
+        int second = first == ParseTreeArena.NONE ? ParseTreeArena.NONE : tree.getNextSibling(first);
+        switch (FORMS[tree.getKind(node)]) {
+            case BINARY:
+                if (second == ParseTreeArena.NONE) {
+                    return typeOf(first);
+                }
+                return binary(first, second, tree.getNextSibling(second));
+
+            case PREFIX:
+                // ++x y --x; la forma de un solo hijo es postfix_expr
+                return second == ParseTreeArena.NONE ? typeOf(first) : unary(first, second);
+
+            case POSTFIX:
+                // x++ y x--
+                return second == ParseTreeArena.NONE ? typeOf(first) : unary(second, first);
+
+            case FACTOR:
+                if (second == ParseTreeArena.NONE) {
+                    return typeOf(first);
+                }
+                switch (tree.getToken(first).getType()) {
+                    case NOT:
+                        return unary(first, second);
+                    case LEFT_PAREN:
+                        return typeOf(second);
+                    case IDENTIFIER:
+                        return call(node, first, tree.getNextSibling(second));
+                    default:
+                        return null;
+                }
+
+            default:
+                // Listas de argumentos y nodos que no son expresiones
+                return null;
+        }
+    }
+
+    private TokenType terminalType(int node) {
+        Token token = tree.getToken(node);
+        if (token.getType() != TokenType.IDENTIFIER) {
+            return TypeRules.literalType(token.getType());
+        }
+        Symbol symbol = symbolTable.lookup(token.getLexeme());
+        if (symbol == null) {
+            errors.add(new SemanticError("Variable '" + token.getLexeme() + "' no declarada", token));
+            return null;
+        }
+        if (symbol.isFunction()) {
+            errors.add(new SemanticError("'" + token.getLexeme() + "' es una función, no una variable", token));
+            return null;
+        }
+        return symbol.getType();
+    }
+
+    private TokenType binary(int left, int operator, int right) {
+        TokenType leftType = typeOf(left);
+        TokenType rightType = typeOf(right);
+        Token token = tree.getToken(operator);
+        TokenType result = TypeRules.binary(token.getType(), leftType, rightType);
+        if (result == null && leftType != null && rightType != null) {
+            errors.add(new SemanticError("Operador '" + token.getLexeme() + "' no aplicable a "
+                    + leftType + " y " + rightType, token));
+        }
+        return result;
+    }
+
+    private TokenType unary(int operator, int operand) {
+        TokenType operandType = typeOf(operand);
+        Token token = tree.getToken(operator);
+        TokenType result = TypeRules.unary(token.getType(), operandType);
+        if (result == null && operandType != null) {
+            errors.add(new SemanticError("Operador '" + token.getLexeme() + "' no aplicable a " + operandType, token));
+        }
+        return result;
+    }
+
+    /**
+     * Tipo de una llamada: el tipo de retorno de la función. Los tipos de
+     * los argumentos ya están calculados como descendientes del nodo, así
+     * que solo falta compararlos con los parámetros.
+     *
+     * @param node Nodo factor -> IDENTIFIER ( args )
+     * @param name Nodo del nombre de la función
+     * @param args Nodo args (sin hijos si no hay argumentos)
+     */
+    private TokenType call(int node, int name, int args) {
+        Token token = tree.getToken(name);
+        Symbol symbol = symbolTable.lookup(token.getLexeme());
+        if (symbol == null) {
+            errors.add(new SemanticError("Función '" + token.getLexeme() + "' no declarada", token));
+            return null;
+        }
+        if (!symbol.isFunction()) {
+            errors.add(new SemanticError("'" + token.getLexeme() + "' no es una función", token));
+            return null;
+        }
+        callSites.add(symbol, node);
+
+        List<TokenType> argumentTypes = new ArrayList<>();
+        List<Long> constants = new ArrayList<>();
+        for (int argument : arguments(args)) {
+            // Un argumento plegado a un literal es un terminal cuyo tipo aún no se ha calculado
+            argumentTypes.add(typeOf(argument));
+            constants.add(integerConstant(argument));
+        }
+        checkArguments(symbol, token, argumentTypes, constants, errors);
+        return symbol.getReturnType();
+    }
+
+    /**
+     * Compara los argumentos de una llamada con los parámetros de la
+     * función. Lo usan también las llamadas del AST.
+     *
+     * @param constants Valor de cada argumento que es un literal entero (null en los demás)
+     */
+    static void checkArguments(Symbol callee, Token token, List<TokenType> argumentTypes, List<Long> constants,
+                               List<SemanticError> errors) {
+        List<TokenType> parameters = callee.getParameters();
+        if (argumentTypes.size() != parameters.size()) {
+            errors.add(new SemanticError("La función '" + callee.getName() + "' espera " + parameters.size()
+                    + " argumentos pero recibe " + argumentTypes.size(), token));
+            return;
+        }
+        for (int i = 0; i < parameters.size(); i++) {
+            TokenType argumentType = argumentTypes.get(i);
+            TokenType parameterType = parameters.get(i);
+            if (argumentType != null && parameterType != null
+                    && !TypeRules.isAssignable(parameterType, argumentType, constants.get(i))) {
+                errors.add(new SemanticError("Argumento " + (i + 1) + " de '" + callee.getName()
+                        + "' incompatible: no se puede convertir de " + argumentType + " a " + parameterType, token));
+            }
+        }
+    }
+
+    /**
+     * Obtiene las expresiones de los argumentos, que están en la cadena
+     * recursiva por la izquierda de arg_list.
+     */
+    private List<Integer> arguments(int args) {
+        List<Integer> arguments = new ArrayList<>();
+        int list = tree.getFirstChild(args);
+        while (list != ParseTreeArena.NONE) {
+            int first = tree.getFirstChild(list);
+            int comma = tree.getNextSibling(first);
+            if (comma == ParseTreeArena.NONE) {
+                arguments.add(first);
+                break;
+            }
+            arguments.add(tree.getNextSibling(comma));
+            list = first;
+        }
+        Collections.reverse(arguments);
+        return arguments;
+    }
+
+    private void reverse(int from, int to) {
+        while (from < to) {
+            int swap = stack[from];
+            stack[from++] = stack[to];
+            stack[to--] = swap;
+        }
+    }
+}
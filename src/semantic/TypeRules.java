@@ -0,0 +1,161 @@
+package semantic;
+
+import lexer.TokenType;
+
+/**
+ * Reglas de tipos del lenguaje, compartidas por el análisis del árbol
+ * sintáctico y el del AST. Los tipos se representan con la palabra
+ * reservada que los declara (INT, FLOAT, BOOLEAN...).
+ *
+ * Los tipos numéricos se ensanchan en el orden BYTE < SHORT < INT < LONG <
+ * FLOAT < DOUBLE, y CHAR se ensancha a INT y a los mayores. Como en Java,
+ * la aritmética opera como mínimo en INT.
+ */
+public final class TypeRules {
+
+    private TypeRules() {
+    }
+
+    /**
+     * Posición del tipo en el orden de ensanchamiento (-1 si no es numérico).
+     */
+    public static int rank(TokenType type) {
+        if (type == null) {
+            return -1;
+        }
+        return switch (type) {
+            case BYTE -> 0;
+            case SHORT, CHAR -> 1;
+            case INT -> 2;
+            case LONG -> 3;
+            case FLOAT -> 4;
+            case DOUBLE -> 5;
+            default -> -1;
+        };
+    }
+
+    public static boolean isNumeric(TokenType type) {
+        return rank(type) >= 0;
+    }
+
+    /**
+     * Tipo del valor de un literal a partir del tipo de su token.
+     */
+    public static TokenType literalType(TokenType tokenType) {
+        return switch (tokenType) {
+            case INTEGER -> TokenType.INT;
+            case FLOAT_NUMBER -> TokenType.FLOAT;
+            case TRUE, FALSE -> TokenType.BOOLEAN;
+            case STRING_LITERAL -> TokenType.STRING;
+            case CHAR_LITERAL -> TokenType.CHAR;
+            default -> null;
+        };
+    }
+
+    /**
+     * Indica si un valor del tipo source puede guardarse en una variable del
+     * tipo target sin conversión explícita.
+     */
+    public static boolean isAssignable(TokenType target, TokenType source) {
+        if (target == source) {
+            return true;
+        }
+        if (!isNumeric(target) || !isNumeric(source)) {
+            return false;
+        }
+        // SHORT y CHAR tienen el mismo rango pero no se convierten entre sí, y nada se ensancha a CHAR
+        if (target == TokenType.CHAR || (source == TokenType.CHAR && target == TokenType.SHORT)) {
+            return false;
+        }
+        return rank(source) <= rank(target);
+    }
+
+    /**
+     * Indica si el valor de una expresión puede guardarse en una variable
+     * del tipo target. Además de las conversiones de
+     * {@link #isAssignable(TokenType, TokenType)}, un literal entero puede
+     * asignarse a un tipo más estrecho si cabe en él.
+     *
+     * @param constant Valor si la expresión es un literal entero (null si no lo es)
+     */
+    public static boolean isAssignable(TokenType target, TokenType source, Long constant) {
+        return isAssignable(target, source)
+                || (source == TokenType.INT && constant != null && fitsIn(target, constant));
+    }
+
+    /**
+     * Indica si una constante entera cabe en un tipo más estrecho que INT,
+     * lo que permite asignar por ejemplo un literal a una variable byte.
+     */
+    public static boolean fitsIn(TokenType target, long value) {
+        return switch (target) {
+            case BYTE -> value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE;
+            case SHORT -> value >= Short.MIN_VALUE && value <= Short.MAX_VALUE;
+            case CHAR -> value >= Character.MIN_VALUE && value <= Character.MAX_VALUE;
+            default -> isAssignable(target, TokenType.INT);
+        };
+    }
+
+    /**
+     * Tipo de una operación binaria.
+     *
+     * @param operator Tipo del token del operador
+     * @return Tipo del resultado, o null si el operador no admite esos operandos
+     */
+    public static TokenType binary(TokenType operator, TokenType left, TokenType right) {
+        switch (operator) {
+            case AND:
+            case OR:
+                return left == TokenType.BOOLEAN && right == TokenType.BOOLEAN ? TokenType.BOOLEAN : null;
+            case EQUAL_EQUAL:
+            case NOT_EQUAL:
+                return (isNumeric(left) && isNumeric(right)) || left == right ? TokenType.BOOLEAN : null;
+            case GREATER:
+            case LESS:
+            case GREATER_EQUAL:
+            case LESS_EQUAL:
+                return isNumeric(left) && isNumeric(right) ? TokenType.BOOLEAN : null;
+            case PLUS:
+                // Concatenación si cualquiera de los operandos es una cadena
+                if (left == TokenType.STRING || right == TokenType.STRING) {
+                    return TokenType.STRING;
+                }
+                return promote(left, right);
+            case MINUS:
+            case MULTIPLY:
+            case DIVIDE:
+            case MODULO:
+                return promote(left, right);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Tipo de una operación unaria (NOT, ++ o --).
+     *
+     * @return Tipo del resultado, o null si el operador no admite el operando
+     */
+    public static TokenType unary(TokenType operator, TokenType operand) {
+        if (operator == TokenType.NOT) {
+            return operand == TokenType.BOOLEAN ? TokenType.BOOLEAN : null;
+        }
+        return isNumeric(operand) ? operand : null;
+    }
+
+    /**
+     * Promoción numérica binaria: el más ancho de los dos, y como mínimo INT.
+     */
+    private static TokenType promote(TokenType left, TokenType right) {
+        if (!isNumeric(left) || !isNumeric(right)) {
+            return null;
+        }
+        int rank = Math.max(rank(TokenType.INT), Math.max(rank(left), rank(right)));
+        return switch (rank) {
+            case 3 -> TokenType.LONG;
+            case 4 -> TokenType.FLOAT;
+            case 5 -> TokenType.DOUBLE;
+            default -> TokenType.INT;
+        };
+    }
+}
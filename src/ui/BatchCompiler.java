@@ -0,0 +1,183 @@
+package ui;
+
+import lexer.Lexer;
+import lexer.LexerException;
+import lexer.Token;
+import parser.ParseResult;
+import parser.ParseTreeArena;
+import parser.ParserException;
+import parser.SLR1Parser;
+import semantic.ConstantFolder;
+import semantic.SemanticAnalysisResult;
+import semantic.SemanticAnalyzer;
+import semantic.SemanticError;
+import utils.PersistentAnalysisCache;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Compilación por lotes desde la línea de comandos: analiza todos los
+ * archivos indicados (los directorios se recorren buscando archivos .java
+ * y .txt) e informa de los errores de cada uno. Con la caché en disco, los
+ * archivos que no cambiaron desde la ejecución anterior no se vuelven a
+ * analizar: sus tokens, árbol y errores se leen de la caché.
+ *
+ * Uso: BatchCompiler [--cache-dir DIR] [--cache-size MB] [--no-cache] ARCHIVO...
+ *
+ * El código de salida es 0 si ningún archivo tiene errores, 1 si alguno
+ * los tiene y 2 si los argumentos no son válidos.
+ */
+public class BatchCompiler {
+    private static final String DEFAULT_CACHE_DIR = ".compilador-cache";
+
+    private final PersistentAnalysisCache cache;
+    private final SLR1Parser parser = new SLR1Parser();
+    private int analyzed;
+    private int cached;
+    private int failed;
+
+    /**
+     * @param cache Caché en disco (null para analizar siempre)
+     */
+    public BatchCompiler(PersistentAnalysisCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Analiza un archivo, usando la caché si el código no cambió.
+     *
+     * @return true si el archivo no tiene errores
+     */
+    public boolean compile(Path file) throws IOException {
+        String source = Files.readString(file);
+        PersistentAnalysisCache.Entry entry = cache != null ? cache.get(source) : null;
+        boolean hit = entry != null;
+        if (hit) {
+            cached++;
+        } else {
+            try {
+                entry = analyze(source);
+            } catch (LexerException e) {
+                failed++;
+                System.out.println(file + ": error léxico: " + e.getMessage());
+                return false;
+            }
+            analyzed++;
+            if (cache != null) {
+                // Si la caché no puede guardar la entrada solo se pierde la caché, no el análisis
+                try {
+                    cache.put(source, entry);
+                } catch (IOException e) {
+                    System.err.println(file + ": no se pudo guardar en la caché: " + e.getMessage());
+                }
+            }
+        }
+
+        List<String> messages = new ArrayList<>();
+        for (ParserException error : entry.getParseErrors()) {
+            messages.add("error sintáctico: " + error.getMessage());
+        }
+        if (entry.getSemanticResult() != null) {
+            for (SemanticError error : entry.getSemanticResult().getErrors()) {
+                messages.add(error.toString());
+            }
+        }
+        System.out.printf("%s: %d tokens, %s%s%n", file, entry.getTokens().size(),
+                messages.isEmpty() ? "sin errores" : messages.size() + " errores",
+                hit ? " (caché)" : "");
+        for (String message : messages) {
+            System.out.println("  " + message);
+        }
+        if (!messages.isEmpty()) {
+            failed++;
+        }
+        return messages.isEmpty();
+    }
+
+    /**
+     * Ejecuta el análisis léxico, sintáctico (con recuperación) y semántico.
+     */
+    private PersistentAnalysisCache.Entry analyze(String source) throws LexerException {
+        List<Token> tokens = new Lexer(source).tokenize();
+        ParseResult result = parser.parseWithRecovery(tokens);
+        SLR1Parser.ParseTreeNode tree = result.getParseTree();
+        ParseTreeArena arena = tree != null ? ParseTreeArena.from(tree) : null;
+        SemanticAnalysisResult semanticResult = null;
+        if (result.isSuccess()) {
+            semanticResult = new SemanticAnalyzer().analyze(arena);
+            // Se guarda el árbol plegado; el plegado asigna además a los símbolos el valor
+            // de las variables constantes
+            arena = new ConstantFolder(semanticResult).fold();
+        }
+        return new PersistentAnalysisCache.Entry(tokens, arena, result.getErrors(), semanticResult);
+    }
+
+    public static void main(String[] args) {
+        Path cacheDirectory = Paths.get(DEFAULT_CACHE_DIR);
+        long cacheSize = PersistentAnalysisCache.DEFAULT_MAX_SIZE;
+        boolean useCache = true;
+        List<Path> inputs = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--cache-dir" -> cacheDirectory = Paths.get(args[++i]);
+                    case "--cache-size" -> cacheSize = Long.parseLong(args[++i]) * 1024 * 1024;
+                    case "--no-cache" -> useCache = false;
+                    default -> inputs.add(Paths.get(args[i]));
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            inputs.clear();
+        }
+        if (inputs.isEmpty()) {
+            System.err.println("Uso: BatchCompiler [--cache-dir DIR] [--cache-size MB] [--no-cache] ARCHIVO...");
+            System.exit(2);
+        }
+
+        boolean ok = true;
+        try {
+            PersistentAnalysisCache cache = useCache ? new PersistentAnalysisCache(cacheDirectory, cacheSize) : null;
+            BatchCompiler compiler = new BatchCompiler(cache);
+            long start = System.currentTimeMillis();
+            for (Path file : collectFiles(inputs)) {
+                ok &= compiler.compile(file);
+            }
+            System.out.printf("%d archivos: %d analizados, %d desde la caché, %d con errores (%d ms)%n",
+                    compiler.analyzed + compiler.cached, compiler.analyzed, compiler.cached, compiler.failed,
+                    System.currentTimeMillis() - start);
+            if (cache != null) {
+                System.out.println(cache.getSummary());
+            }
+        } catch (IOException e) {
+            System.err.println("Error de entrada/salida: " + e.getMessage());
+            System.exit(2);
+        }
+        System.exit(ok ? 0 : 1);
+    }
+
+    /**
+     * Expande los directorios en sus archivos de código, en orden.
+     */
+    private static List<Path> collectFiles(List<Path> inputs) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path input : inputs) {
+            if (Files.isDirectory(input)) {
+                try (Stream<Path> walk = Files.walk(input)) {
+                    walk.filter(Files::isRegularFile)
+                            .filter(path -> path.toString().endsWith(".java") || path.toString().endsWith(".txt"))
+                            .sorted()
+                            .forEach(files::add);
+                }
+            } else {
+                files.add(input);
+            }
+        }
+        return files;
+    }
+}
@@ -2,21 +2,24 @@ package ui;
 
 import lexer.*;
 import parser.*;
+import utils.AnalysisCache;
 import utils.CSVExporter;
 import utils.FileUtils;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.HashMap;
+import semantic.ConstantFolder;
 import semantic.SemanticAnalysisResult;
 import semantic.SemanticAnalyzer;
 import semantic.SemanticError;
@@ -33,7 +36,7 @@ public class MainWindow extends JFrame {
     private JTable parseStepsTable;
     private JTable symbolTable;
     private SymbolTableModel symbolTableModel;
-    private DefaultTableModel parseStepsTableModel;
+    private ParseStepTableModel parseStepsTableModel;
     private JTextArea parseTreeArea;
     private TerminalPanel terminalPanel;
     
@@ -48,29 +51,14 @@ public class MainWindow extends JFrame {
     // Datos del análisis
     private List<Token> currentTokens;
     private ParseResult currentParseResult;
-    private List<ParseStep> parseSteps;
-    
-    /**
-     * Representa un paso del análisis sintáctico para la tabla.
-     */
-    private static class ParseStep {
-        private final int step;
-        private final String stack;
-        private final String input;
-        private final String action;
-        
-        public ParseStep(int step, String stack, String input, String action) {
-            this.step = step;
-            this.stack = stack;
-            this.input = input;
-            this.action = action;
-        }
-        
-        public int getStep() { return step; }
-        public String getStack() { return stack; }
-        public String getInput() { return input; }
-        public String getAction() { return action; }
-    }
+    // Árbol en arreglos con las constantes plegadas (null si el análisis no terminó sin errores sintácticos)
+    private ParseTreeArena currentTree;
+    // Último análisis sintáctico, base del reanálisis incremental
+    private List<Token> previousTokens;
+    private SLR1Parser.ParseTreeNode previousParseTree;
+    // Resultados de códigos ya analizados y código de los tokens actuales
+    private final AnalysisCache analysisCache = new AnalysisCache();
+    private String currentSource;
     
     /**
      * Constructor que inicializa la ventana principal.
@@ -98,13 +86,7 @@ public class MainWindow extends JFrame {
         setupTokenTable();
         
         // Tabla de pasos del análisis sintáctico
-        parseStepsTableModel = new DefaultTableModel(
-            new String[]{"Paso", "Pila", "Entrada", "Acción", "Producción"}, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        parseStepsTableModel = new ParseStepTableModel();
         parseStepsTable = new JTable(parseStepsTableModel);
         setupParseStepsTable();
         
@@ -136,7 +118,6 @@ public class MainWindow extends JFrame {
         
         // Inicializar datos
         currentTokens = new ArrayList<>();
-        parseSteps = new ArrayList<>();
     }
     
     /**
@@ -447,8 +428,16 @@ public class MainWindow extends JFrame {
             try {
                 terminalPanel.addInfo("Iniciando análisis léxico...");
                 
-                Lexer lexer = new Lexer(code);
-                currentTokens = lexer.tokenize();
+                AnalysisCache.Entry cached = analysisCache.get(code);
+                if (cached != null) {
+                    currentTokens = cached.getTokens();
+                    terminalPanel.addInfo("Tokens recuperados de la caché de análisis");
+                } else {
+                    Lexer lexer = new Lexer(code);
+                    currentTokens = lexer.tokenize();
+                    analysisCache.put(new AnalysisCache.Entry(code, currentTokens, null, null, null, null));
+                }
+                currentSource = code;
                 
                 tokenTableModel.setTokens(currentTokens);
                 updateTokenStatus();
@@ -495,132 +484,120 @@ public class MainWindow extends JFrame {
                 return;
             }
             
-            try {
-                terminalPanel.addInfo("Iniciando análisis sintáctico...");
-                
-                long startTime = System.currentTimeMillis();
-                
-                // Crear parser y analizar
+            terminalPanel.addInfo("Iniciando análisis sintáctico...");
+            
+            ParseTrace parseTrace;
+            SemanticAnalysisResult semanticResult = null;
+            AnalysisCache.Entry cached = currentSource != null ? analysisCache.get(currentSource, true) : null;
+            if (cached != null) {
+                // El mismo código ya se analizó: no hace falta volver a analizarlo
+                currentParseResult = cached.getParseResult();
+                parseTrace = cached.getParseTrace();
+                semanticResult = cached.getSemanticResult();
+                currentTree = cached.getTree();
+                terminalPanel.addInfo("Resultado recuperado de la caché de análisis");
+            } else {
+                // Crear parser y analizar recuperándose de los errores
                 SLR1Parser parser = new SLR1Parser();
+                parser.setTraceLevel(SLR1Parser.TraceLevel.FULL);
                 
-                // Validar tokens antes del análisis
-                List<String> warnings = parser.validateTokens(currentTokens);
-                
-                // Realizar análisis
-                SLR1Parser.ParseTreeNode parseTree = parser.parse(currentTokens);
-                
-                long endTime = System.currentTimeMillis();
-                long parseTime = endTime - startTime;
-                
-                // Crear resultado exitoso
-                currentParseResult = new ParseResult(parseTree, warnings, parseTime);
-                
-                // Mostrar árbol sintáctico
-                parseTreeArea.setText(parseTree.toTreeString());
-                
-                // Simular pasos del análisis (en una implementación real, 
-                // el parser debería registrar estos pasos)
-                simulateParseSteps();
-                
-                terminalPanel.addSuccess("Análisis sintáctico completado exitosamente");
-                terminalPanel.addInfo("Tiempo de análisis: " + parseTime + " ms");
-                
-                if (!warnings.isEmpty()) {
-                    terminalPanel.addWarning("Se encontraron " + warnings.size() + " advertencias");
-                    for (String warning : warnings) {
-                        terminalPanel.addWarning(warning);
-                    }
+                if (previousParseTree != null) {
+                    // Reutilizar los subárboles que la edición no afectó
+                    TokenEdit edit = TokenEdit.between(previousTokens, currentTokens);
+                    currentParseResult = parser.parseWithRecovery(currentTokens, previousParseTree, edit);
+                } else {
+                    currentParseResult = parser.parseWithRecovery(currentTokens);
                 }
-                
-                parseStepsTableModel.setRowCount(0);
-                List<SLR1Parser.ParseStep> steps = parser.getParseSteps();
-                for (SLR1Parser.ParseStep step : steps) {
-                    parseStepsTableModel.addRow(new Object[]{
-                        step.getStep(),
-                        step.getStack(),
-                        step.getInput(),
-                        step.getAction(),
-                        step.getProduction()
-                    });
+                parseTrace = parser.getParseTrace();
+                
+                // El análisis semántico solo se ejecuta sobre un árbol completo
+                currentTree = null;
+                if (currentParseResult.isSuccess()) {
+                    semanticResult = new SemanticAnalyzer().analyze(currentParseResult.getParseTree());
+                    // El plegado asigna además a los símbolos el valor de las variables constantes
+                    currentTree = new ConstantFolder(semanticResult).fold();
                 }
-                
-                //System.out.println("DEBUG:" + parser.getDebugInfo());
-                //parser.printTables();
-
-                // Habilitar exportación del árbol
-                exportTreeButton.setEnabled(true);
-                
-                SemanticAnalyzer semanticAnalyzer = new SemanticAnalyzer();
-                SemanticAnalysisResult semanticResult = semanticAnalyzer.analyze(parseTree);
-                
-                // Mostrar resultados en terminal
-                if (semanticResult.hasErrors()) {
-                    terminalPanel.addError("\nErrores semánticos encontrados:");
-                    for (SemanticError error : semanticResult.getErrors()) {
-                        terminalPanel.addError(error.toString());
-                    }
-                } else {
-                    terminalPanel.addSuccess("\nAnálisis semántico completado sin errores");
+                if (currentSource != null) {
+                    analysisCache.put(new AnalysisCache.Entry(currentSource, currentTokens,
+                            currentParseResult, parseTrace, semanticResult, currentTree));
                 }
-                
-                // Actualizar tabla de símbolos
-                symbolTableModel.setSymbols(semanticResult.getSymbolTable().getSymbols());
-                
-            } catch (ParserException ex) {
-                long endTime = System.currentTimeMillis();
-                long parseTime = endTime - System.currentTimeMillis();
-                
-                // Crear resultado con error
-                List<ParserException> errors = new ArrayList<>();
-                errors.add(ex);
-                currentParseResult = new ParseResult(errors, new ArrayList<>(), parseTime);
+            }
+            SLR1Parser.ParseTreeNode parseTree = currentParseResult.getParseTree();
+            previousTokens = currentTokens;
+            previousParseTree = parseTree;
+            
+            // Los pasos se generan al mostrarse cada fila
+            parseStepsTableModel.setTrace(parseTrace);
+            updateParseStepsStatus();
+            
+            for (String warning : currentParseResult.getWarnings()) {
+                terminalPanel.addWarning(warning);
+            }
+            
+            if (!currentParseResult.isSuccess()) {
+                List<ParserException> errors = currentParseResult.getErrors();
                 
                 JOptionPane.showMessageDialog(
                     MainWindow.this,
-                    "Error sintáctico: " + ex.getMessage(),
+                    "Se encontraron " + errors.size() + " errores sintácticos. Primer error: "
+                        + errors.get(0).getMessage(),
                     "Error en el Análisis Sintáctico",
                     JOptionPane.ERROR_MESSAGE
                 );
                 
-                terminalPanel.addError("Error sintáctico: " + ex.getMessage());
-                terminalPanel.addError(ex.getDetailedMessage());
+                for (ParserException error : errors) {
+                    terminalPanel.addError("Error sintáctico: " + error.getMessage());
+                    terminalPanel.addError(error.getDetailedMessage());
+                }
                 
-                // Limpiar árbol sintáctico
-                parseTreeArea.setText("Error en el análisis sintáctico:\n\n" + ex.getDetailedMessage());
+                // Mostrar los errores junto al árbol parcial
+                StringBuilder text = new StringBuilder("Error en el análisis sintáctico:\n\n");
+                text.append(currentParseResult.getFormattedErrors());
+                if (parseTree != null) {
+                    text.append("\nÁrbol parcial (los nodos 'error' agrupan la entrada descartada):\n\n");
+                    text.append(parseTree.toTreeString());
+                }
+                parseTreeArea.setText(text.toString());
                 
                 // Deshabilitar exportación del árbol
                 exportTreeButton.setEnabled(false);
+                return;
             }
+            
+            // Mostrar árbol sintáctico
+            parseTreeArea.setText(parseTree.toTreeString());
+            
+            terminalPanel.addSuccess("Análisis sintáctico completado exitosamente");
+            terminalPanel.addInfo("Tiempo de análisis: " + currentParseResult.getParseTime() + " ms");
+            
+            if (currentParseResult.hasWarnings()) {
+                terminalPanel.addWarning("Se encontraron " + currentParseResult.getWarnings().size() + " advertencias");
+            }
+            
+            //System.out.println("DEBUG:" + parser.getDebugInfo());
+            //parser.printTables();
+
+            // Habilitar exportación del árbol
+            exportTreeButton.setEnabled(true);
+            
+            // Mostrar resultados en terminal
+            if (semanticResult.hasErrors()) {
+                terminalPanel.addError("\nErrores semánticos encontrados:");
+                for (SemanticError error : semanticResult.getErrors()) {
+                    terminalPanel.addError(error.toString());
+                }
+            } else {
+                terminalPanel.addSuccess("\nAnálisis semántico completado sin errores");
+                terminalPanel.addInfo("Plegado de constantes: " + semanticResult.getTree().getNodeCount()
+                        + " nodos -> " + currentTree.getNodeCount() + " nodos");
+            }
+            
+            // Actualizar tabla de símbolos
+            symbolTableModel.setSymbols(semanticResult.getSymbolTable().getSymbols());
+            terminalPanel.addInfo(analysisCache.getStatistics().toString());
         }
     }
     
-    /**
-     * Simula los pasos del análisis sintáctico.
-     * En una implementación completa, el parser debería registrar estos pasos.
-     */
-    private void simulateParseSteps() {
-        parseStepsTableModel.setRowCount(0);
-        parseSteps.clear();
-        
-        // Ejemplo de pasos simulados
-        parseSteps.add(new ParseStep(1, "[0]", "id = num + num ; $", "shift 5"));
-        parseSteps.add(new ParseStep(2, "[0, 5]", "= num + num ; $", "shift 6"));
-        parseSteps.add(new ParseStep(3, "[0, 5, 6]", "num + num ; $", "shift 8"));
-        // ... más pasos simulados
-        
-        // Agregar pasos a la tabla
-        for (ParseStep step : parseSteps) {
-            parseStepsTableModel.addRow(new Object[]{
-                step.getStep(),
-                step.getStack(),
-                step.getInput(),
-                step.getAction()
-            });
-        }
-        
-        updateParseStepsStatus();
-    }
-    
     /**
      * Acción para exportar tokens a CSV.
      */
@@ -674,7 +651,7 @@ public class MainWindow extends JFrame {
             }
             
             // Diálogo para seleccionar formato de exportación
-            String[] options = {"Texto (.txt)", "CSV (.csv)"};
+            String[] options = {"Texto (.txt)", "CSV (.csv)", "CSV con constantes plegadas (.csv)"};
             int choice = JOptionPane.showOptionDialog(
                 MainWindow.this,
                 "Seleccione el formato de exportación:",
@@ -693,14 +670,17 @@ public class MainWindow extends JFrame {
             boolean success = false;
             
             try {
-                if (choice == 0 || choice == 2) {
+                if (choice == 0) {
                     // Exportar como texto
                     success = exportTreeAsText();
-                }
-                
-                if (choice == 1 || choice == 2) {
-                    // Exportar como CSV
-                    success = exportTreeAsCSV() && success;
+                } else if (choice == 1) {
+                    // Exportar como CSV el mismo árbol que se muestra
+                    success = exportTreeAsCSV(ParseTreeArena.from(currentParseResult.getParseTree()),
+                            "Guardar Árbol Sintáctico como CSV", "arbol_sintactico.csv");
+                } else if (choice == 2) {
+                    // Exportar el árbol del plegado de constantes, con sus literales calculados
+                    success = exportTreeAsCSV(currentTree,
+                            "Guardar Árbol con Constantes Plegadas como CSV", "arbol_plegado.csv");
                 }
 
                 if (success) {
@@ -726,10 +706,10 @@ public class MainWindow extends JFrame {
             chooser.setSelectedFile(new File("arbol_sintactico.txt"));
             
             if (chooser.showSaveDialog(MainWindow.this) == JFileChooser.APPROVE_OPTION) {
-                try (FileWriter writer = new FileWriter(chooser.getSelectedFile())) {
+                try (Writer writer = new BufferedWriter(new FileWriter(chooser.getSelectedFile()))) {
                     writer.write("ÁRBOL SINTÁCTICO\n");
                     writer.write("================\n\n");
-                    writer.write(currentParseResult.getParseTree().toTreeString());
+                    ParseTreeWriter.write(currentParseResult.getParseTree(), writer);
                     writer.write("\n\nRESUMEN DEL ANÁLISIS\n");
                     writer.write("====================\n");
                     writer.write(currentParseResult.getSummary());
@@ -746,15 +726,15 @@ public class MainWindow extends JFrame {
             return false;
         }
         
-        private boolean exportTreeAsCSV() {
+        private boolean exportTreeAsCSV(ParseTreeArena tree, String title, String fileName) {
             JFileChooser chooser = new JFileChooser();
-            chooser.setDialogTitle("Guardar Árbol Sintáctico como CSV");
-            chooser.setSelectedFile(new File("arbol_sintactico.csv"));
+            chooser.setDialogTitle(title);
+            chooser.setSelectedFile(new File(fileName));
             
             if (chooser.showSaveDialog(MainWindow.this) == JFileChooser.APPROVE_OPTION) {
-                try (FileWriter writer = new FileWriter(chooser.getSelectedFile())) {
+                try (Writer writer = new BufferedWriter(new FileWriter(chooser.getSelectedFile()))) {
                     writer.write("Nivel,Nodo,Tipo,Valor\n");
-                    exportNodeToCSV(currentParseResult.getParseTree(), 0, writer);
+                    exportTreeToCSV(tree, writer);
                     return true;
                 } catch (IOException e) {
                     return false;
@@ -763,16 +743,16 @@ public class MainWindow extends JFrame {
             return false;
         }
         
-        private void exportNodeToCSV(SLR1Parser.ParseTreeNode node, int level, FileWriter writer) throws IOException {
-            String tipo = node.isTerminal() ? "Terminal" : "No Terminal";
-            String valor = node.getValue() != null ? node.getValue() : "";
-            
-            writer.write(String.format("%d,\"%s\",\"%s\",\"%s\"\n", 
-                level, node.getSymbol(), tipo, valor));
-            
-            for (SLR1Parser.ParseTreeNode child : node.getChildren()) {
-                exportNodeToCSV(child, level + 1, writer);
-            }
+        private void exportTreeToCSV(ParseTreeArena tree, Writer writer) throws IOException {
+            ParseTreeArena.Cursor cursor = tree.cursor();
+            do {
+                int node = cursor.getNode();
+                String tipo = tree.isTerminal(node) ? "Terminal" : "No Terminal";
+                String valor = tree.isTerminal(node) ? tree.getValue(node) : "";
+                
+                writer.write(String.format("%d,\"%s\",\"%s\",\"%s\"\n", 
+                    cursor.getDepth(), tree.getSymbol(node), tipo, valor));
+            } while (cursor.gotoNext());
         }
     }
     
@@ -794,11 +774,14 @@ public class MainWindow extends JFrame {
                 // Limpiar datos
                 codeArea.setText("");
                 tokenTableModel.clearTokens();
-                parseStepsTableModel.setRowCount(0);
+                parseStepsTableModel.clear();
                 parseTreeArea.setText("");
                 currentTokens = new ArrayList<>();
                 currentParseResult = null;
-                parseSteps.clear();
+                currentTree = null;
+                previousTokens = null;
+                previousParseTree = null;
+                currentSource = null;
                 
                 // Deshabilitar botones
                 analyzeSyntaxButton.setEnabled(false);
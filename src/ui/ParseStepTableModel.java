@@ -0,0 +1,74 @@
+package ui;
+
+import parser.ParseTrace;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Modelo de tabla para los pasos del análisis sintáctico.
+ * Lee directamente de la traza compacta del parser: el texto de cada celda
+ * se genera solo cuando la fila se muestra en pantalla.
+ */
+public class ParseStepTableModel extends AbstractTableModel {
+    private static final String[] COLUMN_NAMES = {"Paso", "Pila", "Entrada", "Acción", "Producción"};
+    private static final Class<?>[] COLUMN_CLASSES = {Integer.class, String.class, String.class, String.class, String.class};
+    
+    private ParseTrace trace;
+    
+    @Override
+    public int getRowCount() {
+        return trace != null ? trace.size() : 0;
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+    
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+    
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return COLUMN_CLASSES[column];
+    }
+    
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        if (trace == null || rowIndex < 0 || rowIndex >= trace.size()) {
+            return null;
+        }
+        
+        return switch (columnIndex) {
+            case 0 -> rowIndex + 1;
+            case 1 -> trace.renderStack(rowIndex);
+            case 2 -> trace.renderInput(rowIndex);
+            case 3 -> trace.renderAction(rowIndex);
+            case 4 -> trace.renderProduction(rowIndex);
+            default -> null;
+        };
+    }
+    
+    @Override
+    public boolean isCellEditable(int rowIndex, int columnIndex) {
+        return false; // La tabla es de solo lectura
+    }
+    
+    /**
+     * Muestra los pasos de una traza.
+     * 
+     * @param trace Traza del análisis, o null para vaciar la tabla
+     */
+    public void setTrace(ParseTrace trace) {
+        this.trace = trace;
+        fireTableDataChanged();
+    }
+    
+    /**
+     * Limpia todos los pasos de la tabla.
+     */
+    public void clear() {
+        setTrace(null);
+    }
+}
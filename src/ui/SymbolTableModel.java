@@ -9,8 +9,8 @@ import java.util.Map;
 import lexer.TokenType;
 
 public class SymbolTableModel extends AbstractTableModel {
-    private static final String[] COLUMN_NAMES = {"Nombre", "Tipo", "Ámbito", "Es Función", "Tipo Retorno", "Parámetros"};
-    private static final Class<?>[] COLUMN_CLASSES = {String.class, String.class, Integer.class, Boolean.class, String.class, String.class};
+    private static final String[] COLUMN_NAMES = {"Nombre", "Tipo", "Ámbito", "Es Función", "Tipo Retorno", "Parámetros", "Valor"};
+    private static final Class<?>[] COLUMN_CLASSES = {String.class, String.class, Integer.class, Boolean.class, String.class, String.class, String.class};
     
     private List<Symbol> symbols;
     
@@ -53,6 +53,7 @@ public class SymbolTableModel extends AbstractTableModel {
             case 3 -> symbol.isFunction();
             case 4 -> symbol.isFunction() ? symbol.getReturnType().name() : "N/A";
             case 5 -> symbol.isFunction() ? formatParameters(symbol.getParameters()) : "N/A";
+            case 6 -> symbol.getValue() != null ? String.valueOf(symbol.getValue()) : "";
             default -> null;
         };
     }
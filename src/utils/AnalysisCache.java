@@ -0,0 +1,270 @@
+package utils;
+
+import lexer.Token;
+import parser.Grammar;
+import parser.ParseTreeArena;
+import parser.ParseResult;
+import parser.ParseTrace;
+import semantic.SemanticAnalysisResult;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Caché de los resultados del análisis (tokens, resultado sintáctico y
+ * resultado semántico) indexada por el contenido del código fuente. La
+ * clave es un hash de 64 bits del texto más la huella de la gramática; al
+ * acertar se compara además el texto completo, así que una colisión nunca
+ * devuelve el resultado de otro código.
+ *
+ * Las entradas se expulsan por LRU según su peso estimado en memoria. Los
+ * valores guardados se comparten entre todas las consultas y no deben
+ * modificarse.
+ */
+public class AnalysisCache {
+    /** Peso máximo por defecto: 64 MB. */
+    public static final long DEFAULT_MAX_WEIGHT = 64L * 1024 * 1024;
+
+    // Estimaciones de memoria por elemento usadas para calcular el peso
+    private static final int BYTES_PER_TOKEN = 64;
+    private static final int TREE_BYTES_PER_TOKEN = 4 * 72;
+    private static final int BYTES_PER_TRACE_STEP = 16;
+    private static final int BYTES_PER_ARENA_NODE = 32;
+    // Árbol analizado, tipos memorizados por nodo y mapas de ámbitos y símbolos declarados
+    private static final int BYTES_PER_ANALYZED_NODE = 48;
+    private static final int ENTRY_OVERHEAD = 128;
+
+    /**
+     * Resultado completo del análisis de un código fuente.
+     */
+    public static class Entry {
+        private final String source;
+        private final List<Token> tokens;
+        private final ParseResult parseResult;
+        private final ParseTrace parseTrace;
+        private final SemanticAnalysisResult semanticResult;
+        private final ParseTreeArena tree;
+        private final long weight;
+
+        /**
+         * @param source Código analizado
+         * @param tokens Tokens del análisis léxico
+         * @param parseResult Resultado sintáctico (puede ser null)
+         * @param parseTrace Pasos del análisis sintáctico (puede ser null)
+         * @param semanticResult Resultado semántico (puede ser null)
+         * @param tree Árbol en arreglos con las constantes plegadas (puede ser null)
+         */
+        public Entry(String source, List<Token> tokens, ParseResult parseResult, ParseTrace parseTrace,
+                     SemanticAnalysisResult semanticResult, ParseTreeArena tree) {
+            this.source = Objects.requireNonNull(source);
+            this.tokens = List.copyOf(tokens);
+            this.parseResult = parseResult;
+            this.parseTrace = parseTrace;
+            this.semanticResult = semanticResult;
+            this.tree = tree;
+            this.weight = ENTRY_OVERHEAD + 2L * source.length() + (long) BYTES_PER_TOKEN * tokens.size()
+                    + (parseResult != null ? (long) TREE_BYTES_PER_TOKEN * tokens.size() : 0)
+                    + (parseTrace != null ? (long) BYTES_PER_TRACE_STEP * parseTrace.size() : 0)
+                    + (tree != null ? (long) BYTES_PER_ARENA_NODE * tree.getNodeCount() : 0)
+                    + (semanticResult != null && semanticResult.getTree() != null
+                            ? (long) BYTES_PER_ANALYZED_NODE * semanticResult.getTree().getNodeCount() : 0);
+        }
+
+        public String getSource() { return source; }
+        public List<Token> getTokens() { return tokens; }
+        public ParseResult getParseResult() { return parseResult; }
+        public ParseTrace getParseTrace() { return parseTrace; }
+        public SemanticAnalysisResult getSemanticResult() { return semanticResult; }
+        public ParseTreeArena getTree() { return tree; }
+
+        /**
+         * Obtiene el peso estimado de la entrada en bytes.
+         */
+        public long getWeight() { return weight; }
+    }
+
+    /**
+     * Estadísticas de uso de la caché en un instante dado.
+     */
+    public static class Statistics {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int entries;
+        private final long weight;
+        private final long maxWeight;
+
+        Statistics(long hits, long misses, long evictions, int entries, long weight, long maxWeight) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.entries = entries;
+            this.weight = weight;
+            this.maxWeight = maxWeight;
+        }
+
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getEvictions() { return evictions; }
+        public int getEntries() { return entries; }
+        public long getWeight() { return weight; }
+        public long getMaxWeight() { return maxWeight; }
+
+        public double getHitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Caché: %d aciertos, %d fallos (%.1f%%), %d expulsiones, %d entradas, %d/%d KB",
+                    hits, misses, getHitRate() * 100, evictions, entries, weight / 1024, maxWeight / 1024);
+        }
+    }
+
+    /**
+     * Clave: hash del código y huella de la gramática con que se analizó.
+     */
+    private static final class Key {
+        private final long sourceHash;
+        private final long grammar;
+
+        Key(long sourceHash, long grammar) {
+            this.sourceHash = sourceHash;
+            this.grammar = grammar;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && key.sourceHash == sourceHash && key.grammar == grammar;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(sourceHash * 31 + grammar);
+        }
+    }
+
+    private final long maxWeight;
+    // Orden de acceso: la primera entrada es la menos usada recientemente
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public AnalysisCache() {
+        this(DEFAULT_MAX_WEIGHT);
+    }
+
+    /**
+     * @param maxWeight Peso máximo total de las entradas, en bytes estimados
+     */
+    public AnalysisCache(long maxWeight) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("El peso máximo de la caché debe ser positivo");
+        }
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Calcula un hash de 64 bits de un texto. Se usan cuatro acumuladores
+     * independientes (uno por cada carácter de un grupo de cuatro) para que
+     * las multiplicaciones no tengan que esperar unas a otras.
+     */
+    public static long hash(String source) {
+        final long prime = 0x100000001b3L;
+        long h0 = 0xcbf29ce484222325L;
+        long h1 = h0 ^ 1;
+        long h2 = h0 ^ 2;
+        long h3 = h0 ^ 3;
+        int length = source.length();
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            h0 = (h0 ^ source.charAt(i)) * prime;
+            h1 = (h1 ^ source.charAt(i + 1)) * prime;
+            h2 = (h2 ^ source.charAt(i + 2)) * prime;
+            h3 = (h3 ^ source.charAt(i + 3)) * prime;
+        }
+        for (; i < length; i++) {
+            h0 = (h0 ^ source.charAt(i)) * prime;
+        }
+        long hash = ((h0 * 31 + h1) * 31 + h2) * 31 + h3;
+        hash ^= length;
+        // Mezcla final (de SplitMix64) para repartir los bits
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+
+    /**
+     * Busca el resultado del análisis de un código.
+     *
+     * @return Entrada guardada, o null si el código no se ha analizado con la gramática actual
+     */
+    public Entry get(String source) {
+        return get(source, false);
+    }
+
+    /**
+     * Busca el resultado del análisis de un código. Una entrada que solo
+     * tiene los tokens no sirve a quien necesita el análisis sintáctico, así
+     * que en ese caso cuenta como fallo.
+     *
+     * @param needsParse Si la entrada debe incluir el resultado sintáctico
+     * @return Entrada guardada, o null si no hay una entrada con los resultados pedidos
+     */
+    public synchronized Entry get(String source, boolean needsParse) {
+        Entry entry = entries.get(keyOf(source));
+        if (entry != null && entry.source.equals(source) && (!needsParse || entry.parseResult != null)) {
+            hits++;
+            return entry;
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Guarda el resultado del análisis de un código, reemplazando el anterior
+     * y expulsando las entradas menos usadas si se supera el peso máximo.
+     * Una entrada más pesada que toda la caché no se guarda.
+     */
+    public synchronized void put(Entry entry) {
+        Key key = keyOf(entry.source);
+        Entry previous = entries.remove(key);
+        if (previous != null) {
+            weight -= previous.weight;
+        }
+        if (entry.weight > maxWeight) {
+            return;
+        }
+        entries.put(key, entry);
+        weight += entry.weight;
+
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            Entry evicted = eldest.next().getValue();
+            eldest.remove();
+            weight -= evicted.weight;
+            evictions++;
+        }
+    }
+
+    /**
+     * Elimina todas las entradas; las estadísticas se conservan.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized Statistics getStatistics() {
+        return new Statistics(hits, misses, evictions, entries.size(), weight, maxWeight);
+    }
+
+    private static Key keyOf(String source) {
+        return new Key(hash(source), Grammar.getFingerprint());
+    }
+}
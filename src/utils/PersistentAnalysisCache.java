@@ -0,0 +1,600 @@
+package utils;
+
+import lexer.Token;
+import lexer.TokenType;
+import parser.Grammar;
+import parser.ParseTreeArena;
+import parser.ParserException;
+import semantic.SemanticAnalysisResult;
+import semantic.SemanticError;
+import semantic.Symbol;
+import semantic.SymbolTable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Caché en disco de los resultados del análisis, para que ejecuciones
+ * sucesivas (por ejemplo, compilaciones por lotes en integración continua)
+ * no vuelvan a analizar los archivos que no cambiaron. Cada entrada es un
+ * archivo del directorio de la caché con los tokens, el árbol sintáctico en
+ * arreglos, los errores sintácticos y el resultado semántico.
+ *
+ * El nombre del archivo combina el hash del código con la versión del
+ * formato y de la herramienta (huella de la gramática, tipos de token y
+ * {@link #ANALYZER_VERSION}), así que un cambio en el analizador nunca
+ * reutiliza entradas antiguas; estas simplemente dejan de usarse y las
+ * elimina la recolección. La cabecera guarda además la longitud y un
+ * segundo hash del código para descartar colisiones.
+ *
+ * Las entradas se escriben en un archivo temporal que luego se mueve de
+ * forma atómica, de modo que otro proceso nunca lee una entrada a medias.
+ * La fecha de modificación de cada archivo hace de fecha de último uso:
+ * cuando el tamaño total supera el máximo se borran las menos usadas.
+ */
+public class PersistentAnalysisCache {
+    /** Tamaño máximo por defecto del directorio: 256 MB. */
+    public static final long DEFAULT_MAX_SIZE = 256L * 1024 * 1024;
+
+    /**
+     * Versión del análisis léxico y semántico. Debe incrementarse cuando
+     * cambie el resultado que producen para un mismo código, ya que la
+     * huella de la gramática solo cubre el análisis sintáctico.
+     */
+    public static final int ANALYZER_VERSION = 5;
+
+    private static final int MAGIC = 0x43414348;
+    private static final int FORMAT_VERSION = 3;
+    private static final String ENTRY_SUFFIX = ".bin";
+    private static final String TEMP_SUFFIX = ".tmp";
+    // Un temporal más antiguo que esto pertenece a un proceso que terminó sin moverlo
+    private static final long STALE_TEMP_MILLIS = 60L * 60 * 1000;
+    // Tipo (short), lexema, línea y columna (int) de cada token
+    private static final int TOKEN_BYTES = Short.BYTES + 3 * Integer.BYTES;
+    private static final long TOOL_FINGERPRINT = computeToolFingerprint();
+
+    /**
+     * Resultado del análisis de un código guardado en la caché.
+     */
+    public static class Entry {
+        private final List<Token> tokens;
+        private final ParseTreeArena tree;
+        private final List<ParserException> parseErrors;
+        private final SemanticAnalysisResult semanticResult;
+
+        /**
+         * @param tokens Tokens del análisis léxico
+         * @param tree Árbol sintáctico, con las constantes ya plegadas si el análisis
+         *             semántico no encontró errores (puede ser null)
+         * @param parseErrors Errores sintácticos
+         * @param semanticResult Resultado semántico (puede ser null)
+         */
+        public Entry(List<Token> tokens, ParseTreeArena tree, List<ParserException> parseErrors,
+                     SemanticAnalysisResult semanticResult) {
+            this.tokens = List.copyOf(tokens);
+            this.tree = tree;
+            this.parseErrors = List.copyOf(parseErrors);
+            this.semanticResult = semanticResult;
+        }
+
+        public List<Token> getTokens() { return tokens; }
+        public ParseTreeArena getTree() { return tree; }
+        public List<ParserException> getParseErrors() { return parseErrors; }
+        public SemanticAnalysisResult getSemanticResult() { return semanticResult; }
+    }
+
+    private final Path directory;
+    private final long maxSize;
+    private long size;
+    private long hits;
+    private long misses;
+    private long writes;
+    private long evictions;
+
+    public PersistentAnalysisCache(Path directory) throws IOException {
+        this(directory, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Abre (o crea) la caché en un directorio y calcula su tamaño actual.
+     *
+     * @param directory Directorio de la caché
+     * @param maxSize Tamaño máximo total de las entradas, en bytes
+     */
+    public PersistentAnalysisCache(Path directory, long maxSize) throws IOException {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("El tamaño máximo de la caché debe ser positivo");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.maxSize = maxSize;
+        long now = System.currentTimeMillis();
+        for (CachedFile file : listFiles()) {
+            if (file.temporary) {
+                if (now - file.lastUsed > STALE_TEMP_MILLIS) {
+                    Files.deleteIfExists(file.path);
+                }
+            } else {
+                size += file.size;
+            }
+        }
+    }
+
+    /**
+     * Busca el resultado del análisis de un código. Una entrada ilegible
+     * (truncada o de otro formato) se borra y cuenta como fallo.
+     *
+     * @return Entrada guardada, o null si no existe para esta versión de la herramienta
+     */
+    public synchronized Entry get(String source) {
+        Path path = pathOf(source);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            Entry entry = readEntry(in, source);
+            if (entry != null) {
+                // La fecha de modificación marca el último uso para la expulsión LRU
+                Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+                hits++;
+                return entry;
+            }
+        } catch (NoSuchFileException e) {
+            misses++;
+            return null;
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(path);
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Guarda el resultado del análisis de un código. La entrada se escribe
+     * en un temporal y se mueve atómicamente a su nombre definitivo; después
+     * se expulsan las entradas menos usadas si se supera el tamaño máximo.
+     */
+    public synchronized void put(String source, Entry entry) throws IOException {
+        Path target = pathOf(source);
+        Path temp = Files.createTempFile(directory, "entry-", TEMP_SUFFIX);
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                writeEntry(out, source, entry);
+            }
+            long previous = Files.exists(target) ? Files.size(target) : 0;
+            long written = Files.size(temp);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            size += written - previous;
+            writes++;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        if (size > maxSize) {
+            collectGarbage();
+        }
+    }
+
+    /**
+     * Borra las entradas menos usadas recientemente hasta que el tamaño
+     * total quede por debajo del máximo. Recalcula el tamaño desde el
+     * directorio, ya que otros procesos pueden haber añadido entradas.
+     */
+    public synchronized void collectGarbage() throws IOException {
+        List<CachedFile> files = new ArrayList<>();
+        size = 0;
+        for (CachedFile file : listFiles()) {
+            if (!file.temporary) {
+                files.add(file);
+                size += file.size;
+            }
+        }
+        files.sort(Comparator.comparingLong((CachedFile file) -> file.lastUsed));
+        for (int i = 0; i < files.size() && size > maxSize; i++) {
+            CachedFile file = files.get(i);
+            if (Files.deleteIfExists(file.path)) {
+                evictions++;
+            }
+            size -= file.size;
+        }
+    }
+
+    /**
+     * Borra todas las entradas de la caché.
+     */
+    public synchronized void clear() throws IOException {
+        for (CachedFile file : listFiles()) {
+            if (!file.temporary) {
+                Files.deleteIfExists(file.path);
+            }
+        }
+        size = 0;
+    }
+
+    public Path getDirectory() { return directory; }
+    public synchronized long getSize() { return size; }
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getWrites() { return writes; }
+    public synchronized long getEvictions() { return evictions; }
+
+    /**
+     * Obtiene un resumen del uso de la caché.
+     */
+    public synchronized String getSummary() {
+        return String.format("Caché en disco: %d aciertos, %d fallos, %d escrituras, %d expulsiones, %d/%d KB",
+                hits, misses, writes, evictions, size / 1024, maxSize / 1024);
+    }
+
+    private Path pathOf(String source) {
+        return directory.resolve(String.format("%016x-%016x%s",
+                AnalysisCache.hash(source), TOOL_FINGERPRINT, ENTRY_SUFFIX));
+    }
+
+    private void writeEntry(DataOutputStream out, String source, Entry entry) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(TOOL_FINGERPRINT);
+        out.writeInt(source.length());
+        out.writeInt(source.hashCode());
+
+        List<Token> tokens = entry.tokens;
+        writeTokens(out, tokens);
+
+        out.writeBoolean(entry.tree != null);
+        if (entry.tree != null) {
+            // El árbol indexa su propia lista: se guarda como posiciones en la lista de la
+            // entrada, salvo los tokens que no están en ella (insertados por la recuperación
+            // o literales creados por el plegado de constantes)
+            Map<Token, Integer> positions = new HashMap<>(tokens.size() * 2);
+            for (int i = 0; i < tokens.size(); i++) {
+                positions.put(tokens.get(i), i);
+            }
+            List<Token> treeTokens = entry.tree.getTokens();
+            int[] treePositions = new int[treeTokens.size()];
+            List<Token> inserted = new ArrayList<>();
+            for (int i = 0; i < treePositions.length; i++) {
+                Integer position = positions.get(treeTokens.get(i));
+                treePositions[i] = position != null ? position : -1;
+                if (position == null) {
+                    inserted.add(treeTokens.get(i));
+                }
+            }
+            writeInts(out, treePositions);
+            writeTokens(out, inserted);
+            entry.tree.write(out);
+        }
+
+        out.writeInt(entry.parseErrors.size());
+        for (ParserException error : entry.parseErrors) {
+            writeText(out, Objects.toString(error.getMessage(), ""));
+            writeText(out, Objects.toString(error.getExpectedSymbols(), ""));
+            out.writeInt(error.getErrorState());
+            out.writeBoolean(error.getErrorToken() != null);
+            if (error.getErrorToken() != null) {
+                writeToken(out, error.getErrorToken());
+            }
+        }
+
+        SemanticAnalysisResult semantic = entry.semanticResult;
+        out.writeBoolean(semantic != null);
+        if (semantic != null) {
+            out.writeInt(semantic.getErrors().size());
+            for (SemanticError error : semantic.getErrors()) {
+                writeText(out, error.getMessage());
+                out.writeInt(error.getLine());
+                out.writeInt(error.getColumn());
+            }
+            Map<String, Symbol> symbols = semantic.getSymbolTable().getSymbols();
+            out.writeInt(symbols.size());
+            for (Symbol symbol : symbols.values()) {
+                writeSymbol(out, symbol);
+            }
+        }
+    }
+
+    /**
+     * Lee una entrada y comprueba que corresponde al código y a esta versión.
+     *
+     * @return Entrada leída, o null si pertenece a otro código
+     */
+    private Entry readEntry(DataInputStream in, String source) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || in.readLong() != TOOL_FINGERPRINT) {
+            throw new IOException("Entrada de otro formato");
+        }
+        if (in.readInt() != source.length() || in.readInt() != source.hashCode()) {
+            return null;
+        }
+
+        List<Token> tokens = readTokens(in);
+
+        ParseTreeArena tree = null;
+        if (in.readBoolean()) {
+            int[] treePositions = readInts(in);
+            List<Token> inserted = readTokens(in);
+            List<Token> treeTokens = new ArrayList<>(treePositions.length);
+            int next = 0;
+            for (int position : treePositions) {
+                treeTokens.add(position < 0 ? inserted.get(next++) : tokens.get(position));
+            }
+            tree = ParseTreeArena.read(in, treeTokens);
+        }
+
+        int parseErrorCount = in.readInt();
+        List<ParserException> parseErrors = new ArrayList<>(parseErrorCount);
+        for (int i = 0; i < parseErrorCount; i++) {
+            String message = readText(in);
+            String expected = readText(in);
+            int state = in.readInt();
+            Token token = in.readBoolean() ? readToken(in) : null;
+            parseErrors.add(new ParserException(message, token, expected, state));
+        }
+
+        SemanticAnalysisResult semantic = null;
+        if (in.readBoolean()) {
+            int errorCount = in.readInt();
+            List<SemanticError> errors = new ArrayList<>(errorCount);
+            for (int i = 0; i < errorCount; i++) {
+                errors.add(new SemanticError(readText(in), in.readInt(), in.readInt()));
+            }
+            SymbolTable symbolTable = new SymbolTable();
+            int symbolCount = in.readInt();
+            for (int i = 0; i < symbolCount; i++) {
+                symbolTable.restoreSymbol(readSymbol(in));
+            }
+            semantic = new SemanticAnalysisResult(errors, symbolTable);
+        }
+        return new Entry(tokens, tree, parseErrors, semantic);
+    }
+
+    /**
+     * Escribe una lista de tokens por columnas: primero la tabla de lexemas
+     * distintos y después, en bloque, el tipo, el lexema, la línea y la
+     * columna de cada token. Así la lectura no decodifica cada lexema
+     * repetido ni lee los campos uno a uno.
+     */
+    private static void writeTokens(DataOutputStream out, List<Token> tokens) throws IOException {
+        Map<String, Integer> lexemes = new HashMap<>();
+        List<String> lexemeTable = new ArrayList<>();
+        ByteBuffer columns = ByteBuffer.allocate(tokens.size() * TOKEN_BYTES);
+        for (Token token : tokens) {
+            Integer lexeme = lexemes.get(token.getLexeme());
+            if (lexeme == null) {
+                lexeme = lexemeTable.size();
+                lexemes.put(token.getLexeme(), lexeme);
+                lexemeTable.add(token.getLexeme());
+            }
+            columns.putShort((short) token.getType().ordinal())
+                    .putInt(lexeme)
+                    .putInt(token.getLine())
+                    .putInt(token.getColumn());
+        }
+        out.writeInt(lexemeTable.size());
+        for (String lexeme : lexemeTable) {
+            writeText(out, lexeme);
+        }
+        out.writeInt(tokens.size());
+        out.write(columns.array());
+    }
+
+    private static List<Token> readTokens(DataInputStream in) throws IOException {
+        String[] lexemeTable = new String[in.readInt()];
+        for (int i = 0; i < lexemeTable.length; i++) {
+            lexemeTable[i] = readText(in);
+        }
+        int count = in.readInt();
+        byte[] bytes = new byte[count * TOKEN_BYTES];
+        in.readFully(bytes);
+        ByteBuffer columns = ByteBuffer.wrap(bytes);
+        TokenType[] types = TokenType.values();
+        List<Token> tokens = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TokenType type = types[columns.getShort()];
+            tokens.add(new Token(type, lexemeTable[columns.getInt()], columns.getInt(), columns.getInt()));
+        }
+        return tokens;
+    }
+
+    /**
+     * Escribe un texto como su longitud en bytes seguida de su UTF-8. A
+     * diferencia de writeUTF no tiene un límite de 64 KB, que un literal o
+     * un mensaje que lo cite pueden superar.
+     */
+    private static void writeText(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Longitud de texto no válida");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * Integer.BYTES);
+        buffer.asIntBuffer().put(values);
+        out.writeInt(values.length);
+        out.write(buffer.array());
+    }
+
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int[] values = new int[in.readInt()];
+        byte[] bytes = new byte[values.length * Integer.BYTES];
+        in.readFully(bytes);
+        ByteBuffer.wrap(bytes).asIntBuffer().get(values);
+        return values;
+    }
+
+    private static void writeToken(DataOutputStream out, Token token) throws IOException {
+        out.writeShort(token.getType().ordinal());
+        writeText(out, token.getLexeme());
+        out.writeInt(token.getLine());
+        out.writeInt(token.getColumn());
+    }
+
+    private static Token readToken(DataInputStream in) throws IOException {
+        TokenType type = TokenType.values()[in.readUnsignedShort()];
+        return new Token(type, readText(in), in.readInt(), in.readInt());
+    }
+
+    private static void writeSymbol(DataOutputStream out, Symbol symbol) throws IOException {
+        writeText(out, symbol.getName());
+        writeType(out, symbol.getType());
+        writeValue(out, symbol.getValue());
+        out.writeInt(symbol.getScopeLevel());
+        out.writeBoolean(symbol.isFunction());
+        writeType(out, symbol.getReturnType());
+        List<TokenType> parameters = symbol.getParameters();
+        out.writeInt(parameters == null ? -1 : parameters.size());
+        if (parameters != null) {
+            for (TokenType parameter : parameters) {
+                writeType(out, parameter);
+            }
+        }
+    }
+
+    private static Symbol readSymbol(DataInputStream in) throws IOException {
+        String name = readText(in);
+        TokenType type = readType(in);
+        Object value = readValue(in);
+        int scopeLevel = in.readInt();
+        boolean function = in.readBoolean();
+        TokenType returnType = readType(in);
+        int parameterCount = in.readInt();
+        List<TokenType> parameters = null;
+        if (parameterCount >= 0) {
+            parameters = new ArrayList<>(parameterCount);
+            for (int i = 0; i < parameterCount; i++) {
+                parameters.add(readType(in));
+            }
+        }
+        return new Symbol(name, type, value, scopeLevel, function, returnType, parameters);
+    }
+
+    private static void writeType(DataOutputStream out, TokenType type) throws IOException {
+        out.writeShort(type == null ? -1 : type.ordinal());
+    }
+
+    private static TokenType readType(DataInputStream in) throws IOException {
+        int ordinal = in.readShort();
+        return ordinal < 0 ? null : TokenType.values()[ordinal];
+    }
+
+    /**
+     * Escribe el valor de un símbolo. Los valores que no son números,
+     * booleanos, caracteres ni cadenas se guardan como su texto.
+     */
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(0);
+        } else if (value instanceof Integer number) {
+            out.writeByte(1);
+            out.writeInt(number);
+        } else if (value instanceof Long number) {
+            out.writeByte(2);
+            out.writeLong(number);
+        } else if (value instanceof Double number) {
+            out.writeByte(3);
+            out.writeDouble(number);
+        } else if (value instanceof Boolean bool) {
+            out.writeByte(4);
+            out.writeBoolean(bool);
+        } else if (value instanceof Character character) {
+            out.writeByte(6);
+            out.writeChar(character);
+        } else if (value instanceof Float number) {
+            out.writeByte(7);
+            out.writeFloat(number);
+        } else {
+            out.writeByte(5);
+            writeText(out, value.toString());
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        return switch (in.readByte()) {
+            case 0 -> null;
+            case 1 -> in.readInt();
+            case 2 -> in.readLong();
+            case 3 -> in.readDouble();
+            case 4 -> in.readBoolean();
+            case 5 -> readText(in);
+            case 6 -> in.readChar();
+            case 7 -> in.readFloat();
+            default -> throw new IOException("Tipo de valor desconocido");
+        };
+    }
+
+    /**
+     * Archivo del directorio con los datos usados por la recolección.
+     */
+    private static final class CachedFile {
+        private final Path path;
+        private final long size;
+        private final long lastUsed;
+        private final boolean temporary;
+
+        CachedFile(Path path, BasicFileAttributes attributes) {
+            this.path = path;
+            this.size = attributes.size();
+            this.lastUsed = attributes.lastModifiedTime().toMillis();
+            this.temporary = path.getFileName().toString().endsWith(TEMP_SUFFIX);
+        }
+    }
+
+    private List<CachedFile> listFiles() throws IOException {
+        List<CachedFile> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                "*{" + ENTRY_SUFFIX + "," + TEMP_SUFFIX + "}")) {
+            for (Path path : stream) {
+                try {
+                    files.add(new CachedFile(path, Files.readAttributes(path, BasicFileAttributes.class)));
+                } catch (NoSuchFileException e) {
+                    // Borrado por otro proceso mientras se listaba
+                }
+            }
+        }
+        return files;
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // Se reintentará en la próxima recolección
+        }
+    }
+
+    private static long computeToolFingerprint() {
+        StringBuilder text = new StringBuilder();
+        text.append(FORMAT_VERSION).append('/').append(ANALYZER_VERSION).append('/')
+                .append(Long.toHexString(Grammar.getFingerprint())).append('/');
+        for (TokenType type : TokenType.values()) {
+            text.append(type.name()).append(',');
+        }
+        return AnalysisCache.hash(text.toString());
+    }
+}